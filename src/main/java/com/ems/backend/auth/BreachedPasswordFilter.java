@@ -0,0 +1,177 @@
+package com.ems.backend.auth;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Bloom filter over a list of common / breached passwords. Checking a candidate costs a
+ * handful of bit probes, with no allocation, DB or network call. Entries and candidates are
+ * both lower-cased before hashing, so case variants of a listed password are caught too. A
+ * false positive only means a rare strong password gets rejected; a false negative cannot
+ * happen.
+ *
+ * <p>The filter is either memory-mapped from a prebuilt file ({@link #writeTo(Path)}) or
+ * built at startup from a bundled word list, one password per line.</p>
+ */
+@Component
+public class BreachedPasswordFilter {
+
+    private static final int MAGIC = 0x454D534C; // "EMSL", lower-cased entries
+    private static final int HEADER_BYTES = 16;
+
+    private final ResourceLoader resourceLoader;
+
+    @Value("${ems.password.breached-check.enabled:true}")
+    private boolean enabled;
+
+    @Value("${ems.password.breached-list:classpath:security/common-passwords.txt}")
+    private String wordListLocation;
+
+    @Value("${ems.password.breached-filter-file:}")
+    private String prebuiltFilterFile;
+
+    @Value("${ems.password.breached-false-positive-rate:0.001}")
+    private double falsePositiveRate;
+
+    private LongBuffer bits;
+    private long numBits;
+    private int numHashes;
+
+    public BreachedPasswordFilter(ResourceLoader resourceLoader) {
+        this.resourceLoader = resourceLoader;
+    }
+
+    @PostConstruct
+    void load() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        if (!prebuiltFilterFile.isBlank() && Files.exists(Path.of(prebuiltFilterFile))) {
+            mapPrebuilt(Path.of(prebuiltFilterFile));
+        } else {
+            buildFromWordList(resourceLoader.getResource(wordListLocation));
+        }
+    }
+
+    /**
+     * True if the password, ignoring case, is probably on the list.
+     */
+    public boolean mightBeBreached(String password) {
+        if (bits == null || password == null) {
+            return false;
+        }
+        return mightContain(password);
+    }
+
+    /**
+     * Writes the current filter in the format {@link #load()} memory-maps, so large lists
+     * only have to be hashed once, offline.
+     */
+    public void writeTo(Path file) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(Files.newOutputStream(file))) {
+            out.writeInt(MAGIC);
+            out.writeInt(numHashes);
+            out.writeLong(numBits);
+            for (int i = 0; i < bits.limit(); i++) {
+                out.writeLong(bits.get(i));
+            }
+        }
+    }
+
+    private void mapPrebuilt(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (mapped.getInt(0) != MAGIC) {
+                throw new IllegalStateException("Not a breached-password filter file (or built by an "
+                        + "older version, rebuild it with writeTo): " + file);
+            }
+            this.numHashes = mapped.getInt(4);
+            this.numBits = mapped.getLong(8);
+            this.bits = mapped.position(HEADER_BYTES).slice().asLongBuffer();
+        }
+    }
+
+    private void buildFromWordList(Resource resource) throws IOException {
+        if (!resource.exists()) {
+            System.err.println("Breached password list not found: " + wordListLocation);
+            return;
+        }
+        List<String> words = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(resource.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.isBlank() && !line.startsWith("#")) {
+                    words.add(line.strip());
+                }
+            }
+        }
+
+        int n = Math.max(1, words.size());
+        double ln2 = Math.log(2);
+        long m = Math.max(64, (long) Math.ceil(-n * Math.log(falsePositiveRate) / (ln2 * ln2)));
+        this.numBits = (m + 63) / 64 * 64;
+        this.numHashes = Math.max(1, (int) Math.round((double) numBits / n * ln2));
+        this.bits = LongBuffer.allocate((int) (numBits / 64));
+        for (String word : words) {
+            put(word);
+        }
+    }
+
+    private void put(String word) {
+        long hash = hash(word);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 0; i < numHashes; i++) {
+            long bit = Math.floorMod(h1 + (long) i * h2, numBits);
+            int index = (int) (bit >>> 6);
+            bits.put(index, bits.get(index) | (1L << bit));
+        }
+    }
+
+    private boolean mightContain(String password) {
+        long hash = hash(password);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 0; i < numHashes; i++) {
+            long bit = Math.floorMod(h1 + (long) i * h2, numBits);
+            if ((bits.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // 64-bit FNV-1a over the lower-cased UTF-16 chars, finished with a murmur-style mix;
+    // used for both put and probe so the filter is case-insensitive end to end
+    private static long hash(String s) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < s.length(); i++) {
+            h ^= Character.toLowerCase(s.charAt(i));
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
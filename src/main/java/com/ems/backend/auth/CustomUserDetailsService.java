@@ -2,6 +2,7 @@ package com.ems.backend.auth;
 
 import com.ems.backend.entity.User;
 import com.ems.backend.repository.UserRepository;
+import io.jsonwebtoken.Claims;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
@@ -11,9 +12,11 @@ import org.springframework.stereotype.Service;
 public class CustomUserDetailsService implements UserDetailsService {
 
     private final UserRepository userRepository;
+    private final UserSnapshotCache userSnapshotCache;
 
-    public CustomUserDetailsService(UserRepository userRepository) {
+    public CustomUserDetailsService(UserRepository userRepository, UserSnapshotCache userSnapshotCache) {
         this.userRepository = userRepository;
+        this.userSnapshotCache = userSnapshotCache;
     }
 
     @Override
@@ -22,4 +25,35 @@ public class CustomUserDetailsService implements UserDetailsService {
                 .orElseThrow(() -> new UsernameNotFoundException("User not found with username: " + username));
         return user;
     }
-}
\ No newline at end of file
+
+    /**
+     * Resolves the principal described by a verified access token. Only the first request
+     * after a cache miss reads the {@code users} table; every later one is served from the
+     * snapshot cache. Returns {@code null} when the user is gone or the token predates the
+     * user's current security version.
+     */
+    public User loadUserFromClaims(Claims claims) {
+        Long userId = claims.get(JwtUtil.CLAIM_USER_ID, Long.class);
+        Long securityVersion = claims.get(JwtUtil.CLAIM_SECURITY_VERSION, Long.class);
+        if (userId == null || securityVersion == null) {
+            // token issued before ids/versions were embedded
+            return userRepository.findByUsername(claims.getSubject()).orElse(null);
+        }
+
+        User user = userSnapshotCache.get(userId);
+        // a token newer than the snapshot means the snapshot is stale: a reader that loaded
+        // the row just before a version bump may have put it back after the writer's evict
+        if (user == null || user.getSecurityVersion() < securityVersion) {
+            User loaded = userRepository.findById(userId).orElse(null);
+            if (loaded == null) {
+                userSnapshotCache.evict(userId);
+                return null;
+            }
+            userSnapshotCache.put(loaded);
+            user = loaded;
+        }
+
+        // only a token older than the user's current version is revoked
+        return user.getSecurityVersion() == securityVersion ? user : null;
+    }
+}
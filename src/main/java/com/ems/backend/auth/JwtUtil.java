@@ -1,29 +1,92 @@
 package com.ems.backend.auth;
 
+import com.ems.backend.entity.User;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 
 import java.security.Key;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Function;
 
 @Component
 public class JwtUtil {
 
+    public static final String CLAIM_USER_ID = "uid";
+    public static final String CLAIM_SECURITY_VERSION = "sv";
+    public static final String CLAIM_FAMILY = "fam";
+
     @Value("${jwt.secret}")
     private String SECRET_KEY;
 
     @Value("${jwt.expiration:86400000}")
     private long EXPIRATION_TIME;
 
+    @Value("${jwt.verified-cache.max-entries:10000}")
+    private int verifiedCacheMaxEntries;
+
+    // Built once on first use: decoding the secret and building the parser on every call is
+    // wasted work. Not at startup, so a placeholder jwt.secret only fails when a token is
+    // issued or checked, as it did before the key was cached.
+    private volatile Key signingKey;
+    private volatile JwtParser jwtParser;
+
+    // Tokens whose signature has already been checked, keyed by SHA-256 of the token
+    private final Map<String, VerifiedToken> verifiedTokens = new ConcurrentHashMap<>();
+    private final AtomicLong cacheHits = new AtomicLong();
+    private final AtomicLong cacheMisses = new AtomicLong();
+
+    private final TokenRevocationRegistry revocationRegistry;
+
+    // An immutable copy; every hit gets its own Claims, so no caller can change another's
+    private record VerifiedToken(Map<String, Object> claims, long expiresAtMillis) {
+    }
+
+    public JwtUtil(TokenRevocationRegistry revocationRegistry) {
+        this.revocationRegistry = revocationRegistry;
+    }
+
+    private JwtParser parser() {
+        JwtParser parser = jwtParser;
+        if (parser == null) {
+            synchronized (this) {
+                if (jwtParser == null) {
+                    jwtParser = Jwts.parserBuilder()
+                            .setSigningKey(signingKey())
+                            .build();
+                }
+                parser = jwtParser;
+            }
+        }
+        return parser;
+    }
+
+    private Key signingKey() {
+        Key key = signingKey;
+        if (key == null) {
+            synchronized (this) {
+                if (signingKey == null) {
+                    signingKey = Keys.hmacShaKeyFor(Decoders.BASE64.decode(SECRET_KEY));
+                }
+                key = signingKey;
+            }
+        }
+        return key;
+    }
+
     public String extractUsername(String token) {
         return extractClaim(token, Claims::getSubject);
     }
@@ -33,25 +96,61 @@ public class JwtUtil {
     }
 
     public <T> T extractClaim(String token, Function<Claims, T> claimsResolver) {
-        final Claims claims = extractAllClaims(token);
+        final Claims claims = parseClaims(token);
         return claimsResolver.apply(claims);
     }
 
-    private Claims extractAllClaims(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
-    }
+    /**
+     * Verifies the token and returns its claims. A token is signature-checked at most once
+     * while it is still valid; later calls with the same token are answered from the
+     * verified-token cache until its {@code exp} passes.
+     *
+     * @throws io.jsonwebtoken.JwtException if the token is malformed, tampered with or expired
+     */
+    public Claims parseClaims(String token) {
+        String key = TokenDigest.sha256Hex(token);
+        long now = System.currentTimeMillis();
+
+        VerifiedToken cached = verifiedTokens.get(key);
+        if (cached != null) {
+            if (cached.expiresAtMillis() > now) {
+                cacheHits.incrementAndGet();
+                return Jwts.claims(cached.claims());
+            }
+            verifiedTokens.remove(key, cached);
+        }
 
-    private boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
+        cacheMisses.incrementAndGet();
+        Claims claims = parser().parseClaimsJws(token).getBody();
+        Date expiration = claims.getExpiration();
+        if (expiration != null) {
+            if (verifiedTokens.size() >= verifiedCacheMaxEntries) {
+                evict(now);
+            }
+            verifiedTokens.put(key, new VerifiedToken(Map.copyOf(claims), expiration.getTime()));
+        }
+        return claims;
     }
 
     public String generateToken(UserDetails userDetails) {
+        return generateToken(userDetails, null);
+    }
+
+    /**
+     * Issues an access token tied to a refresh-token family, so revoking the family
+     * (logout, refresh-token reuse) also cuts off the access tokens issued with it.
+     */
+    public String generateToken(UserDetails userDetails, String familyId) {
         Map<String, Object> claims = new HashMap<>();
         claims.put("role", userDetails.getAuthorities().iterator().next().getAuthority());
+        if (userDetails instanceof User user) {
+            // lets the request path rebuild the principal without a users lookup
+            claims.put(CLAIM_USER_ID, user.getId());
+            claims.put(CLAIM_SECURITY_VERSION, user.getSecurityVersion());
+        }
+        if (familyId != null) {
+            claims.put(CLAIM_FAMILY, familyId);
+        }
         return createToken(claims, userDetails.getUsername());
     }
 
@@ -60,19 +159,49 @@ public class JwtUtil {
         return Jwts.builder()
                 .setClaims(claims)
                 .setSubject(subject)
+                .setId(UUID.randomUUID().toString())
                 .setIssuedAt(new Date(now))
                 .setExpiration(new Date(now + EXPIRATION_TIME))
-                .signWith(getSigningKey(), SignatureAlgorithm.HS256)
+                .signWith(signingKey(), SignatureAlgorithm.HS256)
                 .compact();
     }
 
     public boolean validateToken(String token, UserDetails userDetails) {
-        final String username = extractUsername(token);
-        return username.equals(userDetails.getUsername()) && !isTokenExpired(token);
+        return isTokenValid(parseClaims(token), userDetails);
+    }
+
+    // Claims handed out by parseClaims are already signature- and expiry-checked
+    public boolean isTokenValid(Claims claims, UserDetails userDetails) {
+        return claims.getSubject().equals(userDetails.getUsername())
+                && claims.getExpiration().after(new Date())
+                && !revocationRegistry.isRevoked(claims);
+    }
+
+    public long getVerifiedCacheHits() {
+        return cacheHits.get();
+    }
+
+    public long getVerifiedCacheMisses() {
+        return cacheMisses.get();
+    }
+
+    public int getVerifiedCacheSize() {
+        return verifiedTokens.size();
+    }
+
+    @Scheduled(fixedDelay = 300000)
+    public void purgeExpiredTokens() {
+        verifiedTokens.values().removeIf(t -> t.expiresAtMillis() <= System.currentTimeMillis());
     }
 
-    private Key getSigningKey() {
-        byte[] keyBytes = Decoders.BASE64.decode(SECRET_KEY);
-        return Keys.hmacShaKeyFor(keyBytes);
+    // Drop expired entries first; if the cache is still full, shed a tenth of it
+    private void evict(long now) {
+        verifiedTokens.values().removeIf(t -> t.expiresAtMillis() <= now);
+        int toRemove = verifiedTokens.size() - (verifiedCacheMaxEntries * 9 / 10);
+        Iterator<String> it = verifiedTokens.keySet().iterator();
+        while (toRemove-- > 0 && it.hasNext()) {
+            it.next();
+            it.remove();
+        }
     }
-}
\ No newline at end of file
+}
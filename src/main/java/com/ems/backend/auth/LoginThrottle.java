@@ -0,0 +1,70 @@
+package com.ems.backend.auth;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Admission control for /api/auth/login. Attempts are charged against a per-client-IP
+ * bucket (in {@link LoginThrottleFilter}) and a per-username bucket (first thing in the
+ * login handler), both before any repository or password-hashing work is done.
+ */
+@Component
+public class LoginThrottle {
+
+    private final TokenBucketLimiter ipLimiter;
+    private final TokenBucketLimiter usernameLimiter;
+
+    public LoginThrottle(@Value("${ems.login-throttle.ip.capacity:20}") int ipCapacity,
+                         @Value("${ems.login-throttle.ip.refill-per-minute:20}") int ipRefillPerMinute,
+                         @Value("${ems.login-throttle.username.capacity:5}") int usernameCapacity,
+                         @Value("${ems.login-throttle.username.refill-per-minute:5}") int usernameRefillPerMinute,
+                         @Value("${ems.login-throttle.max-keys:100000}") int maxKeys,
+                         @Value("${ems.login-throttle.idle-millis:600000}") long idleMillis) {
+        this.ipLimiter = new TokenBucketLimiter(ipCapacity, ipRefillPerMinute, maxKeys, idleMillis);
+        this.usernameLimiter = new TokenBucketLimiter(usernameCapacity, usernameRefillPerMinute, maxKeys, idleMillis);
+    }
+
+    public boolean tryAcquireForIp(String clientIp) {
+        return ipLimiter.tryAcquire(clientIp);
+    }
+
+    public boolean tryAcquireForUsername(String username) {
+        return username == null || usernameLimiter.tryAcquire(normalize(username));
+    }
+
+    public long retryAfterSecondsForIp(String clientIp) {
+        return Math.max(1, ipLimiter.secondsUntilAvailable(clientIp));
+    }
+
+    public long retryAfterSecondsForUsername(String username) {
+        return Math.max(1, usernameLimiter.secondsUntilAvailable(normalize(username)));
+    }
+
+    @Scheduled(fixedDelay = 60000)
+    public void evictIdleBuckets() {
+        ipLimiter.evictIdle();
+        usernameLimiter.evictIdle();
+    }
+
+    public Map<String, Object> metrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("ipAllowed", ipLimiter.getAllowed());
+        metrics.put("ipThrottled", ipLimiter.getThrottled());
+        metrics.put("ipTracked", ipLimiter.size());
+        metrics.put("ipOverflowed", ipLimiter.getOverflowed());
+        metrics.put("usernameAllowed", usernameLimiter.getAllowed());
+        metrics.put("usernameThrottled", usernameLimiter.getThrottled());
+        metrics.put("usernameTracked", usernameLimiter.size());
+        metrics.put("usernameOverflowed", usernameLimiter.getOverflowed());
+        return metrics;
+    }
+
+    private static String normalize(String username) {
+        return username.trim().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,56 @@
+package com.ems.backend.auth;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+@Component
+public class PasswordValidator {
+
+    private final BreachedPasswordFilter breachedPasswordFilter;
+    private final int minLength;
+    private final boolean requireUppercase;
+    private final boolean requireLowercase;
+    private final boolean requireDigit;
+    private final boolean requireSpecial;
+    private final boolean[] specialCharacters = new boolean[128];
+
+    public PasswordValidator(BreachedPasswordFilter breachedPasswordFilter,
+                             @Value("${ems.password.min-length:8}") int minLength,
+                             @Value("${ems.password.require-uppercase:true}") boolean requireUppercase,
+                             @Value("${ems.password.require-lowercase:true}") boolean requireLowercase,
+                             @Value("${ems.password.require-digit:true}") boolean requireDigit,
+                             @Value("${ems.password.require-special:true}") boolean requireSpecial,
+                             @Value("${ems.password.special-characters:@$!%*?&}") String specialCharacters) {
+        this.breachedPasswordFilter = breachedPasswordFilter;
+        this.minLength = minLength;
+        this.requireUppercase = requireUppercase;
+        this.requireLowercase = requireLowercase;
+        this.requireDigit = requireDigit;
+        this.requireSpecial = requireSpecial;
+        for (char c : specialCharacters.toCharArray()) {
+            if (c < 128) {
+                this.specialCharacters[c] = true;
+            }
+        }
+    }
+
+    // One pass over the characters instead of a regex per rule
+    public boolean isValid(String password) {
+        if (password == null || password.length() < minLength) return false;
+
+        boolean upper = false, lower = false, digit = false, special = false;
+        for (int i = 0; i < password.length(); i++) {
+            char c = password.charAt(i);
+            if (c >= 'A' && c <= 'Z') upper = true;
+            else if (c >= 'a' && c <= 'z') lower = true;
+            else if (c >= '0' && c <= '9') digit = true;
+            else if (c < 128 && specialCharacters[c]) special = true;
+        }
+
+        return (upper || !requireUppercase) &&
+                (lower || !requireLowercase) &&
+                (digit || !requireDigit) &&
+                (special || !requireSpecial) &&
+                !breachedPasswordFilter.mightBeBreached(password);
+    }
+}
@@ -0,0 +1,121 @@
+package com.ems.backend.auth;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keyed token buckets held in a {@link ConcurrentHashMap}, so contention is limited to the
+ * map's bin locks plus a tiny per-bucket critical section. The number of keys is capped:
+ * idle buckets are swept only by the scheduled {@link #evictIdle()}, never on the request
+ * path, and while the map is full every new key draws from one shared overflow bucket. A
+ * spray of distinct keys therefore ends up more throttled, not less.
+ */
+public class TokenBucketLimiter {
+
+    private final int capacity;
+    private final double refillPerNano;
+    private final int maxKeys;
+    private final long idleNanos;
+
+    private final Map<String, Bucket> buckets = new ConcurrentHashMap<>();
+    private final AtomicLong allowed = new AtomicLong();
+    private final AtomicLong throttled = new AtomicLong();
+    private final AtomicLong overflowed = new AtomicLong();
+    private final Bucket overflow;
+
+    public TokenBucketLimiter(int capacity, int refillPerMinute, int maxKeys, long idleMillis) {
+        this.capacity = capacity;
+        this.refillPerNano = refillPerMinute / 60_000_000_000d;
+        this.maxKeys = maxKeys;
+        this.idleNanos = idleMillis * 1_000_000L;
+        this.overflow = new Bucket(capacity, System.nanoTime());
+    }
+
+    private static final class Bucket {
+        private double tokens;
+        private long lastRefillNanos;
+
+        Bucket(double tokens, long nowNanos) {
+            this.tokens = tokens;
+            this.lastRefillNanos = nowNanos;
+        }
+    }
+
+    public boolean tryAcquire(String key) {
+        return tryAcquire(key, System.nanoTime());
+    }
+
+    boolean tryAcquire(String key, long nowNanos) {
+        Bucket bucket = buckets.get(key);
+        if (bucket == null) {
+            if (buckets.size() >= maxKeys) {
+                overflowed.incrementAndGet();
+                bucket = overflow;
+            } else {
+                bucket = buckets.computeIfAbsent(key, k -> new Bucket(capacity, nowNanos));
+            }
+        }
+
+        boolean granted;
+        synchronized (bucket) {
+            // the overflow bucket is shared, so a caller's clock reading may trail the last refill
+            long elapsed = Math.max(0, nowNanos - bucket.lastRefillNanos);
+            bucket.tokens = Math.min(capacity, bucket.tokens + elapsed * refillPerNano);
+            bucket.lastRefillNanos += elapsed;
+            granted = bucket.tokens >= 1;
+            if (granted) {
+                bucket.tokens -= 1;
+            }
+        }
+
+        (granted ? allowed : throttled).incrementAndGet();
+        return granted;
+    }
+
+    /**
+     * Seconds until the key's bucket holds a whole token again; used for Retry-After.
+     */
+    public long secondsUntilAvailable(String key) {
+        Bucket bucket = buckets.get(key);
+        if (bucket == null) {
+            bucket = buckets.size() >= maxKeys ? overflow : null;
+        }
+        if (bucket == null) {
+            return 0;
+        }
+        synchronized (bucket) {
+            double missing = 1 - bucket.tokens;
+            return missing <= 0 ? 0 : (long) Math.ceil(missing / refillPerNano / 1_000_000_000d);
+        }
+    }
+
+    public void evictIdle() {
+        evictIdle(System.nanoTime());
+    }
+
+    void evictIdle(long nowNanos) {
+        buckets.values().removeIf(b -> {
+            synchronized (b) {
+                return nowNanos - b.lastRefillNanos > idleNanos;
+            }
+        });
+    }
+
+    public int size() {
+        return buckets.size();
+    }
+
+    public long getAllowed() {
+        return allowed.get();
+    }
+
+    public long getThrottled() {
+        return throttled.get();
+    }
+
+    // Requests from keys that had to share the overflow bucket
+    public long getOverflowed() {
+        return overflowed.get();
+    }
+}
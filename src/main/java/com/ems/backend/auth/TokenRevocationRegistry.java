@@ -0,0 +1,122 @@
+package com.ems.backend.auth;
+
+import com.ems.backend.entity.RevokedToken;
+import com.ems.backend.repository.RevokedTokenRepository;
+import io.jsonwebtoken.Claims;
+import jakarta.annotation.PostConstruct;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Revoked token ids (jti) and refresh-token families. Lookups are a single hash probe and
+ * never touch the database; the table behind it is only written on revoke and read once
+ * at startup to rebuild the in-memory state.
+ *
+ * <p>Ids are grouped into buckets by the minute their token expires, so the purge job
+ * drops whole buckets once they are in the past instead of scanning every entry.</p>
+ */
+@Component
+public class TokenRevocationRegistry {
+
+    private static final String FAMILY_PREFIX = "fam:";
+    private static final long MINUTE_MILLIS = 60_000L;
+
+    private final RevokedTokenRepository revokedTokenRepository;
+
+    // token key -> expiry minute (the bucket it lives in)
+    private final Map<String, Long> revoked = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListMap<Long, Set<String>> expiryBuckets = new ConcurrentSkipListMap<>();
+
+    public TokenRevocationRegistry(RevokedTokenRepository revokedTokenRepository) {
+        this.revokedTokenRepository = revokedTokenRepository;
+    }
+
+    @PostConstruct
+    void rebuild() {
+        for (RevokedToken token : revokedTokenRepository.findByExpiresAtAfter(LocalDateTime.now())) {
+            remember(token.getTokenKey(), token.getExpiresAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
+        }
+    }
+
+    /**
+     * True if the token itself or the family it belongs to has been revoked.
+     */
+    public boolean isRevoked(Claims claims) {
+        if (claims.getId() != null && revoked.containsKey(claims.getId())) {
+            return true;
+        }
+        return isFamilyRevoked(claims.get(JwtUtil.CLAIM_FAMILY, String.class));
+    }
+
+    public boolean isFamilyRevoked(String familyId) {
+        return familyId != null && revoked.containsKey(FAMILY_PREFIX + familyId);
+    }
+
+    /**
+     * Revokes a single token id until it would have expired anyway.
+     *
+     * @return {@code false} if the id was already revoked, which for refresh tokens means reuse
+     */
+    public boolean revokeToken(String tokenId, Long userId, long expiresAtMillis) {
+        return tokenId != null && revoke(tokenId, userId, expiresAtMillis);
+    }
+
+    public void revokeFamily(String familyId, Long userId, long expiresAtMillis) {
+        if (familyId != null) {
+            revoke(FAMILY_PREFIX + familyId, userId, expiresAtMillis);
+        }
+    }
+
+    public int size() {
+        return revoked.size();
+    }
+
+    @Scheduled(fixedRate = 60000)
+    public void purgeExpired() {
+        long currentMinute = System.currentTimeMillis() / MINUTE_MILLIS;
+        NavigableMap<Long, Set<String>> expired = expiryBuckets.headMap(currentMinute, true);
+        for (Map.Entry<Long, Set<String>> bucket : expired.entrySet()) {
+            Long minute = bucket.getKey();
+            for (String key : bucket.getValue()) {
+                revoked.remove(key, minute);
+            }
+        }
+        expired.clear();
+        revokedTokenRepository.deleteExpired(LocalDateTime.now());
+    }
+
+    private boolean revoke(String key, Long userId, long expiresAtMillis) {
+        if (expiresAtMillis <= System.currentTimeMillis()) {
+            return true; // already unusable, nothing to remember
+        }
+        if (!remember(key, expiresAtMillis)) {
+            return false;
+        }
+        revokedTokenRepository.save(RevokedToken.builder()
+                .tokenKey(key)
+                .userId(userId)
+                .expiresAt(LocalDateTime.ofInstant(Instant.ofEpochMilli(expiresAtMillis), ZoneId.systemDefault()))
+                .revokedAt(LocalDateTime.now())
+                .build());
+        return true;
+    }
+
+    private boolean remember(String key, long expiresAtMillis) {
+        // round up so a bucket is only dropped once every token in it has expired
+        long minute = (expiresAtMillis + MINUTE_MILLIS - 1) / MINUTE_MILLIS;
+        if (revoked.putIfAbsent(key, minute) != null) {
+            return false;
+        }
+        expiryBuckets.computeIfAbsent(minute, m -> ConcurrentHashMap.newKeySet()).add(key);
+        return true;
+    }
+}
@@ -0,0 +1,51 @@
+package com.ems.backend.auth;
+
+import com.ems.backend.entity.User;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Bounded in-memory copy of recently authenticated users, keyed by user id.
+ * Entries are evicted whenever the user's security version is bumped, so a cached
+ * principal is never newer or older than what the database would return.
+ */
+@Component
+public class UserSnapshotCache {
+
+    private final Map<Long, User> snapshots = new ConcurrentHashMap<>();
+
+    @Value("${ems.auth.user-cache.max-entries:10000}")
+    private int maxEntries;
+
+    /**
+     * Returns a private copy of the cached user, so controllers that mutate their
+     * {@code @AuthenticationPrincipal} cannot corrupt the shared snapshot.
+     */
+    public User get(Long userId) {
+        User snapshot = snapshots.get(userId);
+        return snapshot == null ? null : snapshot.toBuilder().build();
+    }
+
+    public void put(User user) {
+        if (snapshots.size() >= maxEntries && !snapshots.containsKey(user.getId())) {
+            Iterator<Long> it = snapshots.keySet().iterator();
+            if (it.hasNext()) {
+                it.next();
+                it.remove();
+            }
+        }
+        snapshots.put(user.getId(), user.toBuilder().build());
+    }
+
+    public void evict(Long userId) {
+        snapshots.remove(userId);
+    }
+
+    public int size() {
+        return snapshots.size();
+    }
+}
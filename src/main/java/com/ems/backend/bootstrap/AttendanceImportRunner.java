@@ -0,0 +1,37 @@
+package com.ems.backend.bootstrap;
+
+import com.ems.backend.service.AttendanceImportService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Imports a punch dump at startup, e.g.
+ * {@code java -jar ems.jar --ems.attendance.import.file=/data/punches-2025-09-01.csv}.
+ */
+@Component
+@ConditionalOnProperty(name = "ems.attendance.import.file")
+public class AttendanceImportRunner implements CommandLineRunner {
+
+    private final AttendanceImportService attendanceImportService;
+
+    @Value("${ems.attendance.import.file}")
+    private String file;
+
+    public AttendanceImportRunner(AttendanceImportService attendanceImportService) {
+        this.attendanceImportService = attendanceImportService;
+    }
+
+    @Override
+    public void run(String... args) throws Exception {
+        System.out.println("Importing attendance punches from " + file);
+        try (InputStream in = Files.newInputStream(Path.of(file))) {
+            attendanceImportService.importCsv(in);
+        }
+    }
+}
@@ -2,6 +2,8 @@ package com.ems.backend.config;
 
 import com.ems.backend.auth.CustomUserDetailsService;
 import com.ems.backend.auth.JwtRequestFilter;
+import com.ems.backend.auth.LoginThrottleFilter;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -24,15 +26,21 @@ public class SecurityConfig {
 
     private final CustomUserDetailsService userDetailsService;
     private final JwtRequestFilter jwtRequestFilter;
+    private final LoginThrottleFilter loginThrottleFilter;
 
-    public SecurityConfig(CustomUserDetailsService userDetailsService, JwtRequestFilter jwtRequestFilter) {
+    @Value("${ems.security.bcrypt.strength:10}")
+    private int bcryptStrength;
+
+    public SecurityConfig(CustomUserDetailsService userDetailsService, JwtRequestFilter jwtRequestFilter,
+                          LoginThrottleFilter loginThrottleFilter) {
         this.userDetailsService = userDetailsService;
         this.jwtRequestFilter = jwtRequestFilter;
+        this.loginThrottleFilter = loginThrottleFilter;
     }
 
     @Bean
     public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+        return new BCryptPasswordEncoder(bcryptStrength);
     }
 
     @Bean
@@ -59,11 +67,13 @@ public class SecurityConfig {
                         .requestMatchers("/api/attendance/**").authenticated()
                         .requestMatchers("/api/leave/**").authenticated()
                         .requestMatchers("/api/test/admin").hasRole("ADMIN")
+                        .requestMatchers("/api/admin/**").hasRole("ADMIN")
                         .requestMatchers("/api/test/employee").hasAnyRole("EMPLOYEE","ADMIN")
                         .anyRequest().authenticated()
                 )
                 .sessionManagement(sess -> sess.sessionCreationPolicy(SessionCreationPolicy.STATELESS));
 
+        http.addFilterBefore(loginThrottleFilter, UsernamePasswordAuthenticationFilter.class);
         http.addFilterBefore(jwtRequestFilter, UsernamePasswordAuthenticationFilter.class);
         return http.build();
     }
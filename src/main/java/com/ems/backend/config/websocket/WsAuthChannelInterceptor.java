@@ -2,14 +2,18 @@ package com.ems.backend.config.websocket;
 
 import com.ems.backend.auth.CustomUserDetailsService;
 import com.ems.backend.auth.JwtUtil;
+import com.ems.backend.entity.Role;
+import com.ems.backend.entity.User;
+import com.ems.backend.service.PresenceTracker;
+import io.jsonwebtoken.Claims;
 import org.springframework.messaging.Message;
 import org.springframework.messaging.MessageChannel;
 import org.springframework.messaging.simp.stomp.StompCommand;
 import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
 import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 
 @Component
@@ -32,13 +36,11 @@ public class WsAuthChannelInterceptor implements ChannelInterceptor {
 
             // 1. Extract the token from the 'Authorization' header
             String authHeader = accessor.getFirstNativeHeader("Authorization");
-            String jwtToken = null;
-            String username = null;
+            Claims claims = null;
 
             if (authHeader != null && authHeader.startsWith("Bearer ")) {
-                jwtToken = authHeader.substring(7);
                 try {
-                    username = jwtUtil.extractUsername(jwtToken);
+                    claims = jwtUtil.parseClaims(authHeader.substring(7));
                 } catch (Exception e) {
                     // Token validation failed (expired, invalid signature, etc.)
                     // Allow to proceed, but authentication will be null (security will block later)
@@ -47,15 +49,15 @@ public class WsAuthChannelInterceptor implements ChannelInterceptor {
             }
 
             // 2. Authenticate the user if token is valid
-            if (username != null) {
-                UserDetails userDetails = userDetailsService.loadUserByUsername(username);
+            if (claims != null && claims.getSubject() != null) {
+                User user = userDetailsService.loadUserFromClaims(claims);
 
-                if (jwtUtil.validateToken(jwtToken, userDetails)) {
+                if (user != null && jwtUtil.isTokenValid(claims, user)) {
                     // Create an Authentication object
                     UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
-                            userDetails,
+                            user,
                             null,
-                            userDetails.getAuthorities()
+                            user.getAuthorities()
                     );
 
                     // 3. Set the authenticated user into the session context
@@ -64,6 +66,21 @@ public class WsAuthChannelInterceptor implements ChannelInterceptor {
             }
         }
 
+        // Live presence shows who is in the office, so only admins and managers may follow it
+        if (StompCommand.SUBSCRIBE.equals(accessor.getCommand())
+                && PresenceTracker.TOPIC.equals(accessor.getDestination())
+                && !isAdminOrManager(accessor)) {
+            throw new AccessDeniedException("Only admins and managers can subscribe to " + PresenceTracker.TOPIC);
+        }
+
         return message;
     }
+
+    private static boolean isAdminOrManager(StompHeaderAccessor accessor) {
+        if (!(accessor.getUser() instanceof UsernamePasswordAuthenticationToken authentication)
+                || !(authentication.getPrincipal() instanceof User user)) {
+            return false;
+        }
+        return user.getRole() == Role.ADMIN || user.getRole() == Role.MANAGER;
+    }
 }
\ No newline at end of file
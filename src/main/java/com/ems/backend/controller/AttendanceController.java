@@ -1,61 +1,172 @@
 package com.ems.backend.controller;
 
-import com.ems.backend.entity.Attendance;
+import com.ems.backend.dto.AttendanceHistoryPage;
+import com.ems.backend.dto.AttendanceImportReport;
+import com.ems.backend.entity.AttendanceMonthlySummary;
 import com.ems.backend.entity.User;
-import com.ems.backend.repository.AttendanceRepository;
+import com.ems.backend.service.AttendanceHistoryService;
+import com.ems.backend.service.AttendanceImportService;
+import com.ems.backend.service.AttendanceRecorder;
+import com.ems.backend.service.AttendanceRulesService;
+import com.ems.backend.service.AttendanceSummaryService;
+import com.ems.backend.service.PresenceTracker;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.time.LocalDate;
-import java.time.LocalDateTime;
+import java.time.YearMonth;
 import java.util.List;
-import java.util.Optional;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/attendance")
 public class AttendanceController {
 
     @Autowired
-    private AttendanceRepository attendanceRepository;
+    private AttendanceHistoryService attendanceHistoryService;
+
+    @Autowired
+    private AttendanceRecorder attendanceRecorder;
+
+    @Autowired
+    private AttendanceSummaryService attendanceSummaryService;
+
+    @Autowired
+    private PresenceTracker presenceTracker;
+
+    @Autowired
+    private AttendanceImportService attendanceImportService;
+
+    @Autowired
+    private AttendanceRulesService attendanceRulesService;
 
     @PostMapping("/check-in")
     public String checkIn(@AuthenticationPrincipal User user) {
-        LocalDate today = LocalDate.now();
-
-        Optional<Attendance> attendanceToday = attendanceRepository.findByEmployeeIdAndDate(user.getId(), today);
-        if (attendanceToday.isPresent()) {
+        if (attendanceRecorder.checkIn(user.getId()) == AttendanceRecorder.Result.ALREADY_CHECKED_IN) {
             return "Already checked in today!";
         }
-
-        Attendance attendance = Attendance.builder()
-                .employeeId(user.getId())
-                .date(today)
-                .checkIn(LocalDateTime.now())
-                .build();
-
-        attendanceRepository.save(attendance);
         return "Check-in successful!";
     }
 
     @PostMapping("/check-out")
     public String checkOut(@AuthenticationPrincipal User user) {
-        LocalDate today = LocalDate.now();
+        switch (attendanceRecorder.checkOut(user.getId())) {
+            case NOT_CHECKED_IN:
+                throw new RuntimeException("No check-in found for today.");
+            case ALREADY_CHECKED_OUT:
+                return "Already checked out today!";
+            default:
+                return "Check-out successful!";
+        }
+    }
 
-        Attendance attendance = attendanceRepository.findByEmployeeIdAndDate(user.getId(), today)
-                .orElseThrow(() -> new RuntimeException("No check-in found for today."));
+    @GetMapping("/history")
+    public ResponseEntity<?> getAttendanceHistory(@AuthenticationPrincipal User user,
+                                                  @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                                  @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                                                  @RequestParam(required = false) String cursor,
+                                                  @RequestParam(required = false) Integer size) {
+        try {
+            AttendanceHistoryPage page = attendanceHistoryService.getHistoryPage(user.getId(), from, to, cursor, size);
+            return ResponseEntity.ok(page);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
 
-        if (attendance.getCheckOut() != null) {
-            return "Already checked out today!";
+    @GetMapping("/export")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<StreamingResponseBody> exportAttendance(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        if (from.isAfter(to)) {
+            return ResponseEntity.badRequest().build();
         }
+        StreamingResponseBody body = out -> attendanceHistoryService.exportCsv(from, to, out);
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=attendance_" + from + "_" + to + ".csv")
+                .contentType(MediaType.parseMediaType("text/csv"))
+                .body(body);
+    }
 
-        attendance.setCheckOut(LocalDateTime.now());
-        attendanceRepository.save(attendance);
-        return "Check-out successful!";
+    // Device punch dump (CSV: employee_id,timestamp), read straight from the request body
+    @PostMapping("/import")
+    @PreAuthorize("hasRole('ADMIN')")
+    public AttendanceImportReport importAttendance(InputStream body) throws IOException {
+        return attendanceImportService.importCsv(body);
     }
 
-    @GetMapping("/history")
-    public List<Attendance> getAttendanceHistory(@AuthenticationPrincipal User user) {
-        return attendanceRepository.findByEmployeeId(user.getId());
+    @PostMapping("/absences")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<String> markAbsences(@RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
+        try {
+            int absences = attendanceRulesService.markAbsences(date);
+            return ResponseEntity.ok("Marked " + absences + " absences for " + date + ".");
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    // Re-derive lateness / overtime for past days, e.g. after the shift rules change
+    @PostMapping("/rules/apply")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<String> reapplyRules(@RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                               @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        if (from.isAfter(to)) {
+            return ResponseEntity.badRequest().body("'from' must not be after 'to'");
+        }
+        int rows = attendanceRulesService.reapplyRules(from, to);
+        return ResponseEntity.ok("Re-evaluated " + rows + " attendance rows.");
+    }
+
+    @GetMapping("/summary")
+    public AttendanceMonthlySummary getMonthlySummary(@AuthenticationPrincipal User user,
+                                                      @RequestParam @DateTimeFormat(pattern = "yyyy-MM") YearMonth month) {
+        return attendanceSummaryService.getSummary(user.getId(), month);
+    }
+
+    @GetMapping("/summary/all")
+    @PreAuthorize("hasRole('ADMIN')")
+    public List<AttendanceMonthlySummary> getAllMonthlySummaries(@RequestParam @DateTimeFormat(pattern = "yyyy-MM") YearMonth month) {
+        return attendanceSummaryService.getSummaries(month);
+    }
+
+    @PostMapping("/summary/rebuild")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<String> rebuildMonthlySummaries(@RequestParam @DateTimeFormat(pattern = "yyyy-MM") YearMonth from,
+                                                          @RequestParam @DateTimeFormat(pattern = "yyyy-MM") YearMonth to) {
+        if (from.isAfter(to)) {
+            return ResponseEntity.badRequest().body("'from' must not be after 'to'");
+        }
+        int rows = attendanceSummaryService.rebuild(from, to);
+        return ResponseEntity.ok("Rebuilt " + rows + " monthly summaries.");
+    }
+
+    // Live presence; deltas are also pushed to /topic/presence
+    @GetMapping("/presence")
+    @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER')")
+    public Map<String, Object> getPresenceCounts() {
+        return presenceTracker.getCounts();
+    }
+
+    @GetMapping("/presence/members")
+    @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER')")
+    public long[] getPresenceMembers(@RequestParam(defaultValue = "IN") PresenceTracker.Status status) {
+        return presenceTracker.getMembers(status);
+    }
+
+    @GetMapping("/presence/{employeeId}")
+    @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER')")
+    public Map<String, Object> getPresenceStatus(@PathVariable Long employeeId) {
+        return Map.of("employeeId", employeeId, "status", presenceTracker.getStatus(employeeId));
     }
-}
\ No newline at end of file
+}
@@ -1,75 +1,84 @@
 package com.ems.backend.controller;
 
 import com.ems.backend.auth.JwtUtil;
+import com.ems.backend.auth.LoginThrottle;
+import com.ems.backend.auth.PasswordValidator;
+import com.ems.backend.auth.TokenRevocationRegistry;
+import com.ems.backend.auth.UserSnapshotCache;
 import com.ems.backend.dto.AuthRequest;
 import com.ems.backend.dto.AuthResponse;
 import com.ems.backend.dto.PasswordResetRequest;
 import com.ems.backend.dto.RefreshTokenRequest;
-import com.ems.backend.entity.Attendance;
 import com.ems.backend.entity.Role;
 import com.ems.backend.entity.User;
-import com.ems.backend.entity.PasswordValidator;
-import com.ems.backend.repository.AttendanceRepository;
+import com.ems.backend.entity.PasswordResetToken;
 import com.ems.backend.repository.UserRepository;
+import com.ems.backend.service.AttendanceRecorder;
 import com.ems.backend.service.EmailService;
+import com.ems.backend.service.PasswordHashingService;
 import com.ems.backend.service.RefreshTokenService;
 import com.ems.backend.service.PasswordResetTokenService;
+import io.jsonwebtoken.Claims;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.mail.MailException;
-import org.springframework.security.authentication.AuthenticationManager;
-import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.core.Authentication;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
-import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.web.bind.annotation.*;
 import jakarta.mail.MessagingException;
 
-import java.time.LocalDate;
-import java.time.LocalDateTime;
 import java.util.Optional;
 
 @RestController
 @RequestMapping("/api/auth")
 public class AuthController {
 
-    private final AuthenticationManager authenticationManager;
     private final JwtUtil jwtUtil;
     private final UserRepository userRepository;
-    private final PasswordEncoder passwordEncoder;
+    private final PasswordHashingService passwordHashingService;
     private final EmailService emailService;
-    private final AttendanceRepository attendanceRepository;
+    private final AttendanceRecorder attendanceRecorder;
     private final RefreshTokenService refreshTokenService;
     private final PasswordResetTokenService passwordResetTokenService;
+    private final UserSnapshotCache userSnapshotCache;
+    private final TokenRevocationRegistry tokenRevocationRegistry;
+    private final LoginThrottle loginThrottle;
+    private final PasswordValidator passwordValidator;
 
-    public AuthController(AuthenticationManager authenticationManager,
-                          JwtUtil jwtUtil,
+    public AuthController(JwtUtil jwtUtil,
                           UserRepository userRepository,
-                          PasswordEncoder passwordEncoder,
+                          PasswordHashingService passwordHashingService,
                           EmailService emailService,
-                          AttendanceRepository attendanceRepository,
+                          AttendanceRecorder attendanceRecorder,
                           RefreshTokenService refreshTokenService,
-                          PasswordResetTokenService passwordResetTokenService) {
-        this.authenticationManager = authenticationManager;
+                          PasswordResetTokenService passwordResetTokenService,
+                          UserSnapshotCache userSnapshotCache,
+                          TokenRevocationRegistry tokenRevocationRegistry,
+                          LoginThrottle loginThrottle,
+                          PasswordValidator passwordValidator) {
         this.jwtUtil = jwtUtil;
         this.userRepository = userRepository;
-        this.passwordEncoder = passwordEncoder;
+        this.passwordHashingService = passwordHashingService;
         this.emailService = emailService;
-        this.attendanceRepository = attendanceRepository;
+        this.attendanceRecorder = attendanceRecorder;
         this.refreshTokenService = refreshTokenService;
         this.passwordResetTokenService = passwordResetTokenService;
+        this.userSnapshotCache = userSnapshotCache;
+        this.tokenRevocationRegistry = tokenRevocationRegistry;
+        this.loginThrottle = loginThrottle;
+        this.passwordValidator = passwordValidator;
     }
 
     @PostMapping("/register")
     public ResponseEntity<?> registerUser(@RequestBody User user) {
-        if (!PasswordValidator.isValid(user.getPassword())) {
+        if (!passwordValidator.isValid(user.getPassword())) {
             return ResponseEntity.badRequest().body("Password does not meet complexity requirements.");
         }
         if (userRepository.existsByUsername(user.getUsername())) {
             return ResponseEntity.badRequest().body("User already exists with this username");
         }
 
-        user.setPassword(passwordEncoder.encode(user.getPassword()));
+        user.setPassword(passwordHashingService.encode(user.getPassword()));
         user.setRole(Role.EMPLOYEE);
         user.setApproved(false);
         user.setFirstLogin(true);
@@ -86,6 +95,14 @@ public class AuthController {
 
     @PostMapping("/login")
     public ResponseEntity<?> loginUser(@RequestBody AuthRequest authRequest) {
+        // per-client-IP throttling already happened in LoginThrottleFilter
+        if (!loginThrottle.tryAcquireForUsername(authRequest.getUsername())) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER,
+                            String.valueOf(loginThrottle.retryAfterSecondsForUsername(authRequest.getUsername())))
+                    .body("Too many login attempts. Please try again later.");
+        }
+
         Optional<User> maybeUser = userRepository.findByUsername(authRequest.getUsername());
         if (maybeUser.isEmpty()) {
             return ResponseEntity.badRequest().body("Incorrect username or password");
@@ -96,42 +113,48 @@ public class AuthController {
             return ResponseEntity.badRequest().body("Your account is pending admin approval.");
         }
 
-        try {
-            Authentication auth = authenticationManager.authenticate(
-                    new UsernamePasswordAuthenticationToken(authRequest.getUsername(), authRequest.getPassword())
-            );
+        // Verify against the user we already loaded instead of letting the
+        // AuthenticationManager look it up a second time
+        if (authRequest.getPassword() == null
+                || !passwordHashingService.matches(authRequest.getPassword(), user.getPassword())) {
+            return ResponseEntity.badRequest().body("Incorrect username or password");
+        }
 
-            String token = jwtUtil.generateToken((UserDetails) auth.getPrincipal());
+        if (passwordHashingService.needsRehash(user.getPassword())) {
+            Long userId = user.getId();
+            String oldHash = user.getPassword();
+            passwordHashingService.rehashInBackground(authRequest.getPassword(),
+                    newHash -> userRepository.updatePasswordHash(userId, oldHash, newHash));
+        }
+
+        try {
+            String familyId = refreshTokenService.newFamilyId();
+            String token = jwtUtil.generateToken(user, familyId);
+            String refreshToken = refreshTokenService.generateRefreshToken(user, familyId);
             boolean mustReset = user.isFirstLogin();
 
             // ---- AUTO CHECK-IN ----
-            LocalDate today = LocalDate.now();
-            attendanceRepository.findByEmployeeIdAndDate(user.getId(), today)
-                    .orElseGet(() -> {
-                        Attendance attendance = Attendance.builder()
-                                .employeeId(user.getId())
-                                .date(today)
-                                .checkIn(LocalDateTime.now())
-                                .build();
-                        return attendanceRepository.save(attendance);
-                    });
-
-            return ResponseEntity.ok(new AuthResponse(token, mustReset));
+            attendanceRecorder.checkIn(user.getId());
+
+            return ResponseEntity.ok(new AuthResponse(token, mustReset, refreshToken));
         } catch (Exception e) {
             return ResponseEntity.badRequest().body("Incorrect username or password");
         }
     }
 
     @PostMapping("/logout")
-    public ResponseEntity<?> logoutUser(@AuthenticationPrincipal User user) {
-        LocalDate today = LocalDate.now();
-
-        Attendance attendance = attendanceRepository.findByEmployeeIdAndDate(user.getId(), today)
-                .orElseThrow(() -> new RuntimeException("No check-in found for today."));
+    public ResponseEntity<?> logoutUser(@AuthenticationPrincipal User user,
+                                        @RequestHeader("Authorization") String authHeader) {
+        // Kill this access token and the refresh-token family it was issued with
+        Claims claims = jwtUtil.parseClaims(authHeader.substring(7));
+        tokenRevocationRegistry.revokeToken(claims.getId(), user.getId(), claims.getExpiration().getTime());
+        String familyId = claims.get(JwtUtil.CLAIM_FAMILY, String.class);
+        if (familyId != null) {
+            refreshTokenService.revokeFamily(familyId, user.getId());
+        }
 
-        if (attendance.getCheckOut() == null) {
-            attendance.setCheckOut(LocalDateTime.now());
-            attendanceRepository.save(attendance);
+        if (attendanceRecorder.checkOut(user.getId()) == AttendanceRecorder.Result.NOT_CHECKED_IN) {
+            throw new RuntimeException("No check-in found for today.");
         }
 
         return ResponseEntity.ok("Logged out and checked-out successfully!");
@@ -146,10 +169,7 @@ public class AuthController {
         }
         User user = maybeUser.get();
 
-        String token = passwordResetTokenService.generateToken(user.getUsername());
-        user.setResetToken(token);
-        user.setResetTokenExpiry(LocalDateTime.now().plusMinutes(15));
-        userRepository.save(user);
+        String token = passwordResetTokenService.issueToken(user.getId(), user.getUsername());
 
         try {
             emailService.sendPasswordResetEmail(user.getUsername(), token);
@@ -162,25 +182,27 @@ public class AuthController {
     // ✅ New: Reset Password endpoint
     @PostMapping("/reset-password")
     public ResponseEntity<String> resetPassword(@RequestBody PasswordResetRequest request) {
-        Optional<User> maybeUser = userRepository.findByResetToken(request.getToken());
-        if (maybeUser.isEmpty()) {
+        Optional<PasswordResetToken> maybeToken = passwordResetTokenService.findValidToken(request.getToken());
+        if (maybeToken.isEmpty()) {
             return ResponseEntity.badRequest().body("Invalid or expired password reset token.");
         }
-        User user = maybeUser.get();
 
-        if (user.getResetTokenExpiry().isBefore(LocalDateTime.now())) {
-            return ResponseEntity.badRequest().body("Invalid or expired password reset token.");
+        if (!passwordValidator.isValid(request.getNewPassword())) {
+            return ResponseEntity.badRequest().body("Password does not meet complexity requirements.");
         }
 
-        if (!PasswordValidator.isValid(request.getNewPassword())) {
-            return ResponseEntity.badRequest().body("Password does not meet complexity requirements.");
+        String newHash = passwordHashingService.encode(request.getNewPassword());
+        Optional<User> maybeUser = userRepository.findById(maybeToken.get().getUserId());
+        if (maybeUser.isEmpty() || !passwordResetTokenService.consumeToken(maybeToken.get())) {
+            return ResponseEntity.badRequest().body("Invalid or expired password reset token.");
         }
+        User user = maybeUser.get();
 
-        user.setPassword(passwordEncoder.encode(request.getNewPassword()));
+        user.setPassword(newHash);
         user.setFirstLogin(false);
-        user.setResetToken(null);
-        user.setResetTokenExpiry(null);
+        user.bumpSecurityVersion(); // tokens issued with the old password stop working
         userRepository.save(user);
+        userSnapshotCache.evict(user.getId());
 
         return ResponseEntity.ok("Password has been reset successfully.");
     }
@@ -188,15 +210,25 @@ public class AuthController {
     // ✅ New: Refresh Token endpoint
     @PostMapping("/refresh-token")
     public ResponseEntity<?> refreshToken(@RequestBody RefreshTokenRequest request) {
-        String username = refreshTokenService.validateRefreshToken(request.getRefreshToken());
-        if (username == null) {
+        // Each refresh token is single use: it is consumed here and replaced by a new one
+        Claims claims = refreshTokenService.consumeRefreshToken(request.getRefreshToken());
+        if (claims == null) {
             return ResponseEntity.badRequest().body("Invalid refresh token.");
         }
 
-        UserDetails userDetails = userRepository.findByUsername(username)
-                .orElseThrow(() -> new RuntimeException("User not found"));
+        Long userId = claims.get(JwtUtil.CLAIM_USER_ID, Long.class);
+        Long securityVersion = claims.get(JwtUtil.CLAIM_SECURITY_VERSION, Long.class);
+        String familyId = claims.get(JwtUtil.CLAIM_FAMILY, String.class);
+        Optional<User> maybeUser = userRepository.findById(userId);
+        if (maybeUser.isEmpty() || !maybeUser.get().isApproved()
+                || maybeUser.get().getSecurityVersion() != securityVersion) {
+            refreshTokenService.revokeFamily(familyId, userId);
+            return ResponseEntity.badRequest().body("Invalid refresh token.");
+        }
+        User user = maybeUser.get();
 
-        String newToken = jwtUtil.generateToken(userDetails);
-        return ResponseEntity.ok(new AuthResponse(newToken, false));
+        String newToken = jwtUtil.generateToken(user, familyId);
+        String newRefreshToken = refreshTokenService.generateRefreshToken(user, familyId);
+        return ResponseEntity.ok(new AuthResponse(newToken, false, newRefreshToken));
     }
 }
\ No newline at end of file
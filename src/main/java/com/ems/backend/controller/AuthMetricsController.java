@@ -0,0 +1,52 @@
+package com.ems.backend.controller;
+
+import com.ems.backend.auth.JwtUtil;
+import com.ems.backend.auth.LoginThrottle;
+import com.ems.backend.auth.TokenRevocationRegistry;
+import com.ems.backend.auth.UserSnapshotCache;
+import com.ems.backend.service.PasswordHashingService;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/admin/auth-metrics")
+public class AuthMetricsController {
+
+    private final JwtUtil jwtUtil;
+    private final UserSnapshotCache userSnapshotCache;
+    private final TokenRevocationRegistry tokenRevocationRegistry;
+    private final PasswordHashingService passwordHashingService;
+    private final LoginThrottle loginThrottle;
+
+    public AuthMetricsController(JwtUtil jwtUtil,
+                                 UserSnapshotCache userSnapshotCache,
+                                 TokenRevocationRegistry tokenRevocationRegistry,
+                                 PasswordHashingService passwordHashingService,
+                                 LoginThrottle loginThrottle) {
+        this.jwtUtil = jwtUtil;
+        this.userSnapshotCache = userSnapshotCache;
+        this.tokenRevocationRegistry = tokenRevocationRegistry;
+        this.passwordHashingService = passwordHashingService;
+        this.loginThrottle = loginThrottle;
+    }
+
+    @PreAuthorize("hasRole('ADMIN')")
+    @GetMapping
+    public Map<String, Object> getAuthMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("jwtCacheHits", jwtUtil.getVerifiedCacheHits());
+        metrics.put("jwtCacheMisses", jwtUtil.getVerifiedCacheMisses());
+        metrics.put("jwtCacheSize", jwtUtil.getVerifiedCacheSize());
+        metrics.put("userSnapshotCacheSize", userSnapshotCache.size());
+        metrics.put("revokedTokens", tokenRevocationRegistry.size());
+        metrics.put("hashingActive", passwordHashingService.getActiveCount());
+        metrics.put("hashingQueued", passwordHashingService.getQueuedCount());
+        metrics.put("loginThrottle", loginThrottle.metrics());
+        return metrics;
+    }
+}
@@ -1,5 +1,6 @@
 package com.ems.backend.controller;
 
+import com.ems.backend.auth.UserSnapshotCache;
 import com.ems.backend.entity.User;
 import com.ems.backend.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -18,6 +19,9 @@ public class EmployeeController {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private UserSnapshotCache userSnapshotCache;
+
     // Get employee profile
     @GetMapping("/me")
     public User getProfile(@AuthenticationPrincipal User user) {
@@ -35,7 +39,9 @@ public class EmployeeController {
         // ✅ Update new fields
         currentUser.setEmergencyContactName(updatedData.getEmergencyContactName());
         currentUser.setEmergencyContactNumber(updatedData.getEmergencyContactNumber());
-        return userRepository.save(currentUser);
+        User saved = userRepository.save(currentUser);
+        userSnapshotCache.evict(saved.getId());
+        return saved;
     }
 
     // ✅ New: Endpoint for uploading profile picture
@@ -60,6 +66,7 @@ public class EmployeeController {
 
             user.setProfilePictureUrl(uploadDir + fileName);
             userRepository.save(user);
+            userSnapshotCache.evict(user.getId());
 
             return "Profile picture uploaded successfully!";
 
@@ -0,0 +1,79 @@
+package com.ems.backend.controller;
+
+import com.ems.backend.entity.Holiday;
+import com.ems.backend.service.LeaveService;
+import com.ems.backend.service.PayrollRecalcService;
+import com.ems.backend.service.WorkingDayCalendar;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/holidays")
+public class HolidayController {
+
+    private final WorkingDayCalendar workingDayCalendar;
+    private final LeaveService leaveService;
+    private final PayrollRecalcService payrollRecalcService;
+
+    public HolidayController(WorkingDayCalendar workingDayCalendar, LeaveService leaveService,
+                             PayrollRecalcService payrollRecalcService) {
+        this.workingDayCalendar = workingDayCalendar;
+        this.leaveService = leaveService;
+        this.payrollRecalcService = payrollRecalcService;
+    }
+
+    @GetMapping
+    public List<Holiday> getHolidays(@RequestParam(required = false) Integer year) {
+        return workingDayCalendar.getHolidays(year != null ? year : LocalDate.now().getYear());
+    }
+
+    @GetMapping("/working-days")
+    public ResponseEntity<?> countWorkingDays(@RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                              @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                                              @RequestParam(required = false) String location) {
+        if (from.isAfter(to)) {
+            return ResponseEntity.badRequest().body("'from' must not be after 'to'");
+        }
+        return ResponseEntity.ok(Map.of("from", from, "to", to,
+                "workingDays", workingDayCalendar.countWorkingDays(from, to, location)));
+    }
+
+    // Holiday changes re-cost leave in that year, so the year's balances are rebuilt too, and
+    // change the working days of that month, so its payrolls are queued for recalculation
+    @PreAuthorize("hasRole('ADMIN')")
+    @PostMapping
+    public ResponseEntity<?> addHoliday(@RequestBody Holiday holiday) {
+        if (holiday.getHolidayDate() == null || holiday.getName() == null || holiday.getName().isBlank()) {
+            return ResponseEntity.badRequest().body("Holiday date and name are required.");
+        }
+        Holiday saved;
+        try {
+            saved = workingDayCalendar.addHoliday(holiday);
+        } catch (DataIntegrityViolationException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body("A holiday already exists on that date for that location.");
+        }
+        leaveService.rebuildBalances(saved.getHolidayDate().getYear());
+        payrollRecalcService.markHolidayChanged(saved);
+        return ResponseEntity.ok(saved);
+    }
+
+    @PreAuthorize("hasRole('ADMIN')")
+    @DeleteMapping("/{holidayId}")
+    public ResponseEntity<String> removeHoliday(@PathVariable Long holidayId) {
+        Holiday removed = workingDayCalendar.removeHoliday(holidayId);
+        if (removed == null) {
+            return ResponseEntity.notFound().build();
+        }
+        leaveService.rebuildBalances(removed.getHolidayDate().getYear());
+        payrollRecalcService.markHolidayChanged(removed);
+        return ResponseEntity.ok("Holiday removed.");
+    }
+}
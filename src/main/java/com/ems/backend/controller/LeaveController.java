@@ -1,20 +1,37 @@
 package com.ems.backend.controller;
 
+import com.ems.backend.dto.BulkLeaveDecisionResult;
+import com.ems.backend.dto.LeaveDecisionNotice;
+import com.ems.backend.dto.LeaveQueuePage;
+import com.ems.backend.dto.PendingApprovalItem;
+import com.ems.backend.dto.TeamCalendarDay;
 import com.ems.backend.entity.*;
 import com.ems.backend.repository.LeaveRequestRepository;
 import com.ems.backend.repository.UserRepository;
 import com.ems.backend.service.EmailService;
+import com.ems.backend.service.LeaveApprovalService;
+import com.ems.backend.service.LeaveQueueService;
+import com.ems.backend.service.LeaveService;
+import com.ems.backend.service.TeamLeaveCalendarService;
 import jakarta.mail.MessagingException;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.mail.MailException;
+import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 
 import java.time.LocalDate;
-import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 @RestController
 @RequestMapping("/api/leaves")
 public class LeaveController {
@@ -28,16 +45,29 @@ public class LeaveController {
     @Autowired
     private EmailService emailService;
 
+    @Autowired
+    private LeaveService leaveService;
+
+    @Autowired
+    private TeamLeaveCalendarService teamLeaveCalendarService;
+
+    @Autowired
+    private LeaveQueueService leaveQueueService;
+
+    @Autowired
+    private LeaveApprovalService leaveApprovalService;
+
     @Value("${ems.admin.email}")
     private String adminEmail;
 
     // 🔹 Apply for Leave
     @PostMapping("/apply")
-    public String applyLeave(@AuthenticationPrincipal User user, @RequestBody LeaveRequest leave) {
-        leave.setEmployeeId(user.getId());
-        leave.setStatus(LeaveStatus.PENDING);
-        leave.setAppliedOn(LocalDateTime.now());
-        leaveRepository.save(leave);
+    public ResponseEntity<String> applyLeave(@AuthenticationPrincipal User user, @RequestBody LeaveRequest leave) {
+        try {
+            leaveApprovalService.applyLeave(user, leave);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
 
         try {
             // Notify Admin
@@ -52,7 +82,7 @@ public class LeaveController {
             System.err.println("Failed to send leave application email to admin.");
         }
 
-        return "Leave application submitted successfully!";
+        return ResponseEntity.ok("Leave application submitted successfully!");
     }
 
     // 🔹 View My Leaves
@@ -64,11 +94,19 @@ public class LeaveController {
     // 🔹 Admin/Manager: Approve Leave
     @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER')") // ✅ Updated to allow managers
     @PostMapping("/approve/{leaveId}")
-    public String approveLeave(@PathVariable Long leaveId) {
-        LeaveRequest leave = leaveRepository.findById(leaveId)
-                .orElseThrow(() -> new RuntimeException("Leave not found"));
-        leave.setStatus(LeaveStatus.APPROVED);
-        leaveRepository.save(leave);
+    public ResponseEntity<String> approveLeave(@AuthenticationPrincipal User user, @PathVariable Long leaveId) {
+        LeaveApprovalService.StepResult result;
+        try {
+            result = leaveApprovalService.approve(leaveId, user);
+        } catch (AccessDeniedException e) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(e.getMessage());
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+        }
+        if (!result.completed()) {
+            return ResponseEntity.ok("Approval recorded; the leave request moves to the next approver.");
+        }
+        LeaveRequest leave = result.leave();
 
         // Notify Employee
         userRepository.findById(leave.getEmployeeId()).ifPresent(emp -> {
@@ -84,17 +122,21 @@ public class LeaveController {
             }
         });
 
-        return "Leave approved successfully!";
+        return ResponseEntity.ok("Leave approved successfully!");
     }
 
     // 🔹 Admin/Manager: Reject Leave
     @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER')") // ✅ Updated to allow managers
     @PostMapping("/reject/{leaveId}")
-    public String rejectLeave(@PathVariable Long leaveId) {
-        LeaveRequest leave = leaveRepository.findById(leaveId)
-                .orElseThrow(() -> new RuntimeException("Leave not found"));
-        leave.setStatus(LeaveStatus.REJECTED);
-        leaveRepository.save(leave);
+    public ResponseEntity<String> rejectLeave(@AuthenticationPrincipal User user, @PathVariable Long leaveId) {
+        LeaveRequest leave;
+        try {
+            leave = leaveApprovalService.reject(leaveId, user).leave();
+        } catch (AccessDeniedException e) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(e.getMessage());
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+        }
 
         // Notify Employee
         userRepository.findById(leave.getEmployeeId()).ifPresent(emp -> {
@@ -110,7 +152,27 @@ public class LeaveController {
             }
         });
 
-        return "Leave rejected successfully!";
+        return ResponseEntity.ok("Leave rejected successfully!");
+    }
+
+    // 🔹 Admin/Manager: Leave requests waiting on my approval step
+    @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER')")
+    @GetMapping("/approvals/pending")
+    public List<PendingApprovalItem> getMyPendingApprovals(@AuthenticationPrincipal User user) {
+        return leaveApprovalService.getPendingApprovals(user);
+    }
+
+    // 🔹 Admin: Approve or reject many pending leaves at once, overriding their approval chains (body: list of leave ids)
+    @PreAuthorize("hasRole('ADMIN')")
+    @PostMapping("/approve/bulk")
+    public ResponseEntity<?> approveLeaves(@RequestBody List<Long> leaveIds) {
+        return decideInBulk(leaveIds, LeaveStatus.APPROVED);
+    }
+
+    @PreAuthorize("hasRole('ADMIN')")
+    @PostMapping("/reject/bulk")
+    public ResponseEntity<?> rejectLeaves(@RequestBody List<Long> leaveIds) {
+        return decideInBulk(leaveIds, LeaveStatus.REJECTED);
     }
 
     // 🔹 Admin: View All Leaves
@@ -119,4 +181,89 @@ public class LeaveController {
     public List<LeaveRequest> getAllLeaves() {
         return leaveRepository.findAll();
     }
-}
\ No newline at end of file
+
+    // 🔹 Admin: Filterable leave queue, keyset-paged by appliedOn (order=asc for the approval queue)
+    @PreAuthorize("hasRole('ADMIN')")
+    @GetMapping("/queue")
+    public ResponseEntity<?> getLeaveQueue(@RequestParam(required = false) LeaveStatus status,
+                                           @RequestParam(required = false) LeaveType type,
+                                           @RequestParam(required = false) String department,
+                                           @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                           @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                                           @RequestParam(defaultValue = "desc") String order,
+                                           @RequestParam(required = false) String cursor,
+                                           @RequestParam(required = false) Integer size) {
+        if (!order.equalsIgnoreCase("asc") && !order.equalsIgnoreCase("desc")) {
+            return ResponseEntity.badRequest().body("order must be 'asc' or 'desc'");
+        }
+        try {
+            LeaveQueuePage page = leaveQueueService.getPage(status, type, department, from, to,
+                    order.equalsIgnoreCase("asc"), cursor, size);
+            return ResponseEntity.ok(page);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    // 🔹 Admin/Manager: Who in a department is on leave, day by day (managers see their own department)
+    @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER')")
+    @GetMapping("/calendar")
+    public ResponseEntity<?> getTeamCalendar(@AuthenticationPrincipal User user,
+                                             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                                             @RequestParam(required = false) String department) {
+        if (user.getRole() != Role.ADMIN && department != null && !department.equals(user.getDepartment())) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body("Managers can only view their own department.");
+        }
+        try {
+            List<TeamCalendarDay> days = teamLeaveCalendarService.getCalendar(
+                    department != null ? department : user.getDepartment(), from, to);
+            return ResponseEntity.ok(days);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    // 🔹 Leave balance for a year (defaults to the current one)
+    @GetMapping("/balance")
+    public List<LeaveBalance> getMyBalance(@AuthenticationPrincipal User user, @RequestParam(required = false) Integer year) {
+        return leaveService.getBalances(user.getId(), year != null ? year : LocalDate.now().getYear());
+    }
+
+    // 🔹 Admin: Rebuild a year's balances from the leave history
+    @PreAuthorize("hasRole('ADMIN')")
+    @PostMapping("/balance/rebuild")
+    public String rebuildBalances(@RequestParam int year) {
+        int rows = leaveService.rebuildBalances(year);
+        return "Rebuilt " + rows + " leave balances for " + year + ".";
+    }
+
+    private ResponseEntity<?> decideInBulk(List<Long> leaveIds, LeaveStatus to) {
+        BulkLeaveDecisionResult result;
+        try {
+            result = leaveApprovalService.decideInBulk(leaveIds, to);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+        }
+
+        // one IN query for the employees, one batch for the mail server
+        Map<Long, User> employees = new HashMap<>();
+        Set<Long> employeeIds = new HashSet<>();
+        result.getDecided().forEach(leave -> employeeIds.add(leave.getEmployeeId()));
+        userRepository.findAllById(employeeIds).forEach(emp -> employees.put(emp.getId(), emp));
+        List<LeaveDecisionNotice> notices = new ArrayList<>();
+        for (LeaveRequest leave : result.getDecided()) {
+            User emp = employees.get(leave.getEmployeeId());
+            if (emp != null) {
+                notices.add(new LeaveDecisionNotice(emp.getUsername(), emp.getName(),
+                        leave.getStartDate().toString(), leave.getEndDate().toString(), to == LeaveStatus.APPROVED));
+            }
+        }
+        if (!notices.isEmpty()) {
+            emailService.sendLeaveDecisionEmails(notices);
+        }
+        return ResponseEntity.ok(result);
+    }
+}
@@ -1,9 +1,16 @@
 package com.ems.backend.controller;
 
 import com.ems.backend.entity.Payroll;
+import com.ems.backend.entity.PayrollAdjustment;
+import com.ems.backend.entity.PayrollRun;
 import com.ems.backend.entity.User;
+import com.ems.backend.service.PayrollRecalcService;
+import com.ems.backend.service.PayrollRunService;
 import com.ems.backend.service.PayrollService;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -11,23 +18,71 @@ import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 
 import java.io.IOException;
+import java.time.YearMonth;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/payroll")
 public class PayrollController {
 
     private final PayrollService payrollService;
+    private final PayrollRunService payrollRunService;
+    private final PayrollRecalcService payrollRecalcService;
 
-    public PayrollController(PayrollService payrollService) {
+    public PayrollController(PayrollService payrollService, PayrollRunService payrollRunService,
+                             PayrollRecalcService payrollRecalcService) {
         this.payrollService = payrollService;
+        this.payrollRunService = payrollRunService;
+        this.payrollRecalcService = payrollRecalcService;
     }
 
     // Admin creates payroll
     @PreAuthorize("hasRole('ADMIN')")
     @PostMapping("/create")
-    public Payroll createPayroll(@RequestBody Payroll payroll) {
-        return payrollService.createPayroll(payroll);
+    public ResponseEntity<?> createPayroll(@RequestBody Payroll payroll) {
+        try {
+            return ResponseEntity.ok(payrollService.createPayroll(payroll));
+        } catch (DataIntegrityViolationException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body("A payroll already exists for that employee and month.");
+        }
+    }
+
+    // Admin runs (or resumes) the payroll batch for a month
+    @PreAuthorize("hasRole('ADMIN')")
+    @PostMapping("/run")
+    public ResponseEntity<?> runPayroll(@RequestParam @DateTimeFormat(pattern = "yyyy-MM") YearMonth month) {
+        try {
+            return ResponseEntity.ok(payrollRunService.run(month));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+        }
+    }
+
+    // Admin checks a month's run and its checkpoint
+    @PreAuthorize("hasRole('ADMIN')")
+    @GetMapping("/run")
+    public ResponseEntity<PayrollRun> getPayrollRun(@RequestParam @DateTimeFormat(pattern = "yyyy-MM") YearMonth month) {
+        PayrollRun run = payrollRunService.getRun(month);
+        return run == null ? ResponseEntity.notFound().build() : ResponseEntity.ok(run);
+    }
+
+    // Admin recomputes the queued payrolls now instead of waiting for the background worker
+    @PreAuthorize("hasRole('ADMIN')")
+    @PostMapping("/recalc")
+    public ResponseEntity<?> recalculatePayrolls() {
+        try {
+            return ResponseEntity.ok(payrollRecalcService.drainQueue());
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+        }
+    }
+
+    // Admin views the retroactive adjustments of a payroll, oldest first
+    @PreAuthorize("hasRole('ADMIN')")
+    @GetMapping("/{payrollId}/adjustments")
+    public List<PayrollAdjustment> getAdjustments(@PathVariable Long payrollId) {
+        return payrollRecalcService.getAdjustments(payrollId);
     }
 
     // Employee views own payrolls
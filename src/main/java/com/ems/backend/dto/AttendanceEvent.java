@@ -0,0 +1,24 @@
+package com.ems.backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AttendanceEvent {
+
+    public enum Type {
+        CHECK_IN,
+        CHECK_OUT
+    }
+
+    private Type type;
+    private Long employeeId;
+    private LocalDate date;
+    private LocalDateTime time;
+}
@@ -0,0 +1,19 @@
+package com.ems.backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Published when {@link com.ems.backend.service.AttendanceRecorder} gives up on writing
+ * events it had already accepted, so in-memory views can undo them.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AttendanceEventsDropped {
+
+    private List<AttendanceEvent> events;
+}
@@ -0,0 +1,16 @@
+package com.ems.backend.dto;
+
+import com.ems.backend.entity.Attendance;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AttendanceHistoryPage {
+    private List<Attendance> items;
+    private String nextCursor; // null on the last page
+}
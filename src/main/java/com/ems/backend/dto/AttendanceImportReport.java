@@ -0,0 +1,20 @@
+package com.ems.backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AttendanceImportReport {
+    private long linesRead;
+    private long punchesAccepted;
+    private long linesRejected;
+    private long rowsWritten;
+    private long elapsedMillis;
+    private long rowsPerSecond; // accepted punches per second; rejected lines don't count
+    private String errorFile; // null when nothing was rejected
+}
@@ -10,4 +10,5 @@ import lombok.AllArgsConstructor;
 public class AuthResponse {
     private String token;
     private boolean mustResetPassword;
+    private String refreshToken;
 }
\ No newline at end of file
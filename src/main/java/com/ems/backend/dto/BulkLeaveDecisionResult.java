@@ -0,0 +1,34 @@
+package com.ems.backend.dto;
+
+import com.ems.backend.entity.LeaveRequest;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Outcome of a bulk approve / reject, per requested id, in request order.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkLeaveDecisionResult {
+
+    public enum Outcome {
+        APPROVED,
+        REJECTED,
+        NOT_FOUND,
+        NOT_PENDING
+    }
+
+    private int requested;
+    private int updated;
+    private Map<Long, Outcome> outcomes;
+
+    // the requests that changed state, for notifications
+    @JsonIgnore
+    private List<LeaveRequest> decided;
+}
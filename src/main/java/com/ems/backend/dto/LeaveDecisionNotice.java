@@ -0,0 +1,19 @@
+package com.ems.backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One approval or rejection mail in a batch handed to EmailService.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LeaveDecisionNotice {
+    private String toEmail;
+    private String name;
+    private String startDate;
+    private String endDate;
+    private boolean approved;
+}
@@ -0,0 +1,29 @@
+package com.ems.backend.dto;
+
+import com.ems.backend.entity.LeaveStatus;
+import com.ems.backend.entity.LeaveType;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * A row of the admin leave queue, projected from LeaveRequest joined to User.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LeaveQueueItem {
+    private Long id;
+    private Long employeeId;
+    private String employeeName;
+    private String department;
+    private LeaveType type;
+    private LeaveStatus status;
+    private LocalDate startDate;
+    private LocalDate endDate;
+    private String reason;
+    private LocalDateTime appliedOn;
+}
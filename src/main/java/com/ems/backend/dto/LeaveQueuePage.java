@@ -0,0 +1,15 @@
+package com.ems.backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LeaveQueuePage {
+    private List<LeaveQueueItem> items;
+    private String nextCursor; // null on the last page
+}
@@ -0,0 +1,19 @@
+package com.ems.backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Everything the payroll rules need to price one employee for one month.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PayrollInput {
+    private Long employeeId;
+    private String department;
+    private String designation; // the employee's grade for rule selection
+    private int unpaidLeaveDays;
+    private int absentDays;
+}
@@ -0,0 +1,18 @@
+package com.ems.backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PayrollRecalcReport {
+    private int recalculated;            // queued payrolls compared against the current rules
+    private int adjusted;                // of those, the ones that changed and got an adjustment
+    private List<Long> skippedPayrollIds; // manual / legacy payrolls whose lines do not match the rules
+}
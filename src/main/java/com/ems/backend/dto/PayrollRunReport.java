@@ -0,0 +1,28 @@
+package com.ems.backend.dto;
+
+import com.ems.backend.entity.PayrollRunStatus;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PayrollRunReport {
+    private LocalDate salaryMonth;
+    private PayrollRunStatus status;
+    private long resumedAfterEmployeeId; // 0 for a fresh run
+    private long employeesProcessed;     // by this invocation
+    private long rowsWritten;            // new payroll rows; reruns of written employees add none
+    private long chunks;
+    private int threads;
+    private long elapsedMillis;
+    private long employeesPerSecond;
+    private long averageChunkMillis;
+    private long slowestChunkMillis;
+    private String error;
+}
@@ -0,0 +1,29 @@
+package com.ems.backend.dto;
+
+import com.ems.backend.entity.LeaveType;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * A leave request waiting on the caller, as listed by /api/leaves/approvals/pending.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PendingApprovalItem {
+    private Long stepId;
+    private int stepOrder;
+    private Long leaveId;
+    private Long employeeId;
+    private String employeeName;
+    private String department;
+    private LeaveType type;
+    private LocalDate startDate;
+    private LocalDate endDate;
+    private String reason;
+    private LocalDateTime appliedOn;
+}
@@ -0,0 +1,21 @@
+package com.ems.backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Pushed to {@code /topic/presence} whenever an employee's presence changes.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PresenceDelta {
+    private Long employeeId;
+    private String status; // IN or OUT
+    private int checkedInCount;
+    private int checkedOutCount;
+    private LocalDateTime timestamp;
+}
@@ -0,0 +1,19 @@
+package com.ems.backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Who in the department is on approved leave on {@code date}.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TeamCalendarDay {
+    private LocalDate date;
+    private List<TeamLeaveEntry> onLeave;
+}
@@ -0,0 +1,24 @@
+package com.ems.backend.dto;
+
+import com.ems.backend.entity.LeaveType;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+/**
+ * One approved leave request as shown on the team calendar; projected straight from the
+ * LeaveRequest / User join, so no entities are loaded.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TeamLeaveEntry {
+    private Long leaveId;
+    private Long employeeId;
+    private String employeeName;
+    private LeaveType type;
+    private LocalDate startDate;
+    private LocalDate endDate;
+}
@@ -0,0 +1,9 @@
+package com.ems.backend.entity;
+
+public enum ApprovalStepStatus {
+    WAITING,  // an earlier step has not been decided yet
+    PENDING,  // in the approver's queue
+    APPROVED,
+    REJECTED,
+    SKIPPED   // closed without a decision (an earlier step rejected, or an admin decided the request)
+}
@@ -7,7 +7,15 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "attendance")
+// The per-employee history page seeks on uk_attendance_employee_date, whose InnoDB entries
+// end in the primary key, so (employee_id, date, id) is already in index order; each page
+// then reads its few rows by id. ddl-auto leaves the old covering index behind; drop it with
+//   ALTER TABLE attendance DROP INDEX idx_attendance_history;
+@Table(name = "attendance", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_attendance_employee_date", columnNames = {"employee_id", "date"})
+}, indexes = {
+        @Index(name = "idx_attendance_date_id", columnList = "date, id")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -25,4 +33,14 @@ public class Attendance {
     private LocalDateTime checkOut;
 
     private LocalDate date;
+
+    // Derived by AttendanceRules as the check-in / check-out is written
+    @Enumerated(EnumType.STRING)
+    private AttendanceStatus status;
+
+    private Integer lateMinutes;
+
+    private Integer workedMinutes;
+
+    private Integer overtimeMinutes;
 }
\ No newline at end of file
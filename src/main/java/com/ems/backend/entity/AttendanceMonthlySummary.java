@@ -0,0 +1,39 @@
+package com.ems.backend.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+@Entity
+@Table(name = "attendance_monthly_summary", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_attendance_summary_employee_month", columnNames = {"employee_id", "summary_month"})
+}, indexes = {
+        @Index(name = "idx_attendance_summary_month", columnList = "summary_month")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class AttendanceMonthlySummary {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private Long employeeId;
+
+    @Column(nullable = false)
+    private LocalDate summaryMonth; // first day of the month, as in Payroll.salaryMonth
+
+    // only completed days (checked in and out) are counted
+    private int daysPresent;
+
+    private long totalMinutes;
+
+    private int lateCount;
+}
@@ -0,0 +1,7 @@
+package com.ems.backend.entity;
+
+public enum AttendanceStatus {
+    PRESENT,
+    LATE,
+    ABSENT
+}
@@ -0,0 +1,45 @@
+package com.ems.backend.entity;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+@Entity
+@Table(name = "holidays", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_holidays_date_location", columnNames = {"holiday_date", "location_key"})
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class Holiday {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private LocalDate holidayDate;
+
+    @Column(nullable = false)
+    private String name;
+
+    private String location; // null = observed at every location
+
+    // location with '' for company-wide, because MySQL lets NULLs repeat in a unique key
+    @JsonIgnore
+    @Column(nullable = false)
+    @Builder.Default
+    private String locationKey = "";
+
+    @PrePersist
+    @PreUpdate
+    void deriveLocationKey() {
+        locationKey = location == null ? "" : location;
+    }
+}
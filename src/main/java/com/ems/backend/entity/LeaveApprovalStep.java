@@ -0,0 +1,48 @@
+package com.ems.backend.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * One step of a leave request's approval chain. Only the current step is PENDING, and
+ * the (approver_key, status, leave_id) index makes "my pending approvals" a single
+ * range read.
+ */
+@Entity
+@Table(name = "leave_approval_step", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_leave_approval_step_leave_order", columnNames = {"leave_id", "step_order"})
+}, indexes = {
+        @Index(name = "idx_leave_approval_step_queue", columnList = "approver_key, status, leave_id")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class LeaveApprovalStep {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private Long leaveId;
+
+    @Column(nullable = false)
+    private int stepOrder;
+
+    // "ADMIN", or "MANAGER:<department>" for the managers of a department
+    @Column(nullable = false, length = 128)
+    private String approverKey;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private ApprovalStepStatus status;
+
+    private Long decidedBy;
+    private LocalDateTime decidedAt;
+}
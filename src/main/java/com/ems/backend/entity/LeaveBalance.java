@@ -0,0 +1,43 @@
+package com.ems.backend.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Entity
+@Table(name = "leave_balance", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_leave_balance_employee_year_type", columnNames = {"employee_id", "leave_year", "leave_type"})
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class LeaveBalance {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private Long employeeId;
+
+    @Column(nullable = false)
+    private int leaveYear;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private LeaveType leaveType;
+
+    private int quota;
+
+    private int usedDays;
+
+    private int pendingDays;
+
+    // What can still be applied for: quota minus approved and in-flight days
+    public int getAvailableDays() {
+        return quota - usedDays - pendingDays;
+    }
+}
@@ -7,7 +7,13 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "leave_request")
+@Table(name = "leave_request", indexes = {
+        @Index(name = "idx_leave_employee_range", columnList = "employee_id, start_date, end_date"),
+        @Index(name = "idx_leave_status_applied", columnList = "status, applied_on, id"),
+        @Index(name = "idx_leave_applied", columnList = "applied_on, id"),
+        // the payroll run's month scan of approved unpaid leave
+        @Index(name = "idx_leave_type_status_start", columnList = "type, status, start_date")
+})
 @Data
 @Getter
 @Setter
@@ -32,6 +38,14 @@ public class LeaveRequest {
     @Enumerated(EnumType.STRING)
     private LeaveStatus status;
 
+    // the admin queue's keyset; never null, see LeaveQueueService
     private LocalDateTime appliedOn;
     private LocalDateTime lastModifiedAt;
+
+    @PrePersist
+    void defaultAppliedOn() {
+        if (appliedOn == null) {
+            appliedOn = LocalDateTime.now();
+        }
+    }
 }
\ No newline at end of file
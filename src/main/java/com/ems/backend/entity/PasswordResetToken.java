@@ -0,0 +1,39 @@
+package com.ems.backend.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "password_reset_tokens", indexes = {
+        @Index(name = "uk_password_reset_tokens_hash", columnList = "token_hash", unique = true),
+        @Index(name = "idx_password_reset_tokens_expires_at", columnList = "expires_at"),
+        // issueToken deletes the user's previous tokens on every forgot-password request
+        @Index(name = "idx_password_reset_tokens_user", columnList = "user_id")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PasswordResetToken {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // SHA-256 hex of the emailed token; the token itself is never stored
+    @Column(nullable = false, length = 64, columnDefinition = "CHAR(64)")
+    private String tokenHash;
+
+    @Column(nullable = false)
+    private Long userId;
+
+    @Column(nullable = false)
+    private LocalDateTime expiresAt;
+
+    private LocalDateTime createdAt;
+}
@@ -6,9 +6,16 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import java.time.LocalDate;
+import java.util.List;
 
 @Entity
-@Table(name = "payroll")
+// one row per employee and month, so a rerun of the monthly batch cannot duplicate payrolls.
+// ddl-auto cannot add the key over existing duplicates; clear them first, keeping the latest:
+//   DELETE p FROM payroll p JOIN payroll q ON q.employee_id = p.employee_id
+//     AND q.salary_month = p.salary_month AND q.id > p.id;
+@Table(name = "payroll", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_payroll_employee_month", columnNames = {"employee_id", "salary_month"})
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -27,4 +34,13 @@ public class Payroll {
     private double netSalary;
 
     private LocalDate salaryMonth; // e.g., 2025-09-01 for September salary
+
+    // how the totals above were arrived at, in minor units
+    @Convert(converter = PayrollLineItemsConverter.class)
+    @Column(columnDefinition = "TEXT")
+    private List<PayrollLineItem> lineItems;
+
+    // PayrollPlan fingerprint the lines were priced under; null for manual and older payrolls
+    @Column(length = 16)
+    private String planFingerprint;
 }
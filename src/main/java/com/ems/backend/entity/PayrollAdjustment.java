@@ -0,0 +1,52 @@
+package com.ems.backend.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * A retroactive change to a payroll, stored next to the original row instead of
+ * overwriting what was paid. Amounts are deltas; the payroll's current figures are the
+ * original plus every adjustment in id order.
+ */
+@Entity
+@Table(name = "payroll_adjustment", indexes = {
+        @Index(name = "idx_payroll_adjustment_payroll", columnList = "payroll_id, id")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PayrollAdjustment {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private Long payrollId;
+
+    @Column(nullable = false)
+    private Long employeeId;
+
+    @Column(nullable = false)
+    private LocalDate salaryMonth;
+
+    private double basicDelta;
+    private double allowancesDelta;
+    private double deductionsDelta;
+    private double netDelta;
+
+    // only the lines that changed; amounts are deltas in minor units
+    @Convert(converter = PayrollLineItemsConverter.class)
+    @Column(columnDefinition = "TEXT")
+    private List<PayrollLineItem> lineItems;
+
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,14 @@
+package com.ems.backend.entity;
+
+/**
+ * Kind of a payroll line item. Allowances add to gross pay; every other kind except BASIC
+ * is subtracted from it.
+ */
+public enum PayrollComponentType {
+    BASIC,
+    ALLOWANCE,
+    UNPAID_LEAVE,
+    ABSENCE,
+    DEDUCTION,
+    TAX
+}
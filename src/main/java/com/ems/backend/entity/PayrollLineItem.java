@@ -0,0 +1,18 @@
+package com.ems.backend.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One line of a payroll breakdown, e.g. {@code HRA ALLOWANCE 2000000}. Amounts are in
+ * minor units (paise / cents) so the lines add up to the totals exactly.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PayrollLineItem {
+    private String code;
+    private PayrollComponentType type;
+    private long amount;
+}
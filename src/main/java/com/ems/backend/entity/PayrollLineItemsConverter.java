@@ -0,0 +1,45 @@
+package com.ems.backend.entity;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+import java.util.List;
+
+/**
+ * Stores a payroll's line items as one JSON column; they are only ever read together with
+ * their payroll, so a child table would just add a join.
+ */
+@Converter
+public class PayrollLineItemsConverter implements AttributeConverter<List<PayrollLineItem>, String> {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final TypeReference<List<PayrollLineItem>> LINE_ITEMS = new TypeReference<>() {
+    };
+
+    @Override
+    public String convertToDatabaseColumn(List<PayrollLineItem> lineItems) {
+        if (lineItems == null) {
+            return null;
+        }
+        try {
+            return MAPPER.writeValueAsString(lineItems);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Cannot serialise payroll line items", e);
+        }
+    }
+
+    @Override
+    public List<PayrollLineItem> convertToEntityAttribute(String json) {
+        if (json == null || json.isBlank()) {
+            return List.of();
+        }
+        try {
+            return MAPPER.readValue(json, LINE_ITEMS);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Cannot read payroll line items", e);
+        }
+    }
+}
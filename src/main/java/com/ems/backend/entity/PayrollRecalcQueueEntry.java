@@ -0,0 +1,41 @@
+package com.ems.backend.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * A generated payroll whose inputs (approved unpaid leave, absences) changed after it was
+ * written. One row per (employee, month) however often it is marked; every further mark
+ * bumps {@code dirtyVersion}, so the worker only dequeues an entry if nothing marked it
+ * again while it was being recomputed.
+ */
+@Entity
+@Table(name = "payroll_recalc_queue", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_payroll_recalc_employee_month", columnNames = {"employee_id", "salary_month"})
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PayrollRecalcQueueEntry {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private Long employeeId;
+
+    @Column(nullable = false)
+    private LocalDate salaryMonth;
+
+    private long dirtyVersion;
+
+    private LocalDateTime queuedAt;
+}
@@ -0,0 +1,48 @@
+package com.ems.backend.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Progress of the monthly payroll batch for one salary month. {@code lastEmployeeId} is
+ * the checkpoint: every employee up to and including it has been written, so an
+ * interrupted run resumes after it.
+ */
+@Entity
+@Table(name = "payroll_run", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_payroll_run_month", columnNames = {"salary_month"})
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PayrollRun {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private LocalDate salaryMonth;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private PayrollRunStatus status;
+
+    private long lastEmployeeId;
+    private long employeesProcessed;
+    private long rowsWritten;
+    private long chunksCompleted;
+
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+
+    @Column(length = 512)
+    private String lastError;
+}
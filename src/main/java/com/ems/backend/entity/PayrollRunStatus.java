@@ -0,0 +1,7 @@
+package com.ems.backend.entity;
+
+public enum PayrollRunStatus {
+    RUNNING,
+    COMPLETED,
+    FAILED
+}
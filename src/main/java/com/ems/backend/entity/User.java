@@ -14,11 +14,13 @@ import java.util.List;
 import lombok.*;
 
 @Entity
-@Table(name = "users")
+@Table(name = "users", indexes = {
+        @Index(name = "idx_users_department", columnList = "department")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
-@Builder
+@Builder(toBuilder = true)
 public class User implements UserDetails {
 
     @Id
@@ -47,8 +49,10 @@ public class User implements UserDetails {
     @Column(nullable = false)
     private boolean firstLogin;
 
-    private String resetToken;
-    private java.time.LocalDateTime resetTokenExpiry;
+    // Bumped on any change that must invalidate issued access tokens and cached principals
+    @Column(nullable = false)
+    @Builder.Default
+    private long securityVersion = 0;
 
     // ✅ New fields for enhanced profile
     private String profilePictureUrl;
@@ -56,6 +60,10 @@ public class User implements UserDetails {
     private String emergencyContactNumber;
 
 
+    public void bumpSecurityVersion() {
+        this.securityVersion++;
+    }
+
     @Override
     public Collection<? extends GrantedAuthority> getAuthorities() {
         return List.of(new SimpleGrantedAuthority("ROLE_" + role.name()));
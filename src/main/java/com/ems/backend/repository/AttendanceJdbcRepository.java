@@ -0,0 +1,273 @@
+package com.ems.backend.repository;
+
+import com.ems.backend.dto.AttendanceEvent;
+import com.ems.backend.entity.Attendance;
+import com.ems.backend.entity.AttendanceStatus;
+import com.ems.backend.service.AttendanceRules;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Date;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Plain-JDBC write path for attendance, used where JPA's one-entity-at-a-time
+ * save would turn a burst of punches into a burst of transactions.
+ */
+@Repository
+public class AttendanceJdbcRepository {
+
+    // Adds one completed day to the employee's monthly summary, reading the row just checked out
+    private static final String ROLL_UP_DAY_SQL =
+            "INSERT INTO attendance_monthly_summary (employee_id, summary_month, days_present, total_minutes, late_count) "
+                    + "SELECT employee_id, ?, 1, worked_minutes, CASE WHEN late_minutes > 0 THEN 1 ELSE 0 END "
+                    + "FROM attendance WHERE employee_id = ? AND date = ? AND check_in IS NOT NULL AND check_out IS NOT NULL "
+                    + "ON DUPLICATE KEY UPDATE days_present = days_present + VALUES(days_present), "
+                    + "total_minutes = total_minutes + VALUES(total_minutes), late_count = late_count + VALUES(late_count)";
+
+    // A no-op update on the unique key rather than INSERT IGNORE, which would also turn
+    // NOT NULL, truncation and foreign key errors into warnings and silently lose the row
+    private static final String CHECK_IN_SQL =
+            "INSERT INTO attendance (employee_id, date, check_in, status, late_minutes) VALUES (?, ?, ?, ?, ?) "
+                    + "ON DUPLICATE KEY UPDATE id = id";
+
+    private static final String CHECK_OUT_SQL =
+            "UPDATE attendance SET check_out = ?, worked_minutes = TIMESTAMPDIFF(MINUTE, check_in, ?), "
+                    + "overtime_minutes = GREATEST(TIMESTAMPDIFF(MINUTE, check_in, ?) - ?, 0) "
+                    + "WHERE employee_id = ? AND date = ? AND check_in IS NOT NULL AND check_out IS NULL";
+
+    // Minute of day of the check-in, minus the shift start
+    private static final String MINUTES_PAST_START = "(HOUR(check_in) * 60 + MINUTE(check_in) - ?)";
+
+    private static final String SUMMARISE_SELECT =
+            "SELECT employee_id, ?, COUNT(*), COALESCE(SUM(COALESCE(worked_minutes, TIMESTAMPDIFF(MINUTE, check_in, check_out))), 0), "
+                    + "COALESCE(SUM(CASE WHEN late_minutes > 0 THEN 1 ELSE 0 END), 0) "
+                    + "FROM attendance WHERE date BETWEEN ? AND ? AND check_in IS NOT NULL AND check_out IS NOT NULL ";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final AttendanceRules rules;
+
+    public AttendanceJdbcRepository(JdbcTemplate jdbcTemplate, AttendanceRules rules) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.rules = rules;
+    }
+
+    // Days that were actually worked; ABSENT rows are left out
+    public List<Attendance> findAllByDate(LocalDate date) {
+        return jdbcTemplate.query(
+                "SELECT id, employee_id, check_in, check_out, date FROM attendance WHERE date = ? AND check_in IS NOT NULL",
+                (rs, rowNum) -> Attendance.builder()
+                        .id(rs.getLong("id"))
+                        .employeeId(rs.getLong("employee_id"))
+                        .checkIn(toLocalDateTime(rs.getTimestamp("check_in")))
+                        .checkOut(toLocalDateTime(rs.getTimestamp("check_out")))
+                        .date(rs.getDate("date").toLocalDate())
+                        .build(),
+                Date.valueOf(date));
+    }
+
+    /**
+     * Inserts today's row unless one already exists; relies on the (employee_id, date)
+     * unique key, so concurrent callers cannot create duplicates.
+     *
+     * @return {@code true} if this call created the row
+     */
+    public boolean insertCheckInIfAbsent(Long employeeId, LocalDate date, LocalDateTime checkIn) {
+        return jdbcTemplate.update(CHECK_IN_SQL,
+                employeeId, Date.valueOf(date), Timestamp.valueOf(checkIn),
+                rules.statusFor(checkIn).name(), rules.lateMinutes(checkIn)) == 1;
+    }
+
+    /**
+     * Sets the check-out, worked and overtime minutes only if no check-out has been recorded
+     * yet, and on success adds the completed day to the monthly summary in the same
+     * transaction.
+     *
+     * @return {@code true} if this call recorded the check-out
+     */
+    @Transactional
+    public boolean updateCheckOutIfOpen(Long employeeId, LocalDate date, LocalDateTime checkOut) {
+        Timestamp at = Timestamp.valueOf(checkOut);
+        boolean updated = jdbcTemplate.update(CHECK_OUT_SQL,
+                at, at, at, rules.getOvertimeThresholdMinutes(), employeeId, Date.valueOf(date)) == 1;
+        if (updated) {
+            jdbcTemplate.update(ROLL_UP_DAY_SQL, Date.valueOf(date.withDayOfMonth(1)), employeeId, Date.valueOf(date));
+        }
+        return updated;
+    }
+
+    public int[] batchInsertCheckIns(List<AttendanceEvent> events) {
+        if (events.isEmpty()) {
+            return new int[0];
+        }
+        return jdbcTemplate.batchUpdate(CHECK_IN_SQL, events, events.size(),
+                (ps, e) -> {
+                    ps.setLong(1, e.getEmployeeId());
+                    ps.setDate(2, Date.valueOf(e.getDate()));
+                    ps.setTimestamp(3, Timestamp.valueOf(e.getTime()));
+                    ps.setString(4, rules.statusFor(e.getTime()).name());
+                    ps.setInt(5, rules.lateMinutes(e.getTime()));
+                })[0];
+    }
+
+    /**
+     * Batch form of {@link #updateCheckOutIfOpen}: only the rows this batch actually closed
+     * are rolled up, so a retried or duplicate check-out is never counted twice.
+     */
+    @Transactional
+    public int[] batchUpdateCheckOuts(List<AttendanceEvent> events) {
+        if (events.isEmpty()) {
+            return new int[0];
+        }
+        int threshold = rules.getOvertimeThresholdMinutes();
+        int[] counts = jdbcTemplate.batchUpdate(CHECK_OUT_SQL, events, events.size(),
+                (ps, e) -> {
+                    Timestamp at = Timestamp.valueOf(e.getTime());
+                    ps.setTimestamp(1, at);
+                    ps.setTimestamp(2, at);
+                    ps.setTimestamp(3, at);
+                    ps.setInt(4, threshold);
+                    ps.setLong(5, e.getEmployeeId());
+                    ps.setDate(6, Date.valueOf(e.getDate()));
+                })[0];
+
+        List<AttendanceEvent> closed = new ArrayList<>();
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] == 1) {
+                closed.add(events.get(i));
+            } else if (counts[i] == Statement.SUCCESS_NO_INFO) {
+                // driver could not say whether this row changed; recompute its month instead of guessing
+                summariseEmployeeMonth(events.get(i).getEmployeeId(), YearMonth.from(events.get(i).getDate()));
+            }
+        }
+        if (!closed.isEmpty()) {
+            jdbcTemplate.batchUpdate(ROLL_UP_DAY_SQL, closed, closed.size(),
+                    (ps, e) -> {
+                        ps.setDate(1, Date.valueOf(e.getDate().withDayOfMonth(1)));
+                        ps.setLong(2, e.getEmployeeId());
+                        ps.setDate(3, Date.valueOf(e.getDate()));
+                    });
+        }
+        return counts;
+    }
+
+    /**
+     * Upserts merged first-in/last-out days from a bulk import. An existing row keeps the
+     * earliest check-in and the latest punch across both sources; {@code check_out} is
+     * assigned before {@code check_in} so it is compared against the row's original value.
+     * Derived columns are not set here; callers follow up with {@link #applyRules}.
+     */
+    public int batchUpsertImportedDays(List<Attendance> days) {
+        if (days.isEmpty()) {
+            return 0;
+        }
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO attendance (employee_id, date, check_in, check_out) VALUES (?, ?, ?, ?) "
+                        + "ON DUPLICATE KEY UPDATE "
+                        // COALESCEs cover rows previously marked ABSENT (no punches at all)
+                        + "check_out = CASE WHEN GREATEST(COALESCE(check_out, check_in, VALUES(check_in)), COALESCE(VALUES(check_out), VALUES(check_in))) "
+                        + "> LEAST(COALESCE(check_in, VALUES(check_in)), VALUES(check_in)) "
+                        + "THEN GREATEST(COALESCE(check_out, check_in, VALUES(check_in)), COALESCE(VALUES(check_out), VALUES(check_in))) "
+                        + "ELSE check_out END, "
+                        + "check_in = LEAST(COALESCE(check_in, VALUES(check_in)), VALUES(check_in))",
+                days, days.size(),
+                (ps, a) -> {
+                    ps.setLong(1, a.getEmployeeId());
+                    ps.setDate(2, Date.valueOf(a.getDate()));
+                    ps.setTimestamp(3, Timestamp.valueOf(a.getCheckIn()));
+                    ps.setTimestamp(4, a.getCheckOut() == null ? null : Timestamp.valueOf(a.getCheckOut()));
+                });
+        return days.size();
+    }
+
+    /**
+     * Re-derives status, lateness, worked and overtime minutes for every worked day in
+     * {@code [from, to]} with one UPDATE; used after imports and when the rules change.
+     *
+     * @return number of rows re-evaluated
+     */
+    public int applyRules(LocalDate from, LocalDate to) {
+        int start = rules.getShiftStartMinute();
+        int grace = rules.getGraceMinutes();
+        return jdbcTemplate.update(
+                "UPDATE attendance SET "
+                        + "late_minutes = CASE WHEN " + MINUTES_PAST_START + " > ? THEN " + MINUTES_PAST_START + " ELSE 0 END, "
+                        + "status = CASE WHEN " + MINUTES_PAST_START + " > ? THEN 'LATE' ELSE 'PRESENT' END, "
+                        + "worked_minutes = CASE WHEN check_out IS NULL THEN NULL ELSE TIMESTAMPDIFF(MINUTE, check_in, check_out) END, "
+                        + "overtime_minutes = CASE WHEN check_out IS NULL THEN NULL "
+                        + "ELSE GREATEST(TIMESTAMPDIFF(MINUTE, check_in, check_out) - ?, 0) END "
+                        + "WHERE date BETWEEN ? AND ? AND check_in IS NOT NULL",
+                start, grace, start, start, grace, rules.getOvertimeThresholdMinutes(),
+                Date.valueOf(from), Date.valueOf(to));
+    }
+
+    // Every employee with any row on the date, worked or already marked absent
+    public BitSet findEmployeeIdsWithRow(LocalDate date) {
+        BitSet ids = new BitSet();
+        jdbcTemplate.query("SELECT employee_id FROM attendance WHERE date = ?",
+                rs -> {
+                    ids.set(Math.toIntExact(rs.getLong(1)));
+                },
+                Date.valueOf(date));
+        return ids;
+    }
+
+    public int batchInsertAbsences(LocalDate date, List<Long> employeeIds) {
+        if (employeeIds.isEmpty()) {
+            return 0;
+        }
+        int inserted = 0;
+        for (int[] counts : jdbcTemplate.batchUpdate(
+                "INSERT INTO attendance (employee_id, date, status) VALUES (?, ?, '" + AttendanceStatus.ABSENT.name() + "') "
+                        + "ON DUPLICATE KEY UPDATE id = id",
+                employeeIds, 1000,
+                (ps, id) -> {
+                    ps.setLong(1, id);
+                    ps.setDate(2, Date.valueOf(date));
+                })) {
+            for (int count : counts) {
+                // SUCCESS_NO_INFO is counted as inserted; the no-op upsert makes a rerun harmless either way
+                inserted += count == 0 ? 0 : 1;
+            }
+        }
+        return inserted;
+    }
+
+    /**
+     * Rebuilds every employee's summary row for {@code month} from the raw attendance rows
+     * with one set-based statement; used for backfill and to correct drift.
+     *
+     * @return number of summary rows written
+     */
+    @Transactional
+    public int rebuildMonthlySummary(YearMonth month) {
+        Date monthStart = Date.valueOf(month.atDay(1));
+        jdbcTemplate.update("DELETE FROM attendance_monthly_summary WHERE summary_month = ?", monthStart);
+        return jdbcTemplate.update(
+                "INSERT INTO attendance_monthly_summary (employee_id, summary_month, days_present, total_minutes, late_count) "
+                        + SUMMARISE_SELECT + "GROUP BY employee_id",
+                monthStart, monthStart, Date.valueOf(month.atEndOfMonth()));
+    }
+
+    private void summariseEmployeeMonth(Long employeeId, YearMonth month) {
+        Date monthStart = Date.valueOf(month.atDay(1));
+        jdbcTemplate.update(
+                "INSERT INTO attendance_monthly_summary (employee_id, summary_month, days_present, total_minutes, late_count) "
+                        + SUMMARISE_SELECT + "AND employee_id = ? GROUP BY employee_id "
+                        + "ON DUPLICATE KEY UPDATE days_present = VALUES(days_present), "
+                        + "total_minutes = VALUES(total_minutes), late_count = VALUES(late_count)",
+                monthStart, monthStart, Date.valueOf(month.atEndOfMonth()), employeeId);
+    }
+
+    private static LocalDateTime toLocalDateTime(Timestamp timestamp) {
+        return timestamp == null ? null : timestamp.toLocalDateTime();
+    }
+}
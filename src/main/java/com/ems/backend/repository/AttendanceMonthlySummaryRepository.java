@@ -0,0 +1,13 @@
+package com.ems.backend.repository;
+
+import com.ems.backend.entity.AttendanceMonthlySummary;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+public interface AttendanceMonthlySummaryRepository extends JpaRepository<AttendanceMonthlySummary, Long> {
+    Optional<AttendanceMonthlySummary> findByEmployeeIdAndSummaryMonth(Long employeeId, LocalDate summaryMonth);
+    List<AttendanceMonthlySummary> findBySummaryMonth(LocalDate summaryMonth);
+}
@@ -1,7 +1,10 @@
 package com.ems.backend.repository;
 
 import com.ems.backend.entity.Attendance;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.time.LocalDate;
 import java.util.List;
@@ -10,4 +13,25 @@ import java.util.Optional;
 public interface AttendanceRepository extends JpaRepository<Attendance, Long> {
     Optional<Attendance> findByEmployeeIdAndDate(Long employeeId, LocalDate date);
     List<Attendance> findByEmployeeId(Long employeeId);
-}
\ No newline at end of file
+
+    // Keyset page, newest first: rows strictly before (beforeDate, beforeId) within [from, to]
+    @Query("SELECT a FROM Attendance a WHERE a.employeeId = :employeeId AND a.date BETWEEN :from AND :to " +
+            "AND (a.date < :beforeDate OR (a.date = :beforeDate AND a.id < :beforeId)) " +
+            "ORDER BY a.date DESC, a.id DESC")
+    List<Attendance> findHistoryPage(@Param("employeeId") Long employeeId,
+                                     @Param("from") LocalDate from,
+                                     @Param("to") LocalDate to,
+                                     @Param("beforeDate") LocalDate beforeDate,
+                                     @Param("beforeId") Long beforeId,
+                                     Pageable pageable);
+
+    // Keyset chunk across all employees, oldest first: rows strictly after (afterDate, afterId)
+    @Query("SELECT a FROM Attendance a WHERE a.date BETWEEN :from AND :to " +
+            "AND (a.date > :afterDate OR (a.date = :afterDate AND a.id > :afterId)) " +
+            "ORDER BY a.date ASC, a.id ASC")
+    List<Attendance> findRangeChunk(@Param("from") LocalDate from,
+                                    @Param("to") LocalDate to,
+                                    @Param("afterDate") LocalDate afterDate,
+                                    @Param("afterId") Long afterId,
+                                    Pageable pageable);
+}
@@ -0,0 +1,19 @@
+package com.ems.backend.repository;
+
+import com.ems.backend.entity.Holiday;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public interface HolidayRepository extends JpaRepository<Holiday, Long> {
+    List<Holiday> findByHolidayDateBetweenOrderByHolidayDate(LocalDate from, LocalDate to);
+
+    // Company-wide holidays plus those of the given location (null location = company-wide only)
+    @Query("SELECT h.holidayDate FROM Holiday h WHERE h.holidayDate BETWEEN :from AND :to "
+            + "AND (h.location IS NULL OR h.location = :location)")
+    List<LocalDate> findDatesObservedAt(@Param("from") LocalDate from, @Param("to") LocalDate to,
+                                        @Param("location") String location);
+}
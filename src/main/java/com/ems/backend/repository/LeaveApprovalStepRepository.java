@@ -0,0 +1,48 @@
+package com.ems.backend.repository;
+
+import com.ems.backend.dto.PendingApprovalItem;
+import com.ems.backend.entity.ApprovalStepStatus;
+import com.ems.backend.entity.LeaveApprovalStep;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public interface LeaveApprovalStepRepository extends JpaRepository<LeaveApprovalStep, Long> {
+    Optional<LeaveApprovalStep> findFirstByLeaveIdAndStatus(Long leaveId, ApprovalStepStatus status);
+    boolean existsByLeaveId(Long leaveId);
+
+    // The approver's queue; a range read on idx_leave_approval_step_queue per key
+    @Query("SELECT new com.ems.backend.dto.PendingApprovalItem(s.id, s.stepOrder, l.id, u.id, u.name, u.department, "
+            + "l.type, l.startDate, l.endDate, l.reason, l.appliedOn) "
+            + "FROM LeaveApprovalStep s JOIN LeaveRequest l ON l.id = s.leaveId JOIN User u ON u.id = l.employeeId "
+            + "WHERE s.approverKey IN :approverKeys AND s.status = com.ems.backend.entity.ApprovalStepStatus.PENDING "
+            + "ORDER BY s.leaveId")
+    List<PendingApprovalItem> findPendingFor(@Param("approverKeys") Collection<String> approverKeys);
+
+    // Only the caller that moves the step out of PENDING gets 1
+    @Modifying
+    @Query("UPDATE LeaveApprovalStep s SET s.status = :to, s.decidedBy = :decidedBy, s.decidedAt = :now "
+            + "WHERE s.id = :id AND s.status = com.ems.backend.entity.ApprovalStepStatus.PENDING")
+    int decide(@Param("id") Long id, @Param("to") ApprovalStepStatus to,
+               @Param("decidedBy") Long decidedBy, @Param("now") LocalDateTime now);
+
+    // Puts the next step into its approver's queue; 0 when the chain is complete
+    @Modifying
+    @Query("UPDATE LeaveApprovalStep s SET s.status = com.ems.backend.entity.ApprovalStepStatus.PENDING "
+            + "WHERE s.leaveId = :leaveId AND s.stepOrder = :stepOrder "
+            + "AND s.status = com.ems.backend.entity.ApprovalStepStatus.WAITING")
+    int activate(@Param("leaveId") Long leaveId, @Param("stepOrder") int stepOrder);
+
+    // Closes whatever is still open on the requests, e.g. after a rejection or an admin decision
+    @Modifying
+    @Query("UPDATE LeaveApprovalStep s SET s.status = com.ems.backend.entity.ApprovalStepStatus.SKIPPED "
+            + "WHERE s.leaveId IN :leaveIds AND s.status IN (com.ems.backend.entity.ApprovalStepStatus.PENDING, "
+            + "com.ems.backend.entity.ApprovalStepStatus.WAITING)")
+    int skipOpenSteps(@Param("leaveIds") Collection<Long> leaveIds);
+}
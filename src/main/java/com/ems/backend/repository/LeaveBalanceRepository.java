@@ -0,0 +1,46 @@
+package com.ems.backend.repository;
+
+import com.ems.backend.entity.LeaveBalance;
+import com.ems.backend.entity.LeaveType;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+
+public interface LeaveBalanceRepository extends JpaRepository<LeaveBalance, Long> {
+    List<LeaveBalance> findByEmployeeIdAndLeaveYear(Long employeeId, int leaveYear);
+
+    // Held by rebuildBalances while it recounts, so concurrent applyDelta calls wait for it
+    // instead of being overwritten by its absolute values
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT b FROM LeaveBalance b WHERE b.leaveYear = :leaveYear ORDER BY b.id")
+    List<LeaveBalance> findByLeaveYearForUpdate(@Param("leaveYear") int leaveYear);
+
+    // Creates the ledger row on first use; concurrent callers are absorbed by the unique key
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO leave_balance (employee_id, leave_year, leave_type, quota, used_days, pending_days) "
+            + "VALUES (:employeeId, :leaveYear, :leaveType, :quota, 0, 0)", nativeQuery = true)
+    int insertIfAbsent(@Param("employeeId") Long employeeId, @Param("leaveYear") int leaveYear,
+                       @Param("leaveType") String leaveType, @Param("quota") int quota);
+
+    // Applied in the database so concurrent approvals cannot lose each other's updates
+    @Modifying
+    @Query("UPDATE LeaveBalance b SET b.usedDays = b.usedDays + :usedDelta, b.pendingDays = b.pendingDays + :pendingDelta "
+            + "WHERE b.employeeId = :employeeId AND b.leaveYear = :leaveYear AND b.leaveType = :leaveType")
+    int applyDelta(@Param("employeeId") Long employeeId, @Param("leaveYear") int leaveYear,
+                   @Param("leaveType") LeaveType leaveType,
+                   @Param("usedDelta") int usedDelta, @Param("pendingDelta") int pendingDelta);
+
+    // Takes pending days only while they still fit in the quota, so two applications racing
+    // for the last days cannot both succeed; 0 rows updated means the balance is too low
+    @Modifying
+    @Query("UPDATE LeaveBalance b SET b.pendingDays = b.pendingDays + :days "
+            + "WHERE b.employeeId = :employeeId AND b.leaveYear = :leaveYear AND b.leaveType = :leaveType "
+            + "AND b.quota - b.usedDays - b.pendingDays >= :days")
+    int reservePending(@Param("employeeId") Long employeeId, @Param("leaveYear") int leaveYear,
+                       @Param("leaveType") LeaveType leaveType, @Param("days") int days);
+}
@@ -1,12 +1,65 @@
 package com.ems.backend.repository;
 
+import com.ems.backend.dto.TeamLeaveEntry;
 import com.ems.backend.entity.LeaveRequest;
 import com.ems.backend.entity.LeaveStatus;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 public interface LeaveRequestRepository extends JpaRepository<LeaveRequest, Long> {
     List<LeaveRequest> findByStatus(LeaveStatus status);
     List<LeaveRequest> findByEmployeeId(Long employeeId);
-}
\ No newline at end of file
+
+    // Served by idx_leave_employee_range; loads an employee into LeaveIntervalIndex
+    List<LeaveRequest> findByEmployeeIdAndStatusInOrderByStartDate(Long employeeId, Collection<LeaveStatus> statuses);
+
+    @Query("SELECT DISTINCT l.employeeId FROM LeaveRequest l WHERE l.status = com.ems.backend.entity.LeaveStatus.APPROVED "
+            + "AND l.startDate <= :date AND l.endDate >= :date")
+    List<Long> findEmployeeIdsOnApprovedLeave(@Param("date") LocalDate date);
+
+    // Only the caller that moves the request out of `from` gets 1, so ledger deltas are applied once
+    @Modifying
+    @Query("UPDATE LeaveRequest l SET l.status = :to, l.lastModifiedAt = :now WHERE l.id = :id AND l.status = :from")
+    int transitionStatus(@Param("id") Long id, @Param("from") LeaveStatus from, @Param("to") LeaveStatus to,
+                         @Param("now") LocalDateTime now);
+
+    // Locks the rows for the rest of the transaction, so a bulk decision sees a stable status
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT l FROM LeaveRequest l WHERE l.id IN :ids")
+    List<LeaveRequest> findAllByIdForUpdate(@Param("ids") Collection<Long> ids);
+
+    // Bulk form of transitionStatus for PENDING requests; clears the persistence context so the
+    // stale managed copies are not flushed back over the new status
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE LeaveRequest l SET l.status = :to, l.lastModifiedAt = :now "
+            + "WHERE l.id IN :ids AND l.status = com.ems.backend.entity.LeaveStatus.PENDING")
+    int transitionPending(@Param("ids") Collection<Long> ids, @Param("to") LeaveStatus to, @Param("now") LocalDateTime now);
+
+    // Approved leave of one department overlapping [from, to]; walks idx_users_department, then idx_leave_employee_range
+    @Query("SELECT new com.ems.backend.dto.TeamLeaveEntry(l.id, u.id, u.name, l.type, l.startDate, l.endDate) "
+            + "FROM LeaveRequest l JOIN User u ON u.id = l.employeeId "
+            + "WHERE u.department = :department AND l.status = com.ems.backend.entity.LeaveStatus.APPROVED "
+            + "AND l.startDate <= :to AND l.endDate >= :from ORDER BY u.name, l.startDate")
+    List<TeamLeaveEntry> findApprovedTeamLeave(@Param("department") String department,
+                                               @Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    // Requests with at least one day in [from, to]
+    @Query("SELECT l FROM LeaveRequest l WHERE l.startDate <= :to AND l.endDate >= :from")
+    List<LeaveRequest> findOverlapping(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    // (employeeId, type) pairs with a request in one of the statuses overlapping [from, to];
+    // loads no entities, so a later findOverlapping in the same transaction reads fresh rows
+    @Query("SELECT DISTINCT l.employeeId, l.type FROM LeaveRequest l "
+            + "WHERE l.startDate <= :to AND l.endDate >= :from AND l.status IN :statuses")
+    List<Object[]> findEmployeeTypesOverlapping(@Param("from") LocalDate from, @Param("to") LocalDate to,
+                                                @Param("statuses") Collection<LeaveStatus> statuses);
+}
@@ -0,0 +1,12 @@
+package com.ems.backend.repository;
+
+import com.ems.backend.entity.PayrollAdjustment;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface PayrollAdjustmentRepository extends JpaRepository<PayrollAdjustment, Long> {
+    List<PayrollAdjustment> findByPayrollIdOrderById(Long payrollId);
+    List<PayrollAdjustment> findByPayrollIdInOrderById(Collection<Long> payrollIds);
+}
@@ -0,0 +1,247 @@
+package com.ems.backend.repository;
+
+import com.ems.backend.dto.PayrollInput;
+import com.ems.backend.entity.Payroll;
+import com.ems.backend.entity.PayrollLineItemsConverter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Plain-JDBC paths for the monthly payroll batch: month-wide streaming reads of its
+ * inputs, batched idempotent inserts, the run checkpoint and the recalculation queue.
+ *
+ * <p>The input reads go through a second template with {@code ems.payroll.input.fetch-size}
+ * set, so the driver hands rows over in batches instead of buffering whole result sets
+ * (MySQL Connector/J needs {@code useCursorFetch=true} on the URL for that).</p>
+ */
+@Repository
+public class PayrollJdbcRepository {
+
+    private static final String INSERT_PAYROLL_SQL =
+            "INSERT IGNORE INTO payroll (employee_id, salary_month, basic_salary, allowances, deductions, net_salary, line_items, plan_fingerprint) "
+                    + "VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final int IDS_PER_STATEMENT = 500;
+
+    private final PayrollLineItemsConverter lineItemsConverter = new PayrollLineItemsConverter();
+
+    public record QueuedRecalc(long id, long employeeId, LocalDate salaryMonth, long dirtyVersion) {
+    }
+
+    public interface LeaveSpanHandler {
+        void accept(long employeeId, LocalDate startDate, LocalDate endDate);
+    }
+
+    public interface DayCountHandler {
+        void accept(long employeeId, int days);
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final JdbcTemplate streamingJdbcTemplate;
+
+    public PayrollJdbcRepository(JdbcTemplate jdbcTemplate,
+                                 @Value("${ems.payroll.input.fetch-size:1000}") int fetchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.streamingJdbcTemplate = new JdbcTemplate(jdbcTemplate.getDataSource());
+        this.streamingJdbcTemplate.setFetchSize(fetchSize);
+    }
+
+    /**
+     * Streams the active, approved employees with an id above {@code afterId} who had
+     * joined by {@code monthEnd}, in id order, with zero leave and absence.
+     */
+    public void forEachPayableEmployee(long afterId, LocalDate monthEnd, Consumer<PayrollInput> handler) {
+        streamingJdbcTemplate.query(
+                "SELECT id, department, designation FROM users WHERE role = 'EMPLOYEE' AND active = TRUE "
+                        + "AND approved = TRUE AND (date_of_joining IS NULL OR date_of_joining <= ?) AND id > ? ORDER BY id",
+                rs -> {
+                    handler.accept(new PayrollInput(rs.getLong(1), rs.getString(2), rs.getString(3), 0, 0));
+                },
+                Date.valueOf(monthEnd), afterId);
+    }
+
+    /**
+     * Streams the given employees in id order, whatever their current status: a payroll
+     * that is being recalculated was payable when it was written.
+     */
+    public void forEachEmployee(List<Long> ids, Consumer<PayrollInput> handler) {
+        for (List<Long> slice : slices(ids.stream().sorted().toList())) {
+            streamingJdbcTemplate.query(
+                    "SELECT id, department, designation FROM users WHERE " + inList("id", slice.size()) + " ORDER BY id",
+                    rs -> {
+                        handler.accept(new PayrollInput(rs.getLong(1), rs.getString(2), rs.getString(3), 0, 0));
+                    },
+                    slice.toArray());
+        }
+    }
+
+    /**
+     * Approved unpaid leave overlapping [from, to], for employees with an id above
+     * {@code afterId}, or only for {@code onlyIds} when that is not {@code null}.
+     */
+    public void forEachApprovedUnpaidLeave(long afterId, List<Long> onlyIds, LocalDate from, LocalDate to,
+                                           LeaveSpanHandler handler) {
+        for (List<Long> slice : slicesOrAll(onlyIds)) {
+            streamingJdbcTemplate.query(
+                    "SELECT employee_id, start_date, end_date FROM leave_request WHERE type = 'UNPAID' "
+                            + "AND status = 'APPROVED' AND start_date <= ? AND end_date >= ? AND employee_id > ?"
+                            + (slice == null ? "" : " AND " + inList("employee_id", slice.size())),
+                    rs -> {
+                        handler.accept(rs.getLong(1), rs.getDate(2).toLocalDate(), rs.getDate(3).toLocalDate());
+                    },
+                    arguments(slice, Date.valueOf(to), Date.valueOf(from), afterId));
+        }
+    }
+
+    // ABSENT attendance rows per employee in [from, to]; employees are selected as for leave
+    public void forEachAbsenceCount(long afterId, List<Long> onlyIds, LocalDate from, LocalDate to,
+                                    DayCountHandler handler) {
+        for (List<Long> slice : slicesOrAll(onlyIds)) {
+            streamingJdbcTemplate.query(
+                    "SELECT employee_id, COUNT(*) FROM attendance WHERE date BETWEEN ? AND ? "
+                            + "AND status = 'ABSENT' AND employee_id > ?"
+                            + (slice == null ? "" : " AND " + inList("employee_id", slice.size()))
+                            + " GROUP BY employee_id",
+                    rs -> {
+                        handler.accept(rs.getLong(1), rs.getInt(2));
+                    },
+                    arguments(slice, Date.valueOf(from), Date.valueOf(to), afterId));
+        }
+    }
+
+    /**
+     * Inserts the payrolls as one JDBC batch; rows that already exist for the
+     * (employee_id, salary_month) key are left untouched.
+     *
+     * @return number of rows inserted
+     */
+    public int batchInsertPayrolls(List<Payroll> payrolls) {
+        if (payrolls.isEmpty()) {
+            return 0;
+        }
+        int inserted = 0;
+        for (int count : jdbcTemplate.batchUpdate(INSERT_PAYROLL_SQL, payrolls, payrolls.size(),
+                (ps, payroll) -> {
+                    ps.setLong(1, payroll.getEmployeeId());
+                    ps.setDate(2, Date.valueOf(payroll.getSalaryMonth()));
+                    ps.setDouble(3, payroll.getBasicSalary());
+                    ps.setDouble(4, payroll.getAllowances());
+                    ps.setDouble(5, payroll.getDeductions());
+                    ps.setDouble(6, payroll.getNetSalary());
+                    ps.setString(7, lineItemsConverter.convertToDatabaseColumn(payroll.getLineItems()));
+                    ps.setString(8, payroll.getPlanFingerprint());
+                })[0]) {
+            // SUCCESS_NO_INFO is counted as inserted
+            inserted += count == 0 ? 0 : 1;
+        }
+        return inserted;
+    }
+
+    /**
+     * Moves the run's checkpoint forward to {@code lastEmployeeId} and adds the chunk
+     * totals; never moves it backwards.
+     */
+    public int advanceCheckpoint(long runId, long lastEmployeeId, long employees, long rows, long chunks) {
+        return jdbcTemplate.update(
+                "UPDATE payroll_run SET last_employee_id = ?, employees_processed = employees_processed + ?, "
+                        + "rows_written = rows_written + ?, chunks_completed = chunks_completed + ? "
+                        + "WHERE id = ? AND last_employee_id < ?",
+                lastEmployeeId, employees, rows, chunks, runId, lastEmployeeId);
+    }
+
+    /**
+     * Queues the existing payrolls of {@code employeeIds} for {@code salaryMonth} for
+     * recalculation, one INSERT ... SELECT per few hundred employees. Employees without a
+     * payroll that month are skipped: the monthly run will read their current data anyway.
+     *
+     * @return rows inserted or bumped, as reported by the driver
+     */
+    public int markDirty(LocalDate salaryMonth, Collection<Long> employeeIds) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        int marked = 0;
+        for (List<Long> slice : slices(new ArrayList<>(employeeIds))) {
+            marked += jdbcTemplate.update(
+                    "INSERT INTO payroll_recalc_queue (employee_id, salary_month, dirty_version, queued_at) "
+                            + "SELECT employee_id, salary_month, 1, ? FROM payroll WHERE salary_month = ? AND "
+                            + inList("employee_id", slice.size())
+                            + " ON DUPLICATE KEY UPDATE dirty_version = dirty_version + 1",
+                    arguments(slice, now, Date.valueOf(salaryMonth)));
+        }
+        return marked;
+    }
+
+    /**
+     * Queues every existing payroll of {@code salaryMonth} for recalculation, e.g. after the
+     * month's working days changed.
+     *
+     * @return rows inserted or bumped, as reported by the driver
+     */
+    public int markMonthDirty(LocalDate salaryMonth) {
+        return jdbcTemplate.update(
+                "INSERT INTO payroll_recalc_queue (employee_id, salary_month, dirty_version, queued_at) "
+                        + "SELECT employee_id, salary_month, 1, ? FROM payroll WHERE salary_month = ?"
+                        + " ON DUPLICATE KEY UPDATE dirty_version = dirty_version + 1",
+                Timestamp.valueOf(LocalDateTime.now()), Date.valueOf(salaryMonth));
+    }
+
+    // Oldest entries first
+    public List<QueuedRecalc> findQueued(int limit) {
+        return jdbcTemplate.query(
+                "SELECT id, employee_id, salary_month, dirty_version FROM payroll_recalc_queue ORDER BY id LIMIT ?",
+                (rs, rowNum) -> new QueuedRecalc(rs.getLong(1), rs.getLong(2), rs.getDate(3).toLocalDate(), rs.getLong(4)),
+                limit);
+    }
+
+    /**
+     * Removes recomputed entries, except those marked again since they were read; those
+     * stay queued for the next pass.
+     */
+    public void dequeue(List<QueuedRecalc> entries) {
+        if (entries.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate("DELETE FROM payroll_recalc_queue WHERE id = ? AND dirty_version = ?",
+                entries, entries.size(),
+                (ps, entry) -> {
+                    ps.setLong(1, entry.id());
+                    ps.setLong(2, entry.dirtyVersion());
+                });
+    }
+
+    // A few hundred ids per statement, so no IN list outgrows the driver's packet or the optimizer
+    private static List<List<Long>> slices(List<Long> ids) {
+        List<List<Long>> slices = new ArrayList<>();
+        for (int from = 0; from < ids.size(); from += IDS_PER_STATEMENT) {
+            slices.add(ids.subList(from, Math.min(from + IDS_PER_STATEMENT, ids.size())));
+        }
+        return slices;
+    }
+
+    // One null slice, meaning "no id filter", when there are no ids to filter by
+    private static List<List<Long>> slicesOrAll(List<Long> onlyIds) {
+        return onlyIds == null ? Collections.singletonList(null) : slices(onlyIds);
+    }
+
+    private static String inList(String column, int size) {
+        return column + " IN (" + String.join(", ", Collections.nCopies(size, "?")) + ")";
+    }
+
+    private static Object[] arguments(List<Long> ids, Object... leading) {
+        List<Object> args = new ArrayList<>(List.of(leading));
+        if (ids != null) {
+            args.addAll(ids);
+        }
+        return args.toArray();
+    }
+}
@@ -5,9 +5,11 @@ import com.ems.backend.entity.Payroll;
 import org.springframework.data.jpa.repository.JpaRepository;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 
 public interface PayrollRepository extends JpaRepository<Payroll, Long> {
     List<Payroll> findByEmployeeId(Long employeeId);
     List<Payroll> findBySalaryMonth(LocalDate month);
+    List<Payroll> findBySalaryMonthAndEmployeeIdIn(LocalDate month, Collection<Long> employeeIds);
 }
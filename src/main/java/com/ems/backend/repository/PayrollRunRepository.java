@@ -0,0 +1,11 @@
+package com.ems.backend.repository;
+
+import com.ems.backend.entity.PayrollRun;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.time.LocalDate;
+import java.util.Optional;
+
+public interface PayrollRunRepository extends JpaRepository<PayrollRun, Long> {
+    Optional<PayrollRun> findBySalaryMonth(LocalDate salaryMonth);
+}
@@ -1,13 +1,32 @@
 // src/main/java/com/ems/backend/repository/UserRepository.java
 package com.ems.backend.repository;
 
+import com.ems.backend.entity.Role;
 import com.ems.backend.entity.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDate;
+import java.util.List;
 import java.util.Optional;
 
 public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByUsername(String username);
     boolean existsByUsername(String username);
-    Optional<User> findByResetToken(String resetToken); // ✅ New method
-}
\ No newline at end of file
+    boolean existsByRoleAndDepartmentAndActiveTrueAndApprovedTrue(Role role, String department);
+
+    // Only replaces the hash it was computed from, so a concurrent password reset wins
+    @Modifying
+    @Transactional
+    @Query("UPDATE User u SET u.password = :newHash WHERE u.id = :id AND u.password = :oldHash")
+    int updatePasswordHash(@Param("id") Long id, @Param("oldHash") String oldHash, @Param("newHash") String newHash);
+
+    // Employees expected at work on the date; ids only, for set arithmetic
+    @Query("SELECT u.id FROM User u WHERE u.active = true AND u.approved = true "
+            + "AND u.role <> com.ems.backend.entity.Role.ADMIN "
+            + "AND (u.dateOfJoining IS NULL OR u.dateOfJoining <= :date)")
+    List<Long> findExpectedEmployeeIds(@Param("date") LocalDate date);
+}
@@ -0,0 +1,105 @@
+package com.ems.backend.service;
+
+import com.ems.backend.dto.AttendanceHistoryPage;
+import com.ems.backend.entity.Attendance;
+import com.ems.backend.repository.AttendanceRepository;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+
+/**
+ * Keyset-paginated reads over the attendance table. Pages are addressed by the
+ * {@code (date, id)} of the last row returned, so every page is an index seek regardless
+ * of how deep into the history the caller is.
+ */
+@Service
+public class AttendanceHistoryService {
+
+    public static final int DEFAULT_PAGE_SIZE = 31;
+    public static final int MAX_PAGE_SIZE = 200;
+    private static final int EXPORT_CHUNK_SIZE = 1000;
+    private static final LocalDate EARLIEST = LocalDate.of(1970, 1, 1);
+
+    private final AttendanceRepository attendanceRepository;
+
+    public AttendanceHistoryService(AttendanceRepository attendanceRepository) {
+        this.attendanceRepository = attendanceRepository;
+    }
+
+    /**
+     * One page of an employee's history, newest first. {@code cursor} is the
+     * {@code nextCursor} of the previous page, or {@code null} for the first page.
+     */
+    public AttendanceHistoryPage getHistoryPage(Long employeeId, LocalDate from, LocalDate to,
+                                                String cursor, Integer size) {
+        LocalDate rangeTo = to != null ? to : LocalDate.now();
+        LocalDate rangeFrom = from != null ? from : EARLIEST;
+        if (rangeFrom.isAfter(rangeTo)) {
+            throw new IllegalArgumentException("'from' must not be after 'to'");
+        }
+        int pageSize = size == null ? DEFAULT_PAGE_SIZE : Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+
+        LocalDate beforeDate;
+        long beforeId;
+        if (cursor == null || cursor.isBlank()) {
+            // everything up to and including 'to'
+            beforeDate = rangeTo.plusDays(1);
+            beforeId = Long.MAX_VALUE;
+        } else {
+            int sep = cursor.lastIndexOf('_');
+            try {
+                beforeDate = LocalDate.parse(cursor.substring(0, sep));
+                beforeId = Long.parseLong(cursor.substring(sep + 1));
+            } catch (DateTimeParseException | NumberFormatException | IndexOutOfBoundsException e) {
+                throw new IllegalArgumentException("Invalid cursor: " + cursor);
+            }
+        }
+
+        // fetch one extra row to learn whether another page exists without a COUNT
+        List<Attendance> rows = attendanceRepository.findHistoryPage(employeeId, rangeFrom, rangeTo,
+                beforeDate, beforeId, PageRequest.of(0, pageSize + 1));
+        String nextCursor = null;
+        if (rows.size() > pageSize) {
+            rows = rows.subList(0, pageSize);
+            Attendance last = rows.get(pageSize - 1);
+            nextCursor = last.getDate() + "_" + last.getId();
+        }
+        return new AttendanceHistoryPage(List.copyOf(rows), nextCursor);
+    }
+
+    /**
+     * Writes every attendance row in {@code [from, to]} as CSV, walking the range in
+     * fixed-size keyset chunks so memory use does not depend on the size of the range.
+     */
+    public void exportCsv(LocalDate from, LocalDate to, OutputStream out) throws IOException {
+        Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+        writer.write("id,employee_id,date,check_in,check_out\n");
+
+        LocalDate afterDate = from.minusDays(1);
+        long afterId = 0L;
+        while (true) {
+            List<Attendance> chunk = attendanceRepository.findRangeChunk(from, to, afterDate, afterId,
+                    PageRequest.of(0, EXPORT_CHUNK_SIZE));
+            for (Attendance a : chunk) {
+                writer.write(a.getId() + "," + a.getEmployeeId() + "," + a.getDate() + ","
+                        + (a.getCheckIn() != null ? a.getCheckIn() : "") + ","
+                        + (a.getCheckOut() != null ? a.getCheckOut() : "") + "\n");
+            }
+            writer.flush();
+            if (chunk.size() < EXPORT_CHUNK_SIZE) {
+                return;
+            }
+            Attendance last = chunk.get(chunk.size() - 1);
+            afterDate = last.getDate();
+            afterId = last.getId();
+        }
+    }
+}
@@ -0,0 +1,327 @@
+package com.ems.backend.service;
+
+import com.ems.backend.dto.AttendanceImportReport;
+import com.ems.backend.entity.Attendance;
+import com.ems.backend.repository.AttendanceJdbcRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bulk import of punch dumps from the turnstile / biometric system.
+ *
+ * <p>Input is CSV with one punch per line: {@code employee_id,timestamp[,...]}, where the
+ * timestamp is ISO ({@code 2025-09-01T08:55:00}) or {@code 2025-09-01 08:55:00}; a header
+ * line and extra columns are ignored. The file is read once, line by line. Each line is
+ * routed by employee id to one of a fixed number of partitions, each drained by its own
+ * virtual thread, so every employee's punches are merged by exactly one thread into
+ * first-in/last-out days without any shared state. Each partition then upserts its days
+ * in JDBC batches. Lines that cannot be parsed are written to an error file.</p>
+ */
+@Service
+public class AttendanceImportService {
+
+    private static final int LINES_PER_HANDOFF = 1_000;
+    private static final int WRITE_BATCH_SIZE = 1_000;
+    private static final int WRITE_ATTEMPTS = 3;
+    private static final long HANDOFF_POLL_MILLIS = 200;
+    private static final List<RawLine> END_OF_INPUT = List.of();
+
+    private record RawLine(long lineNumber, long employeeId, String text, int comma) {
+    }
+
+    private record DayKey(long employeeId, LocalDate date) {
+    }
+
+    private final AttendanceJdbcRepository attendanceJdbcRepository;
+    private final PayrollRecalcService payrollRecalcService;
+    private final int partitions;
+    private final Path errorDir;
+
+    public AttendanceImportService(AttendanceJdbcRepository attendanceJdbcRepository,
+                                   PayrollRecalcService payrollRecalcService,
+                                   @Value("${ems.attendance.import.partitions:0}") int partitions,
+                                   @Value("${ems.attendance.import.error-dir:${java.io.tmpdir}}") String errorDir) {
+        this.attendanceJdbcRepository = attendanceJdbcRepository;
+        this.payrollRecalcService = payrollRecalcService;
+        this.partitions = partitions > 0 ? partitions : Runtime.getRuntime().availableProcessors();
+        this.errorDir = Path.of(errorDir);
+    }
+
+    public AttendanceImportReport importCsv(InputStream in) throws IOException {
+        long start = System.nanoTime();
+        Map<YearMonth, Set<Long>> monthsTouched = new ConcurrentHashMap<>();
+        List<Partition> parts = new ArrayList<>(partitions);
+        long linesRead = 0;
+
+        try (ErrorSink errors = new ErrorSink(errorDir);
+             ExecutorService pool = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<?>> workers = new ArrayList<>(partitions);
+            for (int i = 0; i < partitions; i++) {
+                Partition partition = new Partition(errors, monthsTouched);
+                parts.add(partition);
+                workers.add(pool.submit(partition::run));
+            }
+
+            List<List<RawLine>> buffers = new ArrayList<>(partitions);
+            for (int i = 0; i < partitions; i++) {
+                buffers.add(new ArrayList<>(LINES_PER_HANDOFF));
+            }
+            boolean handedOff = false;
+            try {
+                BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    linesRead++;
+                    if (line.isBlank()) {
+                        continue;
+                    }
+                    int comma = line.indexOf(',');
+                    long employeeId;
+                    try {
+                        employeeId = Long.parseLong(line.substring(0, comma < 0 ? line.length() : comma).trim());
+                    } catch (NumberFormatException e) {
+                        if (linesRead > 1) {
+                            errors.reject(linesRead, line, "invalid employee id");
+                        }
+                        continue; // otherwise a header line
+                    }
+                    if (comma < 0) {
+                        errors.reject(linesRead, line, "missing timestamp");
+                        continue;
+                    }
+                    int p = (int) Math.floorMod(employeeId, (long) partitions);
+                    List<RawLine> buffer = buffers.get(p);
+                    buffer.add(new RawLine(linesRead, employeeId, line, comma));
+                    if (buffer.size() == LINES_PER_HANDOFF) {
+                        handOff(parts.get(p), workers.get(p), buffer);
+                        buffers.set(p, new ArrayList<>(LINES_PER_HANDOFF));
+                    }
+                }
+                for (int p = 0; p < partitions; p++) {
+                    if (!buffers.get(p).isEmpty()) {
+                        handOff(parts.get(p), workers.get(p), buffers.get(p));
+                    }
+                    handOff(parts.get(p), workers.get(p), END_OF_INPUT);
+                }
+                handedOff = true;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Attendance import interrupted", e);
+            } finally {
+                // reading failed part-way or a partition died: stop the rest rather than
+                // let them write a partial import
+                if (!handedOff) {
+                    workers.forEach(worker -> worker.cancel(true));
+                }
+            }
+
+            for (Future<?> worker : workers) {
+                try {
+                    worker.get();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Attendance import interrupted", e);
+                } catch (ExecutionException e) {
+                    throw new RuntimeException("Attendance import failed: " + e.getCause().getMessage(), e.getCause());
+                }
+            }
+
+            // imported days bypass the per-event rules and check-out rollup, so re-derive the affected months
+            monthsTouched.keySet().stream().sorted().forEach(month -> {
+                attendanceJdbcRepository.applyRules(month.atDay(1), month.atEndOfMonth());
+                attendanceJdbcRepository.rebuildMonthlySummary(month);
+            });
+            // an imported punch can turn a recorded absence into a worked day
+            payrollRecalcService.markAttendanceChanged(monthsTouched);
+
+            long elapsedMillis = Math.max(1, (System.nanoTime() - start) / 1_000_000);
+            long punchesAccepted = parts.stream().mapToLong(p -> p.punchesAccepted).sum();
+            AttendanceImportReport report = AttendanceImportReport.builder()
+                    .linesRead(linesRead)
+                    .punchesAccepted(punchesAccepted)
+                    .linesRejected(errors.count.get())
+                    .rowsWritten(parts.stream().mapToLong(p -> p.rowsWritten).sum())
+                    .elapsedMillis(elapsedMillis)
+                    .rowsPerSecond(punchesAccepted * 1000 / elapsedMillis)
+                    .errorFile(errors.file == null ? null : errors.file.toString())
+                    .build();
+            System.out.println("Attendance import: " + report);
+            return report;
+        }
+    }
+
+    /**
+     * Puts lines on a partition's bounded queue, waiting while it is full but giving up
+     * once its worker has stopped, since nothing would ever drain the queue again.
+     */
+    private static void handOff(Partition partition, Future<?> worker, List<RawLine> lines) throws InterruptedException {
+        while (!partition.queue.offer(lines, HANDOFF_POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+            if (worker.isDone()) {
+                try {
+                    worker.get();
+                } catch (ExecutionException e) {
+                    throw new RuntimeException("Attendance import failed: " + e.getCause().getMessage(), e.getCause());
+                } catch (CancellationException e) {
+                    // reported below
+                }
+                throw new IllegalStateException("Attendance import partition stopped before the end of input");
+            }
+        }
+    }
+
+    /**
+     * Owns every employee routed to it, so merging needs no synchronisation.
+     */
+    private final class Partition {
+        // bounded so a fast reader cannot buffer the whole file ahead of a slow partition
+        private final BlockingQueue<List<RawLine>> queue = new ArrayBlockingQueue<>(8);
+        private final Map<DayKey, LocalDateTime[]> days = new HashMap<>();
+        private final ErrorSink errors;
+        private final Map<YearMonth, Set<Long>> monthsTouched;
+        private long punchesAccepted;
+        private long rowsWritten;
+
+        Partition(ErrorSink errors, Map<YearMonth, Set<Long>> monthsTouched) {
+            this.errors = errors;
+            this.monthsTouched = monthsTouched;
+        }
+
+        void run() {
+            try {
+                for (List<RawLine> lines = queue.take(); lines != END_OF_INPUT; lines = queue.take()) {
+                    for (RawLine line : lines) {
+                        merge(line);
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Attendance import interrupted", e);
+            }
+            write();
+        }
+
+        private void merge(RawLine line) {
+            String text = line.text();
+            int end = text.indexOf(',', line.comma() + 1);
+            String raw = text.substring(line.comma() + 1, end < 0 ? text.length() : end).trim();
+            LocalDateTime punch;
+            try {
+                punch = LocalDateTime.parse(raw.replace(' ', 'T'), DateTimeFormatter.ISO_LOCAL_DATE_TIME);
+            } catch (DateTimeParseException e) {
+                errors.reject(line.lineNumber(), text, "invalid timestamp");
+                return;
+            }
+            punchesAccepted++;
+            LocalDateTime[] span = days.computeIfAbsent(new DayKey(line.employeeId(), punch.toLocalDate()),
+                    k -> new LocalDateTime[]{punch, punch});
+            if (punch.isBefore(span[0])) {
+                span[0] = punch;
+            }
+            if (punch.isAfter(span[1])) {
+                span[1] = punch;
+            }
+        }
+
+        private void write() {
+            List<Attendance> rows = new ArrayList<>(days.size());
+            days.forEach((key, span) -> rows.add(Attendance.builder()
+                    .employeeId(key.employeeId())
+                    .date(key.date())
+                    .checkIn(span[0])
+                    // a single punch is a check-in only
+                    .checkOut(span[1].isAfter(span[0]) ? span[1] : null)
+                    .build()));
+            days.clear();
+            // key order keeps concurrent partitions' lock acquisition on the unique index predictable
+            rows.sort(Comparator.comparing(Attendance::getEmployeeId).thenComparing(Attendance::getDate));
+
+            for (int from = 0; from < rows.size(); from += WRITE_BATCH_SIZE) {
+                List<Attendance> batch = rows.subList(from, Math.min(from + WRITE_BATCH_SIZE, rows.size()));
+                for (int attempt = 1; ; attempt++) {
+                    try {
+                        rowsWritten += attendanceJdbcRepository.batchUpsertImportedDays(batch);
+                        break;
+                    } catch (PessimisticLockingFailureException e) {
+                        // the upsert is idempotent (LEAST/GREATEST), so a deadlock victim can simply retry
+                        if (attempt >= WRITE_ATTEMPTS) {
+                            throw e;
+                        }
+                    }
+                }
+                for (Attendance row : batch) {
+                    monthsTouched.computeIfAbsent(YearMonth.from(row.getDate()), month -> ConcurrentHashMap.newKeySet())
+                            .add(row.getEmployeeId());
+                }
+            }
+        }
+    }
+
+    /**
+     * Rejected lines as {@code line_number,reason,original_line}; the file is only created
+     * once the first line is rejected.
+     */
+    private static final class ErrorSink implements AutoCloseable {
+        private final Path dir;
+        private final AtomicLong count = new AtomicLong();
+        private Path file;
+        private BufferedWriter writer;
+
+        ErrorSink(Path dir) {
+            this.dir = dir;
+        }
+
+        synchronized void reject(long lineNumber, String line, String reason) {
+            count.incrementAndGet();
+            try {
+                if (writer == null) {
+                    Files.createDirectories(dir);
+                    file = dir.resolve("attendance-import-errors-" + UUID.randomUUID() + ".csv");
+                    writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8);
+                    writer.write("line_number,reason,line\n");
+                }
+                writer.write(lineNumber + "," + reason + "," + line + "\n");
+            } catch (IOException e) {
+                System.err.println("Could not record rejected import line " + lineNumber + ": " + e.getMessage());
+            }
+        }
+
+        @Override
+        public synchronized void close() throws IOException {
+            if (writer != null) {
+                writer.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,318 @@
+package com.ems.backend.service;
+
+import com.ems.backend.dto.AttendanceEvent;
+import com.ems.backend.dto.AttendanceEventsDropped;
+import com.ems.backend.entity.Attendance;
+import com.ems.backend.repository.AttendanceJdbcRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Write-behind recorder for check-ins and check-outs.
+ *
+ * <p>An in-memory index of today's attendance answers "already checked in / out?" without
+ * a SELECT, and accepted events go onto a bounded queue. A single writer thread drains the
+ * queue and writes each drained slice as one JDBC batch of inserts followed by one batch
+ * of updates. The queue is drained completely on shutdown.</p>
+ *
+ * <p>A batch that fails to write is held and retried with exponential backoff; meanwhile
+ * the queue fills and request threads fall back to direct writes. If the batch still fails
+ * after the configured attempts, its events are taken back out of the index and an
+ * {@link AttendanceEventsDropped} is published, so the next request for those employees
+ * is written again rather than answered from a cache that the table never saw.</p>
+ *
+ * <p>Every accepted event is also published as an application event, so in-memory views
+ * such as {@link PresenceTracker} follow along without reading the table.</p>
+ */
+@Service
+public class AttendanceRecorder {
+
+    public enum Result {
+        RECORDED,
+        ALREADY_CHECKED_IN,
+        NOT_CHECKED_IN,
+        ALREADY_CHECKED_OUT
+    }
+
+    private static final class DayState {
+        private final LocalDateTime checkIn;
+        private final AtomicReference<LocalDateTime> checkOut;
+
+        DayState(LocalDateTime checkIn, LocalDateTime checkOut) {
+            this.checkIn = checkIn;
+            this.checkOut = new AtomicReference<>(checkOut);
+        }
+    }
+
+    private final AttendanceJdbcRepository attendanceJdbcRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int batchSize;
+    private final long flushIntervalMillis;
+    private final int maxAttempts;
+    private final long retryBackoffMillis;
+    private final BlockingQueue<AttendanceEvent> queue;
+
+    private volatile LocalDate indexDate;
+    private volatile Map<Long, DayState> todayIndex = new ConcurrentHashMap<>();
+
+    private volatile boolean running;
+    private Thread writer;
+
+    private final AtomicLong eventsFlushed = new AtomicLong();
+    private final AtomicLong batchesFlushed = new AtomicLong();
+    private final AtomicLong flushFailures = new AtomicLong();
+    private final AtomicLong eventsDropped = new AtomicLong();
+
+    public AttendanceRecorder(AttendanceJdbcRepository attendanceJdbcRepository,
+                              ApplicationEventPublisher eventPublisher,
+                              @Value("${ems.attendance.recorder.queue-capacity:10000}") int queueCapacity,
+                              @Value("${ems.attendance.recorder.batch-size:500}") int batchSize,
+                              @Value("${ems.attendance.recorder.flush-interval-ms:200}") long flushIntervalMillis,
+                              @Value("${ems.attendance.recorder.max-attempts:8}") int maxAttempts,
+                              @Value("${ems.attendance.recorder.retry-backoff-ms:200}") long retryBackoffMillis) {
+        this.attendanceJdbcRepository = attendanceJdbcRepository;
+        this.eventPublisher = eventPublisher;
+        this.batchSize = batchSize;
+        this.flushIntervalMillis = flushIntervalMillis;
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.retryBackoffMillis = retryBackoffMillis;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+    }
+
+    @PostConstruct
+    public void start() {
+        indexFor(LocalDate.now());
+        running = true;
+        writer = new Thread(this::writeLoop, "attendance-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    public Result checkIn(Long employeeId) {
+        LocalDateTime now = LocalDateTime.now();
+        Map<Long, DayState> index = indexFor(now.toLocalDate());
+        DayState state = new DayState(now, null);
+        if (index.putIfAbsent(employeeId, state) != null) {
+            return Result.ALREADY_CHECKED_IN;
+        }
+        AttendanceEvent event = new AttendanceEvent(AttendanceEvent.Type.CHECK_IN, employeeId, now.toLocalDate(), now);
+        boolean written;
+        try {
+            written = enqueue(event, null);
+        } catch (RuntimeException e) {
+            index.remove(employeeId, state); // nothing was written, so the next check-in must try again
+            throw e;
+        }
+        if (!written) {
+            return Result.ALREADY_CHECKED_IN; // another instance wrote today's row first
+        }
+        eventPublisher.publishEvent(event);
+        return Result.RECORDED;
+    }
+
+    public Result checkOut(Long employeeId) {
+        LocalDateTime now = LocalDateTime.now();
+        Map<Long, DayState> index = indexFor(now.toLocalDate());
+        DayState state = index.get(employeeId);
+        if (state == null) {
+            // not seen by this instance today; the conditional UPDATE is the authority
+            if (attendanceJdbcRepository.updateCheckOutIfOpen(employeeId, now.toLocalDate(), now)) {
+                index.putIfAbsent(employeeId, new DayState(null, now));
+                eventPublisher.publishEvent(new AttendanceEvent(AttendanceEvent.Type.CHECK_OUT, employeeId, now.toLocalDate(), now));
+                return Result.RECORDED;
+            }
+            return Result.NOT_CHECKED_IN;
+        }
+        if (!state.checkOut.compareAndSet(null, now)) {
+            return Result.ALREADY_CHECKED_OUT;
+        }
+        AttendanceEvent event = new AttendanceEvent(AttendanceEvent.Type.CHECK_OUT, employeeId, now.toLocalDate(), now);
+        boolean written;
+        try {
+            written = enqueue(event, state.checkIn);
+        } catch (RuntimeException e) {
+            state.checkOut.compareAndSet(now, null);
+            throw e;
+        }
+        if (!written) {
+            return Result.ALREADY_CHECKED_OUT; // closed by another instance
+        }
+        eventPublisher.publishEvent(event);
+        return Result.RECORDED;
+    }
+
+    public int getQueuedCount() {
+        return queue.size();
+    }
+
+    public long getEventsFlushed() {
+        return eventsFlushed.get();
+    }
+
+    public long getBatchesFlushed() {
+        return batchesFlushed.get();
+    }
+
+    public long getFlushFailures() {
+        return flushFailures.get();
+    }
+
+    public long getEventsDropped() {
+        return eventsDropped.get();
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        running = false;
+        if (writer != null) {
+            writer.join(TimeUnit.SECONDS.toMillis(30));
+        }
+        // anything still queued (e.g. the writer timed out) is written on this thread
+        List<AttendanceEvent> remaining = new ArrayList<>();
+        queue.drainTo(remaining);
+        if (!remaining.isEmpty() && !flush(remaining)) {
+            drop(remaining);
+        }
+    }
+
+    private Map<Long, DayState> indexFor(LocalDate date) {
+        if (date.equals(indexDate)) {
+            return todayIndex;
+        }
+        synchronized (this) {
+            if (!date.equals(indexDate)) {
+                Map<Long, DayState> index = new ConcurrentHashMap<>();
+                for (Attendance a : attendanceJdbcRepository.findAllByDate(date)) {
+                    index.put(a.getEmployeeId(), new DayState(a.getCheckIn(), a.getCheckOut()));
+                }
+                todayIndex = index;
+                indexDate = date;
+            }
+            return todayIndex;
+        }
+    }
+
+    /**
+     * Queues the event, or writes it directly if the queue stays full. A direct write throws
+     * if it fails, and returns {@code false} if the row was already in the state the event
+     * would put it in; listeners are only told about the event once it is queued or written.
+     *
+     * @param checkIn for a check-out, the check-in it closes, which may still be queued
+     */
+    private boolean enqueue(AttendanceEvent event, LocalDateTime checkIn) {
+        try {
+            if (queue.offer(event, flushIntervalMillis * 5, TimeUnit.MILLISECONDS)) {
+                return true;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // queue saturated: write this event directly with a single statement rather than drop it
+        if (event.getType() == AttendanceEvent.Type.CHECK_IN) {
+            return attendanceJdbcRepository.insertCheckInIfAbsent(event.getEmployeeId(), event.getDate(), event.getTime());
+        }
+        // the check-in may still be waiting in the queue; write it first (the insert is a no-op
+        // once the row exists) so the UPDATE has a row to close
+        if (checkIn != null) {
+            attendanceJdbcRepository.insertCheckInIfAbsent(event.getEmployeeId(), event.getDate(), checkIn);
+        }
+        return attendanceJdbcRepository.updateCheckOutIfOpen(event.getEmployeeId(), event.getDate(), event.getTime());
+    }
+
+    private void writeLoop() {
+        List<AttendanceEvent> batch = new ArrayList<>(batchSize);
+        int attempts = 0;
+        while (running || !queue.isEmpty() || !batch.isEmpty()) {
+            try {
+                if (batch.isEmpty()) {
+                    AttendanceEvent first = queue.poll(flushIntervalMillis, TimeUnit.MILLISECONDS);
+                    if (first == null) {
+                        continue;
+                    }
+                    batch.add(first);
+                    queue.drainTo(batch, batchSize - 1);
+                }
+                // a failed batch is retried before anything newer, so a check-out never
+                // overtakes the check-in it closes
+                if (flush(batch)) {
+                    batch.clear();
+                    attempts = 0;
+                } else if (++attempts >= maxAttempts) {
+                    drop(batch);
+                    batch.clear();
+                    attempts = 0;
+                } else {
+                    Thread.sleep(Math.min(retryBackoffMillis << Math.min(attempts - 1, 5), 5_000));
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                if (!batch.isEmpty()) {
+                    drop(batch);
+                }
+                return;
+            }
+        }
+    }
+
+    private boolean flush(List<AttendanceEvent> events) {
+        List<AttendanceEvent> checkIns = new ArrayList<>();
+        List<AttendanceEvent> checkOuts = new ArrayList<>();
+        for (AttendanceEvent event : events) {
+            (event.getType() == AttendanceEvent.Type.CHECK_IN ? checkIns : checkOuts).add(event);
+        }
+
+        try {
+            // inserts first, so a check-in and check-out drained together land in order;
+            // both statements are idempotent, so a retried batch may safely repeat either
+            attendanceJdbcRepository.batchInsertCheckIns(checkIns);
+            attendanceJdbcRepository.batchUpdateCheckOuts(checkOuts);
+            eventsFlushed.addAndGet(events.size());
+            batchesFlushed.incrementAndGet();
+            return true;
+        } catch (RuntimeException e) {
+            flushFailures.incrementAndGet();
+            System.err.println("Failed to write " + events.size() + " attendance events: " + e.getMessage());
+            return false;
+        }
+    }
+
+    // Undo what checkIn/checkOut put in the index for events that never reached the table
+    private void drop(List<AttendanceEvent> events) {
+        System.err.println("Giving up on " + events.size() + " attendance events after " + maxAttempts
+                + " attempts; they will be written again on the next request");
+        Map<Long, DayState> index = todayIndex;
+        for (AttendanceEvent event : events) {
+            if (!event.getDate().equals(indexDate)) {
+                continue;
+            }
+            DayState state = index.get(event.getEmployeeId());
+            if (state == null) {
+                continue;
+            }
+            if (event.getType() == AttendanceEvent.Type.CHECK_IN) {
+                if (event.getTime().equals(state.checkIn)) {
+                    index.remove(event.getEmployeeId(), state);
+                }
+            } else {
+                state.checkOut.compareAndSet(event.getTime(), null);
+            }
+        }
+        eventPublisher.publishEvent(new AttendanceEventsDropped(List.copyOf(events)));
+        eventsDropped.addAndGet(events.size());
+    }
+}
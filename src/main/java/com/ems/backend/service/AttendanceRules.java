@@ -0,0 +1,52 @@
+package com.ems.backend.service;
+
+import com.ems.backend.entity.AttendanceStatus;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+
+/**
+ * Shift policy used to derive per-day metrics at write time. Times are compared at
+ * minute precision, matching the SQL form used for set-based re-evaluation
+ * ({@code HOUR(check_in) * 60 + MINUTE(check_in)}), so both paths agree.
+ */
+@Component
+public class AttendanceRules {
+
+    private final int shiftStartMinute;
+    private final int graceMinutes;
+    private final int overtimeThresholdMinutes;
+
+    public AttendanceRules(@Value("${ems.attendance.shift-start:09:00}") String shiftStart,
+                           @Value("${ems.attendance.grace-minutes:10}") int graceMinutes,
+                           @Value("${ems.attendance.overtime-threshold-minutes:540}") int overtimeThresholdMinutes) {
+        LocalTime start = LocalTime.parse(shiftStart);
+        this.shiftStartMinute = start.getHour() * 60 + start.getMinute();
+        this.graceMinutes = graceMinutes;
+        this.overtimeThresholdMinutes = overtimeThresholdMinutes;
+    }
+
+    // Minutes past shift start, or 0 when the check-in falls within the grace period
+    public int lateMinutes(LocalDateTime checkIn) {
+        int late = checkIn.getHour() * 60 + checkIn.getMinute() - shiftStartMinute;
+        return late > graceMinutes ? late : 0;
+    }
+
+    public AttendanceStatus statusFor(LocalDateTime checkIn) {
+        return lateMinutes(checkIn) > 0 ? AttendanceStatus.LATE : AttendanceStatus.PRESENT;
+    }
+
+    public int getShiftStartMinute() {
+        return shiftStartMinute;
+    }
+
+    public int getGraceMinutes() {
+        return graceMinutes;
+    }
+
+    public int getOvertimeThresholdMinutes() {
+        return overtimeThresholdMinutes;
+    }
+}
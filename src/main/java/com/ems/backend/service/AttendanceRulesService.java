@@ -0,0 +1,97 @@
+package com.ems.backend.service;
+
+import com.ems.backend.repository.AttendanceJdbcRepository;
+import com.ems.backend.repository.LeaveRequestRepository;
+import com.ems.backend.repository.UserRepository;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Batch side of the attendance rules: the nightly absence pass and set-based
+ * re-evaluation of past days. Per-event evaluation happens in
+ * {@link AttendanceJdbcRepository} as each check-in / check-out is written.
+ */
+@Service
+public class AttendanceRulesService {
+
+    private final AttendanceJdbcRepository attendanceJdbcRepository;
+    private final UserRepository userRepository;
+    private final LeaveRequestRepository leaveRequestRepository;
+    private final WorkingDayCalendar workingDayCalendar;
+    private final PayrollRecalcService payrollRecalcService;
+
+    public AttendanceRulesService(AttendanceJdbcRepository attendanceJdbcRepository,
+                                  UserRepository userRepository,
+                                  LeaveRequestRepository leaveRequestRepository,
+                                  WorkingDayCalendar workingDayCalendar,
+                                  PayrollRecalcService payrollRecalcService) {
+        this.attendanceJdbcRepository = attendanceJdbcRepository;
+        this.userRepository = userRepository;
+        this.leaveRequestRepository = leaveRequestRepository;
+        this.workingDayCalendar = workingDayCalendar;
+        this.payrollRecalcService = payrollRecalcService;
+    }
+
+    /**
+     * Inserts an ABSENT row for every expected employee with no attendance row and no
+     * approved leave on {@code date}: three id queries, two bitmap differences and one
+     * batch insert, however many employees there are. Weekends and company holidays are
+     * skipped. Safe to rerun.
+     *
+     * @return number of absences recorded
+     */
+    public int markAbsences(LocalDate date) {
+        if (!date.isBefore(LocalDate.now())) {
+            throw new IllegalArgumentException("Absences can only be marked for past days");
+        }
+        if (!workingDayCalendar.isWorkingDay(date, null)) {
+            return 0;
+        }
+        BitSet absent = toBitSet(userRepository.findExpectedEmployeeIds(date));
+        absent.andNot(attendanceJdbcRepository.findEmployeeIdsWithRow(date));
+        absent.andNot(toBitSet(leaveRequestRepository.findEmployeeIdsOnApprovedLeave(date)));
+        List<Long> ids = absent.stream().mapToObj(id -> (long) id).toList();
+        int inserted = attendanceJdbcRepository.batchInsertAbsences(date, ids);
+        // a backfilled day can land in a month that has already been paid
+        payrollRecalcService.markAbsencesChanged(date, ids);
+        return inserted;
+    }
+
+    @Scheduled(cron = "${ems.attendance.absence-cron:0 15 0 * * *}")
+    public void markYesterdaysAbsences() {
+        LocalDate yesterday = LocalDate.now().minusDays(1);
+        try {
+            int absences = markAbsences(yesterday);
+            System.out.println("Marked " + absences + " absences for " + yesterday);
+        } catch (RuntimeException e) {
+            System.err.println("Absence pass for " + yesterday + " failed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Re-applies the current rules to every worked day in {@code [from, to]} and rebuilds
+     * the monthly summaries those days feed.
+     *
+     * @return number of attendance rows re-evaluated
+     */
+    public int reapplyRules(LocalDate from, LocalDate to) {
+        int rows = attendanceJdbcRepository.applyRules(from, to);
+        for (YearMonth month = YearMonth.from(from); !month.isAfter(YearMonth.from(to)); month = month.plusMonths(1)) {
+            attendanceJdbcRepository.rebuildMonthlySummary(month);
+        }
+        return rows;
+    }
+
+    private static BitSet toBitSet(List<Long> ids) {
+        BitSet bits = new BitSet();
+        for (Long id : ids) {
+            bits.set(Math.toIntExact(id));
+        }
+        return bits;
+    }
+}
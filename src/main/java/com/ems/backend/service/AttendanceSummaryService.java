@@ -0,0 +1,65 @@
+package com.ems.backend.service;
+
+import com.ems.backend.entity.AttendanceMonthlySummary;
+import com.ems.backend.repository.AttendanceJdbcRepository;
+import com.ems.backend.repository.AttendanceMonthlySummaryRepository;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.YearMonth;
+import java.util.List;
+
+/**
+ * Reads and maintains {@code attendance_monthly_summary}. Rows are kept current by the
+ * check-out write path in {@link AttendanceJdbcRepository}; this service only serves them
+ * and rebuilds whole months from the raw attendance rows when asked.
+ */
+@Service
+public class AttendanceSummaryService {
+
+    private final AttendanceMonthlySummaryRepository summaryRepository;
+    private final AttendanceJdbcRepository attendanceJdbcRepository;
+
+    public AttendanceSummaryService(AttendanceMonthlySummaryRepository summaryRepository,
+                                    AttendanceJdbcRepository attendanceJdbcRepository) {
+        this.summaryRepository = summaryRepository;
+        this.attendanceJdbcRepository = attendanceJdbcRepository;
+    }
+
+    public AttendanceMonthlySummary getSummary(Long employeeId, YearMonth month) {
+        return summaryRepository.findByEmployeeIdAndSummaryMonth(employeeId, month.atDay(1))
+                .orElseGet(() -> AttendanceMonthlySummary.builder()
+                        .employeeId(employeeId)
+                        .summaryMonth(month.atDay(1))
+                        .build());
+    }
+
+    public List<AttendanceMonthlySummary> getSummaries(YearMonth month) {
+        return summaryRepository.findBySummaryMonth(month.atDay(1));
+    }
+
+    /**
+     * Rebuilds every month in {@code [from, to]}, one transaction per month.
+     *
+     * @return total summary rows written
+     */
+    public int rebuild(YearMonth from, YearMonth to) {
+        int rows = 0;
+        for (YearMonth month = from; !month.isAfter(to); month = month.plusMonths(1)) {
+            rows += attendanceJdbcRepository.rebuildMonthlySummary(month);
+        }
+        return rows;
+    }
+
+    // Nightly safety net: re-derive the current and previous month so any drift is short-lived
+    @Scheduled(cron = "${ems.attendance.summary.rebuild-cron:0 30 2 * * *}")
+    public void rebuildRecentMonths() {
+        YearMonth current = YearMonth.now();
+        try {
+            int rows = rebuild(current.minusMonths(1), current);
+            System.out.println("Rebuilt attendance summaries for " + current.minusMonths(1) + ".." + current + ": " + rows + " rows");
+        } catch (RuntimeException e) {
+            System.err.println("Attendance summary rebuild failed: " + e.getMessage());
+        }
+    }
+}
@@ -2,7 +2,10 @@
 
 package com.ems.backend.service;
 
+import com.ems.backend.dto.LeaveDecisionNotice;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
 import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.mail.javamail.MimeMessageHelper;
 import org.springframework.stereotype.Service;
@@ -10,6 +13,9 @@ import jakarta.mail.MessagingException;
 import jakarta.mail.internet.MimeMessage;
 import org.springframework.scheduling.annotation.Async;
 
+import java.util.ArrayList;
+import java.util.List;
+
 @Service
 public class EmailService {
 
@@ -45,18 +51,40 @@ public class EmailService {
 
     @Async
     public void sendLeaveApprovalEmail(String toEmail, String name, String startDate, String endDate) throws MessagingException {
-        sendPlainEmail(toEmail,
-                "Leave Request Approved",
-                "Dear " + name + ",\n\nYour leave request from " + startDate + " to " + endDate +
-                        " has been approved.\n\nBest regards,\nThe EMS Team");
+        sendPlainEmail(toEmail, "Leave Request Approved", leaveApprovalBody(name, startDate, endDate));
     }
 
     @Async
     public void sendLeaveRejectionEmail(String toEmail, String name, String startDate, String endDate) throws MessagingException {
-        sendPlainEmail(toEmail,
-                "Leave Request Rejected",
-                "Dear " + name + ",\n\nWe regret to inform you that your leave request from " + startDate +
-                        " to " + endDate + " has been rejected.\n\nBest regards,\nThe EMS Team");
+        sendPlainEmail(toEmail, "Leave Request Rejected", leaveRejectionBody(name, startDate, endDate));
+    }
+
+    // ✅ Bulk approve/reject: all messages go out over one SMTP connection
+    @Async
+    public void sendLeaveDecisionEmails(List<LeaveDecisionNotice> notices) {
+        List<MimeMessage> messages = new ArrayList<>(notices.size());
+        for (LeaveDecisionNotice notice : notices) {
+            try {
+                messages.add(notice.isApproved()
+                        ? buildPlainEmail(notice.getToEmail(), "Leave Request Approved",
+                                leaveApprovalBody(notice.getName(), notice.getStartDate(), notice.getEndDate()))
+                        : buildPlainEmail(notice.getToEmail(), "Leave Request Rejected",
+                                leaveRejectionBody(notice.getName(), notice.getStartDate(), notice.getEndDate())));
+            } catch (MessagingException e) {
+                System.err.println("Failed to build leave decision email to " + notice.getToEmail());
+            }
+        }
+        if (messages.isEmpty()) {
+            return;
+        }
+        try {
+            mailSender.send(messages.toArray(new MimeMessage[0]));
+        } catch (MailSendException e) {
+            System.err.println("Failed to send " + e.getFailedMessages().size() + " of " + messages.size()
+                    + " leave decision emails.");
+        } catch (MailException e) {
+            System.err.println("Failed to send " + messages.size() + " leave decision emails: " + e.getMessage());
+        }
     }
 
     @Async
@@ -77,11 +105,25 @@ public class EmailService {
     }
 
     private void sendPlainEmail(String toEmail, String subject, String body) throws MessagingException {
+        mailSender.send(buildPlainEmail(toEmail, subject, body));
+    }
+
+    private MimeMessage buildPlainEmail(String toEmail, String subject, String body) throws MessagingException {
         MimeMessage message = mailSender.createMimeMessage();
         MimeMessageHelper helper = new MimeMessageHelper(message, false, "UTF-8");
         helper.setTo(toEmail);
         helper.setSubject(subject);
         helper.setText(body, false);
-        mailSender.send(message);
+        return message;
+    }
+
+    private static String leaveApprovalBody(String name, String startDate, String endDate) {
+        return "Dear " + name + ",\n\nYour leave request from " + startDate + " to " + endDate +
+                " has been approved.\n\nBest regards,\nThe EMS Team";
+    }
+
+    private static String leaveRejectionBody(String name, String startDate, String endDate) {
+        return "Dear " + name + ",\n\nWe regret to inform you that your leave request from " + startDate +
+                " to " + endDate + " has been rejected.\n\nBest regards,\nThe EMS Team";
     }
 }
\ No newline at end of file
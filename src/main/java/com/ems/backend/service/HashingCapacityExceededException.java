@@ -0,0 +1,12 @@
+package com.ems.backend.service;
+
+/**
+ * Thrown when the password hashing pool is saturated. Mapped to 503 with a
+ * Retry-After header so clients back off instead of tying up request threads.
+ */
+public class HashingCapacityExceededException extends RuntimeException {
+
+    public HashingCapacityExceededException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,228 @@
+package com.ems.backend.service;
+
+import com.ems.backend.dto.BulkLeaveDecisionResult;
+import com.ems.backend.dto.PendingApprovalItem;
+import com.ems.backend.entity.ApprovalStepStatus;
+import com.ems.backend.entity.LeaveApprovalStep;
+import com.ems.backend.entity.LeaveRequest;
+import com.ems.backend.entity.LeaveStatus;
+import com.ems.backend.entity.Role;
+import com.ems.backend.entity.User;
+import com.ems.backend.repository.LeaveApprovalStepRepository;
+import com.ems.backend.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Multi-level approval of leave requests. Each department has a chain of approvers,
+ * configured as {@code ems.leave.approval.chains=Engineering=MANAGER,DEPT:HR;Finance=MANAGER,ADMIN}
+ * with {@code ems.leave.approval.default-chain} for everyone else. A step is one of
+ * {@code MANAGER} (the managers of the employee's department), {@code DEPT:<name>} (the
+ * managers of that department, e.g. HR) or {@code ADMIN}.
+ *
+ * <p>Applying materialises the chain as {@link LeaveApprovalStep} rows with the first one
+ * PENDING; every decision is one conditional UPDATE on the current step, and the request
+ * itself only changes status when the last step approves or any step rejects. Admins may
+ * decide any step, and a step for a department that has no active manager is sent to
+ * them when the chain is opened. Requests from before chains existed have no steps and
+ * keep the old single approval by an admin or a manager of the employee's department.
+ * Nobody but an admin may decide their own request.</p>
+ */
+@Service
+public class LeaveApprovalService {
+
+    public static final String ADMIN_KEY = "ADMIN";
+    private static final String MANAGER_KEY_PREFIX = "MANAGER:";
+
+    public record StepResult(LeaveRequest leave, boolean completed) {
+    }
+
+    private final LeaveService leaveService;
+    private final LeaveApprovalStepRepository leaveApprovalStepRepository;
+    private final UserRepository userRepository;
+    private final List<String> defaultChain;
+    private final Map<String, List<String>> chainsByDepartment = new HashMap<>();
+
+    public LeaveApprovalService(LeaveService leaveService,
+                                LeaveApprovalStepRepository leaveApprovalStepRepository,
+                                UserRepository userRepository,
+                                @Value("${ems.leave.approval.default-chain:MANAGER}") String defaultChain,
+                                @Value("${ems.leave.approval.chains:}") String chains) {
+        this.leaveService = leaveService;
+        this.leaveApprovalStepRepository = leaveApprovalStepRepository;
+        this.userRepository = userRepository;
+        this.defaultChain = parseChain(defaultChain);
+        for (String entry : chains.split(";")) {
+            if (entry.isBlank()) {
+                continue;
+            }
+            int sep = entry.indexOf('=');
+            if (sep <= 0) {
+                throw new IllegalArgumentException("Invalid approval chain '" + entry + "'; expected <department>=<step>,<step>");
+            }
+            chainsByDepartment.put(entry.substring(0, sep).trim(), parseChain(entry.substring(sep + 1)));
+        }
+    }
+
+    /**
+     * Applies for leave and opens the approval chain of the employee's department in the
+     * same transaction.
+     */
+    @Transactional
+    public LeaveRequest applyLeave(User employee, LeaveRequest leave) {
+        LeaveRequest saved = leaveService.applyLeave(employee.getId(), leave);
+        List<String> chain = chainsByDepartment.getOrDefault(employee.getDepartment(), defaultChain);
+        List<LeaveApprovalStep> steps = new ArrayList<>(chain.size());
+        Map<String, String> resolved = new HashMap<>();
+        for (int i = 0; i < chain.size(); i++) {
+            steps.add(LeaveApprovalStep.builder()
+                    .leaveId(saved.getId())
+                    .stepOrder(i + 1)
+                    .approverKey(resolved.computeIfAbsent(approverKey(chain.get(i), employee.getDepartment()), this::staffed))
+                    .status(i == 0 ? ApprovalStepStatus.PENDING : ApprovalStepStatus.WAITING)
+                    .build());
+        }
+        leaveApprovalStepRepository.saveAll(steps);
+        return saved;
+    }
+
+    public List<PendingApprovalItem> getPendingApprovals(User approver) {
+        return leaveApprovalStepRepository.findPendingFor(approverKeys(approver));
+    }
+
+    /**
+     * Approves the request's current step on behalf of {@code approver}; the request is
+     * approved once no step is left.
+     */
+    @Transactional
+    public StepResult approve(Long leaveId, User approver) {
+        Optional<LeaveApprovalStep> current = currentStep(leaveId, approver);
+        if (current.isEmpty()) {
+            return new StepResult(leaveService.approveLeave(leaveId), true);
+        }
+        LeaveApprovalStep step = current.get();
+        if (leaveApprovalStepRepository.decide(step.getId(), ApprovalStepStatus.APPROVED, approver.getId(), LocalDateTime.now()) == 0) {
+            throw new IllegalStateException("This approval step was decided concurrently; reload and try again.");
+        }
+        if (leaveApprovalStepRepository.activate(leaveId, step.getStepOrder() + 1) == 1) {
+            return new StepResult(leaveService.getLeave(leaveId), false);
+        }
+        return new StepResult(leaveService.approveLeave(leaveId), true);
+    }
+
+    /**
+     * Rejects the request at its current step; later steps are skipped.
+     */
+    @Transactional
+    public StepResult reject(Long leaveId, User approver) {
+        Optional<LeaveApprovalStep> current = currentStep(leaveId, approver);
+        if (current.isPresent()) {
+            if (leaveApprovalStepRepository.decide(current.get().getId(), ApprovalStepStatus.REJECTED, approver.getId(), LocalDateTime.now()) == 0) {
+                throw new IllegalStateException("This approval step was decided concurrently; reload and try again.");
+            }
+            leaveApprovalStepRepository.skipOpenSteps(List.of(leaveId));
+        }
+        return new StepResult(leaveService.rejectLeave(leaveId), true);
+    }
+
+    /**
+     * Admin decision over many requests at once; whatever is left of their chains is
+     * closed in one UPDATE.
+     */
+    @Transactional
+    public BulkLeaveDecisionResult decideInBulk(List<Long> leaveIds, LeaveStatus to) {
+        BulkLeaveDecisionResult result = leaveService.decideInBulk(leaveIds, to);
+        if (!result.getDecided().isEmpty()) {
+            List<Long> decidedIds = new ArrayList<>(result.getDecided().size());
+            result.getDecided().forEach(leave -> decidedIds.add(leave.getId()));
+            leaveApprovalStepRepository.skipOpenSteps(decidedIds);
+        }
+        return result;
+    }
+
+    // The PENDING step the approver may decide; empty for requests without a chain or with a finished one
+    private Optional<LeaveApprovalStep> currentStep(Long leaveId, User approver) {
+        Optional<LeaveApprovalStep> current = leaveApprovalStepRepository.findFirstByLeaveIdAndStatus(leaveId, ApprovalStepStatus.PENDING);
+        if (approver.getRole() == Role.ADMIN) {
+            // re-deciding a request whose chain is closed is an admin override
+            return current;
+        }
+        LeaveRequest leave = leaveService.getLeave(leaveId);
+        if (approver.getId().equals(leave.getEmployeeId())) {
+            throw new AccessDeniedException("You cannot decide your own leave request.");
+        }
+        if (current.isPresent()) {
+            if (!approverKeys(approver).contains(current.get().getApproverKey())) {
+                throw new AccessDeniedException("This leave request is awaiting another approver.");
+            }
+            return current;
+        }
+        if (leaveApprovalStepRepository.existsByLeaveId(leaveId)) {
+            throw new AccessDeniedException("This leave request has no step awaiting your decision.");
+        }
+        // a request from before chains existed is decided by a manager of the employee's department
+        String department = userRepository.findById(leave.getEmployeeId()).map(User::getDepartment).orElse(null);
+        if (department == null || !approverKeys(approver).contains(MANAGER_KEY_PREFIX + department)) {
+            throw new AccessDeniedException("This leave request is awaiting another approver.");
+        }
+        return current;
+    }
+
+    // A department step nobody can take off the queue goes to the admins instead
+    private String staffed(String approverKey) {
+        if (approverKey.startsWith(MANAGER_KEY_PREFIX) && !userRepository.existsByRoleAndDepartmentAndActiveTrueAndApprovedTrue(
+                Role.MANAGER, approverKey.substring(MANAGER_KEY_PREFIX.length()))) {
+            return ADMIN_KEY;
+        }
+        return approverKey;
+    }
+
+    private static List<String> approverKeys(User approver) {
+        if (approver.getRole() == Role.ADMIN) {
+            return List.of(ADMIN_KEY);
+        }
+        if (approver.getRole() == Role.MANAGER && approver.getDepartment() != null) {
+            return List.of(MANAGER_KEY_PREFIX + approver.getDepartment());
+        }
+        return List.of();
+    }
+
+    private static String approverKey(String step, String department) {
+        if (step.equals("MANAGER")) {
+            // nobody can manage an employee without a department; send it to the admins
+            return department == null ? ADMIN_KEY : MANAGER_KEY_PREFIX + department;
+        }
+        if (step.startsWith("DEPT:")) {
+            return MANAGER_KEY_PREFIX + step.substring("DEPT:".length());
+        }
+        return ADMIN_KEY;
+    }
+
+    private static List<String> parseChain(String chain) {
+        List<String> steps = new ArrayList<>();
+        for (String step : chain.split(",")) {
+            String trimmed = step.trim();
+            if (trimmed.isEmpty()) {
+                continue;
+            }
+            if (!trimmed.equals("MANAGER") && !trimmed.equals(ADMIN_KEY)
+                    && !(trimmed.startsWith("DEPT:") && trimmed.length() > "DEPT:".length())) {
+                throw new IllegalArgumentException("Unknown approval step '" + trimmed + "'; expected MANAGER, ADMIN or DEPT:<name>");
+            }
+            steps.add(trimmed);
+        }
+        if (steps.isEmpty()) {
+            throw new IllegalArgumentException("An approval chain needs at least one step.");
+        }
+        return List.copyOf(steps);
+    }
+}
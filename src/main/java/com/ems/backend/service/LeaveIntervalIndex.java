@@ -0,0 +1,176 @@
+package com.ems.backend.service;
+
+import com.ems.backend.entity.LeaveRequest;
+import com.ems.backend.entity.LeaveStatus;
+import com.ems.backend.repository.LeaveRequestRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-employee index of the date ranges held by PENDING and APPROVED leave requests, used
+ * to reject overlapping applications without a range scan.
+ *
+ * <p>Each employee's ranges live in a {@link TreeMap} keyed by start date and kept
+ * disjoint, so an overlap test is one {@code floorEntry} lookup. An employee is loaded on
+ * first use from the (employee_id, start_date, end_date) index and dropped after
+ * {@code ems.leave.interval-index.idle-millis} without use. Check-and-reserve runs under
+ * the employee's lock, so of two concurrent conflicting applications only one gets
+ * through; a reservation made inside a transaction is released again if it rolls back.</p>
+ */
+@Component
+public class LeaveIntervalIndex {
+
+    private static final List<LeaveStatus> ACTIVE = List.of(LeaveStatus.PENDING, LeaveStatus.APPROVED);
+
+    private static final class EmployeeRanges {
+        // start -> end, disjoint
+        private final TreeMap<LocalDate, LocalDate> ranges = new TreeMap<>();
+        private boolean loaded;
+        private boolean evicted;
+        private int inFlight;
+        private volatile long lastUsedMillis = System.currentTimeMillis();
+    }
+
+    private final LeaveRequestRepository leaveRequestRepository;
+    private final long idleMillis;
+    private final Map<Long, EmployeeRanges> byEmployee = new ConcurrentHashMap<>();
+
+    public LeaveIntervalIndex(LeaveRequestRepository leaveRequestRepository,
+                              @Value("${ems.leave.interval-index.idle-millis:3600000}") long idleMillis) {
+        this.leaveRequestRepository = leaveRequestRepository;
+        this.idleMillis = idleMillis;
+    }
+
+    /**
+     * Reserves [from, to] for the employee unless it overlaps one of their pending or
+     * approved requests.
+     *
+     * @return false if the range overlaps an existing one
+     */
+    public boolean reserve(Long employeeId, LocalDate from, LocalDate to) {
+        while (true) {
+            EmployeeRanges employee = byEmployee.computeIfAbsent(employeeId, id -> new EmployeeRanges());
+            synchronized (employee) {
+                if (employee.evicted) {
+                    continue;
+                }
+                load(employeeId, employee);
+                Map.Entry<LocalDate, LocalDate> before = employee.ranges.floorEntry(to);
+                if (before != null && !before.getValue().isBefore(from)) {
+                    return false;
+                }
+                employee.ranges.put(from, to);
+                trackTransaction(employeeId, employee, from, to);
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Drops [from, to] once the request no longer holds it (rejected). Called inside a
+     * transaction, the range is only dropped after commit.
+     */
+    public void release(Long employeeId, LocalDate from, LocalDate to) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    releaseNow(employeeId, from, to);
+                }
+            });
+        } else {
+            releaseNow(employeeId, from, to);
+        }
+    }
+
+    public int size() {
+        return byEmployee.size();
+    }
+
+    @Scheduled(fixedDelay = 60000)
+    public void evictIdle() {
+        long cutoff = System.currentTimeMillis() - idleMillis;
+        byEmployee.forEach((employeeId, employee) -> {
+            if (employee.lastUsedMillis >= cutoff) {
+                return;
+            }
+            synchronized (employee) {
+                // a range reserved by an uncommitted transaction is not in the table yet
+                if (employee.inFlight == 0 && employee.lastUsedMillis < cutoff) {
+                    employee.evicted = true;
+                    byEmployee.remove(employeeId, employee);
+                }
+            }
+        });
+    }
+
+    private void load(Long employeeId, EmployeeRanges employee) {
+        employee.lastUsedMillis = System.currentTimeMillis();
+        if (employee.loaded) {
+            return;
+        }
+        LocalDate start = null;
+        LocalDate end = null;
+        // rows written before this check existed may overlap; merge them into disjoint ranges
+        for (LeaveRequest leave : leaveRequestRepository.findByEmployeeIdAndStatusInOrderByStartDate(employeeId, ACTIVE)) {
+            if (end != null && !leave.getStartDate().isAfter(end)) {
+                if (leave.getEndDate().isAfter(end)) {
+                    end = leave.getEndDate();
+                }
+                continue;
+            }
+            if (start != null) {
+                employee.ranges.put(start, end);
+            }
+            start = leave.getStartDate();
+            end = leave.getEndDate();
+        }
+        if (start != null) {
+            employee.ranges.put(start, end);
+        }
+        employee.loaded = true;
+    }
+
+    private void trackTransaction(Long employeeId, EmployeeRanges employee, LocalDate from, LocalDate to) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        employee.inFlight++;
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                synchronized (employee) {
+                    employee.inFlight--;
+                }
+                if (status != STATUS_COMMITTED) {
+                    releaseNow(employeeId, from, to);
+                }
+            }
+        });
+    }
+
+    private void releaseNow(Long employeeId, LocalDate from, LocalDate to) {
+        EmployeeRanges employee = byEmployee.get(employeeId);
+        if (employee == null) {
+            return;
+        }
+        synchronized (employee) {
+            if (to.equals(employee.ranges.get(from))) {
+                employee.ranges.remove(from);
+            } else if (employee.loaded && employee.inFlight == 0) {
+                // merged with an overlapping legacy range; reload from the table next time
+                employee.ranges.clear();
+                employee.loaded = false;
+            }
+        }
+    }
+}
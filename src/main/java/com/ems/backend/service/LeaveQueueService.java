@@ -0,0 +1,87 @@
+package com.ems.backend.service;
+
+import com.ems.backend.dto.LeaveQueueItem;
+import com.ems.backend.dto.LeaveQueuePage;
+import com.ems.backend.entity.LeaveStatus;
+import com.ems.backend.entity.LeaveType;
+import com.ems.backend.repository.LeaveQueueJdbcRepository;
+import jakarta.annotation.PostConstruct;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+
+/**
+ * Keyset-paginated admin view over all leave requests. Pages are addressed by the
+ * {@code (appliedOn, id)} of the last row returned and read as projections, so the
+ * pending-approval screen is an index range scan on (status, applied_on, id) however
+ * large the leave history grows. Requests saved before appliedOn was recorded are
+ * backfilled at startup, since a NULL sorts into no page.
+ */
+@Service
+public class LeaveQueueService {
+
+    public static final int DEFAULT_PAGE_SIZE = 50;
+    public static final int MAX_PAGE_SIZE = 200;
+    private static final LocalDate EARLIEST = LocalDate.of(1970, 1, 1);
+    private static final LocalDate LATEST = LocalDate.of(9999, 12, 31);
+
+    private final LeaveQueueJdbcRepository leaveQueueJdbcRepository;
+
+    public LeaveQueueService(LeaveQueueJdbcRepository leaveQueueJdbcRepository) {
+        this.leaveQueueJdbcRepository = leaveQueueJdbcRepository;
+    }
+
+    @PostConstruct
+    public void backfillAppliedOn() {
+        int backfilled = leaveQueueJdbcRepository.backfillAppliedOn();
+        if (backfilled > 0) {
+            System.out.println("Backfilled appliedOn for " + backfilled + " leave requests");
+        }
+    }
+
+    /**
+     * One page of leave requests matching the filters (all optional; the date range keeps
+     * requests with at least one day in it), ordered by appliedOn. {@code cursor} is the
+     * {@code nextCursor} of the previous page, or {@code null} for the first page.
+     */
+    public LeaveQueuePage getPage(LeaveStatus status, LeaveType type, String department,
+                                  LocalDate from, LocalDate to, boolean oldestFirst,
+                                  String cursor, Integer size) {
+        LocalDate rangeFrom = from != null ? from : EARLIEST;
+        LocalDate rangeTo = to != null ? to : LATEST;
+        if (rangeFrom.isAfter(rangeTo)) {
+            throw new IllegalArgumentException("'from' must not be after 'to'");
+        }
+        int pageSize = size == null ? DEFAULT_PAGE_SIZE : Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        String departmentFilter = department == null || department.isBlank() ? null : department;
+
+        LocalDateTime appliedOn;
+        long id;
+        if (cursor == null || cursor.isBlank()) {
+            appliedOn = (oldestFirst ? EARLIEST : LATEST).atStartOfDay();
+            id = oldestFirst ? 0L : Long.MAX_VALUE;
+        } else {
+            int sep = cursor.lastIndexOf('_');
+            try {
+                appliedOn = LocalDateTime.parse(cursor.substring(0, sep));
+                id = Long.parseLong(cursor.substring(sep + 1));
+            } catch (DateTimeParseException | NumberFormatException | IndexOutOfBoundsException e) {
+                throw new IllegalArgumentException("Invalid cursor: " + cursor);
+            }
+        }
+
+        // fetch one extra row to learn whether another page exists without a COUNT
+        List<LeaveQueueItem> rows = leaveQueueJdbcRepository.findPage(status, type, departmentFilter,
+                rangeFrom, rangeTo, oldestFirst, appliedOn, id, pageSize + 1);
+        String nextCursor = null;
+        if (rows.size() > pageSize) {
+            rows = rows.subList(0, pageSize);
+            LeaveQueueItem last = rows.get(pageSize - 1);
+            nextCursor = last.getAppliedOn() + "_" + last.getId();
+        }
+        return new LeaveQueuePage(List.copyOf(rows), nextCursor);
+    }
+}
@@ -0,0 +1,360 @@
+package com.ems.backend.service;
+
+import com.ems.backend.dto.BulkLeaveDecisionResult;
+import com.ems.backend.entity.LeaveBalance;
+import com.ems.backend.entity.LeaveRequest;
+import com.ems.backend.entity.LeaveStatus;
+import com.ems.backend.entity.LeaveType;
+import com.ems.backend.repository.LeaveBalanceRepository;
+import com.ems.backend.repository.LeaveRequestRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Leave requests and the per-(employee, year, type) balance ledger they drive. Every
+ * status change applies its day delta to the ledger in the same transaction, so reading
+ * a balance is an indexed lookup instead of a scan over the employee's leave history.
+ * Requests are costed in working days from {@link WorkingDayCalendar}, and overlapping
+ * applications are turned away by {@link LeaveIntervalIndex}.
+ */
+@Service
+public class LeaveService {
+
+    public static final int MAX_BULK_DECISIONS = 500;
+
+    private record BalanceKey(Long employeeId, LeaveType type) {
+    }
+
+    private record LedgerKey(Long employeeId, int year, LeaveType type) {
+    }
+
+    private final LeaveRequestRepository leaveRequestRepository;
+    private final LeaveBalanceRepository leaveBalanceRepository;
+    private final WorkingDayCalendar workingDayCalendar;
+    private final LeaveIntervalIndex leaveIntervalIndex;
+    private final TeamLeaveCalendarService teamLeaveCalendarService;
+    private final PayrollRecalcService payrollRecalcService;
+    private final Map<LeaveType, Integer> quotas = new EnumMap<>(LeaveType.class);
+
+    public LeaveService(LeaveRequestRepository leaveRequestRepository,
+                        LeaveBalanceRepository leaveBalanceRepository,
+                        WorkingDayCalendar workingDayCalendar,
+                        LeaveIntervalIndex leaveIntervalIndex,
+                        TeamLeaveCalendarService teamLeaveCalendarService,
+                        PayrollRecalcService payrollRecalcService,
+                        @Value("${ems.leave.quota.sick:10}") int sickQuota,
+                        @Value("${ems.leave.quota.casual:8}") int casualQuota,
+                        @Value("${ems.leave.quota.earned:12}") int earnedQuota,
+                        @Value("${ems.leave.quota.unpaid:0}") int unpaidQuota) {
+        this.leaveRequestRepository = leaveRequestRepository;
+        this.leaveBalanceRepository = leaveBalanceRepository;
+        this.workingDayCalendar = workingDayCalendar;
+        this.leaveIntervalIndex = leaveIntervalIndex;
+        this.teamLeaveCalendarService = teamLeaveCalendarService;
+        this.payrollRecalcService = payrollRecalcService;
+        quotas.put(LeaveType.SICK, sickQuota);
+        quotas.put(LeaveType.CASUAL, casualQuota);
+        quotas.put(LeaveType.EARNED, earnedQuota);
+        quotas.put(LeaveType.UNPAID, unpaidQuota);
+    }
+
+    @Transactional
+    public LeaveRequest applyLeave(Long employeeId, LeaveRequest leave) {
+        if (leave.getType() == null || leave.getStartDate() == null || leave.getEndDate() == null) {
+            throw new IllegalArgumentException("Leave type, start date and end date are required.");
+        }
+        if (leave.getEndDate().isBefore(leave.getStartDate())) {
+            throw new IllegalArgumentException("End date must not be before start date.");
+        }
+        Map<Integer, Integer> daysByYear = daysByYear(leave);
+        if (daysByYear.values().stream().mapToInt(Integer::intValue).sum() == 0) {
+            throw new IllegalArgumentException("The requested period contains no working days.");
+        }
+        if (leave.getType() != LeaveType.UNPAID) {
+            // check and reserve in one conditional UPDATE; a failure rolls back earlier years
+            for (Map.Entry<Integer, Integer> entry : daysByYear.entrySet()) {
+                int year = entry.getKey();
+                leaveBalanceRepository.insertIfAbsent(employeeId, year, leave.getType().name(), quotas.get(leave.getType()));
+                if (leaveBalanceRepository.reservePending(employeeId, year, leave.getType(), entry.getValue()) == 0) {
+                    int available = availableDays(employeeId, year, leave.getType());
+                    throw new IllegalArgumentException("Insufficient " + leave.getType() + " leave for " + year
+                            + ": requested " + entry.getValue() + " working days, " + available + " available.");
+                }
+            }
+        }
+        // last check, so a rejected application never holds a reservation
+        if (!leaveIntervalIndex.reserve(employeeId, leave.getStartDate(), leave.getEndDate())) {
+            throw new IllegalArgumentException("The requested period overlaps an existing pending or approved leave request.");
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        leave.setId(null); // always a new request, never an update smuggled in through the body
+        leave.setEmployeeId(employeeId);
+        leave.setStatus(LeaveStatus.PENDING);
+        leave.setAppliedOn(now);
+        leave.setLastModifiedAt(now);
+        LeaveRequest saved = leaveRequestRepository.save(leave);
+        if (leave.getType() == LeaveType.UNPAID) {
+            applyToLedger(saved, 0, 1); // paid types were reserved above
+        }
+        return saved;
+    }
+
+    @Transactional
+    public LeaveRequest approveLeave(Long leaveId) {
+        return transition(leaveId, LeaveStatus.APPROVED);
+    }
+
+    @Transactional
+    public LeaveRequest rejectLeave(Long leaveId) {
+        return transition(leaveId, LeaveStatus.REJECTED);
+    }
+
+    public LeaveRequest getLeave(Long leaveId) {
+        return leaveRequestRepository.findById(leaveId)
+                .orElseThrow(() -> new RuntimeException("Leave not found"));
+    }
+
+    /**
+     * Approves or rejects many PENDING requests at once: the rows are locked with one
+     * SELECT ... FOR UPDATE, moved with one conditional UPDATE, and the ledger receives one
+     * delta per (employee, year, type) instead of one per request. Ids that are unknown or
+     * no longer pending are reported rather than failing the batch.
+     */
+    @Transactional
+    public BulkLeaveDecisionResult decideInBulk(List<Long> leaveIds, LeaveStatus to) {
+        if (to != LeaveStatus.APPROVED && to != LeaveStatus.REJECTED) {
+            throw new IllegalArgumentException("Bulk decisions can only approve or reject.");
+        }
+        Set<Long> ids = new LinkedHashSet<>(leaveIds);
+        if (ids.isEmpty() || ids.size() > MAX_BULK_DECISIONS) {
+            throw new IllegalArgumentException("Between 1 and " + MAX_BULK_DECISIONS + " leave ids are required.");
+        }
+
+        Set<Long> found = new HashSet<>();
+        Map<Long, LeaveRequest> pending = new HashMap<>();
+        for (LeaveRequest leave : leaveRequestRepository.findAllByIdForUpdate(ids)) {
+            found.add(leave.getId());
+            if (leave.getStatus() == LeaveStatus.PENDING) {
+                pending.put(leave.getId(), leave);
+            }
+        }
+        Map<Long, BulkLeaveDecisionResult.Outcome> outcomes = new LinkedHashMap<>();
+        List<LeaveRequest> decided = new ArrayList<>();
+        if (!pending.isEmpty()) {
+            LocalDateTime now = LocalDateTime.now();
+            if (leaveRequestRepository.transitionPending(pending.keySet(), to, now) != pending.size()) {
+                // cannot happen while the rows are locked; refuse rather than skew the ledger
+                throw new IllegalStateException("Leave requests were modified concurrently; reload and try again.");
+            }
+            Map<LedgerKey, int[]> deltas = new HashMap<>();
+            for (LeaveRequest leave : pending.values()) {
+                daysByYear(leave).forEach((year, days) -> {
+                    int[] usedAndPending = deltas.computeIfAbsent(new LedgerKey(leave.getEmployeeId(), year, leave.getType()), k -> new int[2]);
+                    usedAndPending[0] += to == LeaveStatus.APPROVED ? days : 0;
+                    usedAndPending[1] -= days;
+                });
+                if (to == LeaveStatus.APPROVED) {
+                    teamLeaveCalendarService.invalidate(leave);
+                } else {
+                    leaveIntervalIndex.release(leave.getEmployeeId(), leave.getStartDate(), leave.getEndDate());
+                }
+                leave.setStatus(to);
+                leave.setLastModifiedAt(now);
+            }
+            deltas.forEach((key, usedAndPending) -> {
+                leaveBalanceRepository.insertIfAbsent(key.employeeId(), key.year(), key.type().name(), quotas.get(key.type()));
+                leaveBalanceRepository.applyDelta(key.employeeId(), key.year(), key.type(), usedAndPending[0], usedAndPending[1]);
+            });
+            if (to == LeaveStatus.APPROVED) {
+                payrollRecalcService.markLeavesChanged(pending.values());
+            }
+        }
+
+        for (Long id : ids) {
+            LeaveRequest leave = pending.get(id);
+            if (leave != null) {
+                decided.add(leave);
+                outcomes.put(id, to == LeaveStatus.APPROVED
+                        ? BulkLeaveDecisionResult.Outcome.APPROVED : BulkLeaveDecisionResult.Outcome.REJECTED);
+            } else {
+                outcomes.put(id, found.contains(id)
+                        ? BulkLeaveDecisionResult.Outcome.NOT_PENDING : BulkLeaveDecisionResult.Outcome.NOT_FOUND);
+            }
+        }
+        return new BulkLeaveDecisionResult(ids.size(), decided.size(), outcomes, decided);
+    }
+
+    /**
+     * The employee's ledger rows for {@code year}, with untouched leave types filled in
+     * from the configured quota (not persisted).
+     */
+    public List<LeaveBalance> getBalances(Long employeeId, int year) {
+        Map<LeaveType, LeaveBalance> byType = new EnumMap<>(LeaveType.class);
+        for (LeaveBalance balance : leaveBalanceRepository.findByEmployeeIdAndLeaveYear(employeeId, year)) {
+            byType.put(balance.getLeaveType(), balance);
+        }
+        for (LeaveType type : LeaveType.values()) {
+            byType.computeIfAbsent(type, t -> LeaveBalance.builder()
+                    .employeeId(employeeId)
+                    .leaveYear(year)
+                    .leaveType(t)
+                    .quota(quotas.get(t))
+                    .build());
+        }
+        return new ArrayList<>(byType.values());
+    }
+
+    // Paid days not yet taken in the year; what the salary slip shows as "Leave Balance"
+    public int getRemainingPaidDays(Long employeeId, int year) {
+        int remaining = 0;
+        for (LeaveBalance balance : getBalances(employeeId, year)) {
+            if (balance.getLeaveType() != LeaveType.UNPAID) {
+                remaining += balance.getQuota() - balance.getUsedDays();
+            }
+        }
+        return remaining;
+    }
+
+    /**
+     * Recomputes used and pending days for every employee in {@code year} from the leave
+     * requests overlapping it; quotas already on the ledger are kept.
+     *
+     * <p>The year's ledger rows are created where missing and locked before the requests
+     * are counted, and the count runs at READ COMMITTED so it sees every change committed
+     * up to the lock. A transition that commits after the count blocks on the lock in
+     * {@code applyDelta} and adds its delta on top of the rebuilt value, so it is never
+     * lost.</p>
+     *
+     * @return number of ledger rows written
+     */
+    @Transactional(isolation = Isolation.READ_COMMITTED)
+    public int rebuildBalances(int year) {
+        LocalDate yearStart = LocalDate.of(year, 1, 1);
+        LocalDate yearEnd = LocalDate.of(year, 12, 31);
+
+        for (Object[] key : leaveRequestRepository.findEmployeeTypesOverlapping(yearStart, yearEnd,
+                List.of(LeaveStatus.PENDING, LeaveStatus.APPROVED))) {
+            LeaveType type = (LeaveType) key[1];
+            leaveBalanceRepository.insertIfAbsent((Long) key[0], year, type.name(), quotas.get(type));
+        }
+        List<LeaveBalance> rows = leaveBalanceRepository.findByLeaveYearForUpdate(year);
+
+        Map<BalanceKey, int[]> totals = new HashMap<>();
+        for (LeaveRequest leave : leaveRequestRepository.findOverlapping(yearStart, yearEnd)) {
+            if (leave.getStatus() != LeaveStatus.APPROVED && leave.getStatus() != LeaveStatus.PENDING) {
+                continue;
+            }
+            LocalDate from = leave.getStartDate().isBefore(yearStart) ? yearStart : leave.getStartDate();
+            LocalDate to = leave.getEndDate().isAfter(yearEnd) ? yearEnd : leave.getEndDate();
+            int[] usedAndPending = totals.computeIfAbsent(new BalanceKey(leave.getEmployeeId(), leave.getType()), k -> new int[2]);
+            usedAndPending[leave.getStatus() == LeaveStatus.APPROVED ? 0 : 1] += leaveDays(from, to);
+        }
+
+        // a request for a brand-new key that committed after the lock has its own row, kept
+        // current by applyDelta, so only the locked rows are rewritten
+        for (LeaveBalance balance : rows) {
+            int[] usedAndPending = totals.get(new BalanceKey(balance.getEmployeeId(), balance.getLeaveType()));
+            balance.setUsedDays(usedAndPending == null ? 0 : usedAndPending[0]);
+            balance.setPendingDays(usedAndPending == null ? 0 : usedAndPending[1]);
+        }
+        leaveBalanceRepository.saveAll(rows);
+        return rows.size();
+    }
+
+    // Nightly safety net for the current year's ledger
+    @Scheduled(cron = "${ems.leave.balance.rebuild-cron:0 45 2 * * *}")
+    public void rebuildCurrentYear() {
+        int year = LocalDate.now().getYear();
+        try {
+            System.out.println("Rebuilt " + rebuildBalances(year) + " leave balances for " + year);
+        } catch (RuntimeException e) {
+            System.err.println("Leave balance rebuild for " + year + " failed: " + e.getMessage());
+        }
+    }
+
+    private LeaveRequest transition(Long leaveId, LeaveStatus to) {
+        LeaveRequest leave = getLeave(leaveId);
+        LeaveStatus from = leave.getStatus();
+        if (from == to) {
+            return leave;
+        }
+        boolean wasActive = from == LeaveStatus.PENDING || from == LeaveStatus.APPROVED;
+        boolean isActive = to == LeaveStatus.PENDING || to == LeaveStatus.APPROVED;
+        if (isActive && !wasActive
+                && !leaveIntervalIndex.reserve(leave.getEmployeeId(), leave.getStartDate(), leave.getEndDate())) {
+            throw new IllegalStateException("Leave request overlaps another pending or approved request of the employee.");
+        }
+        LocalDateTime now = LocalDateTime.now();
+        if (leaveRequestRepository.transitionStatus(leaveId, from, to, now) == 0) {
+            throw new IllegalStateException("Leave request was modified concurrently; reload and try again.");
+        }
+        int used = (to == LeaveStatus.APPROVED ? 1 : 0) - (from == LeaveStatus.APPROVED ? 1 : 0);
+        int pending = (to == LeaveStatus.PENDING ? 1 : 0) - (from == LeaveStatus.PENDING ? 1 : 0);
+        applyToLedger(leave, used, pending);
+        if (wasActive && !isActive) {
+            leaveIntervalIndex.release(leave.getEmployeeId(), leave.getStartDate(), leave.getEndDate());
+        }
+        if (from == LeaveStatus.APPROVED || to == LeaveStatus.APPROVED) {
+            teamLeaveCalendarService.invalidate(leave);
+            payrollRecalcService.markLeaveChanged(leave);
+        }
+        // keep the managed copy in line with the row, so the flush at commit changes nothing
+        leave.setStatus(to);
+        leave.setLastModifiedAt(now);
+        return leave;
+    }
+
+    // Adds usedSign / pendingSign times the request's days to each year it touches
+    private void applyToLedger(LeaveRequest leave, int usedSign, int pendingSign) {
+        if (usedSign == 0 && pendingSign == 0) {
+            return;
+        }
+        daysByYear(leave).forEach((year, days) -> {
+            leaveBalanceRepository.insertIfAbsent(leave.getEmployeeId(), year, leave.getType().name(), quotas.get(leave.getType()));
+            leaveBalanceRepository.applyDelta(leave.getEmployeeId(), year, leave.getType(), usedSign * days, pendingSign * days);
+        });
+    }
+
+    private int availableDays(Long employeeId, int year, LeaveType type) {
+        for (LeaveBalance balance : leaveBalanceRepository.findByEmployeeIdAndLeaveYear(employeeId, year)) {
+            if (balance.getLeaveType() == type) {
+                return balance.getAvailableDays();
+            }
+        }
+        return quotas.get(type);
+    }
+
+    // Working days of the request, split by calendar year
+    private Map<Integer, Integer> daysByYear(LeaveRequest leave) {
+        Map<Integer, Integer> days = new HashMap<>();
+        for (int year = leave.getStartDate().getYear(); year <= leave.getEndDate().getYear(); year++) {
+            LocalDate yearStart = LocalDate.of(year, 1, 1);
+            LocalDate yearEnd = LocalDate.of(year, 12, 31);
+            LocalDate from = leave.getStartDate().isBefore(yearStart) ? yearStart : leave.getStartDate();
+            LocalDate to = leave.getEndDate().isAfter(yearEnd) ? yearEnd : leave.getEndDate();
+            days.put(year, leaveDays(from, to));
+        }
+        return days;
+    }
+
+    private int leaveDays(LocalDate from, LocalDate to) {
+        // employees carry no location yet, so only company-wide holidays apply
+        return workingDayCalendar.countWorkingDays(from, to, null);
+    }
+}
@@ -1,15 +1,22 @@
 // src/main/java/com/ems/backend/service/PasswordResetTokenService.java
 package com.ems.backend.service;
 
+import com.ems.backend.auth.TokenDigest;
+import com.ems.backend.entity.PasswordResetToken;
+import com.ems.backend.repository.PasswordResetTokenRepository;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
 import java.security.Key;
+import java.time.Duration;
+import java.time.LocalDateTime;
 import java.util.Date;
+import java.util.Optional;
 
 @Service
 public class PasswordResetTokenService {
@@ -20,6 +27,15 @@ public class PasswordResetTokenService {
     @Value("${jwt.password.reset.expiration}")
     private long EXPIRATION_TIME;
 
+    @Value("${ems.password-reset.sweep-batch-size:1000}")
+    private int sweepBatchSize;
+
+    private final PasswordResetTokenRepository resetTokenRepository;
+
+    public PasswordResetTokenService(PasswordResetTokenRepository resetTokenRepository) {
+        this.resetTokenRepository = resetTokenRepository;
+    }
+
     public String generateToken(String username) {
         long now = System.currentTimeMillis();
         return Jwts.builder()
@@ -43,8 +59,53 @@ public class PasswordResetTokenService {
         }
     }
 
+    /**
+     * Issues a reset token for the user and stores only its SHA-256 digest. Any earlier
+     * outstanding token for the same user is discarded.
+     */
+    public String issueToken(Long userId, String username) {
+        String token = generateToken(username);
+        resetTokenRepository.deleteByUserId(userId);
+        resetTokenRepository.save(PasswordResetToken.builder()
+                .tokenHash(TokenDigest.sha256Hex(token))
+                .userId(userId)
+                .expiresAt(LocalDateTime.now().plus(Duration.ofMillis(EXPIRATION_TIME)))
+                .createdAt(LocalDateTime.now())
+                .build());
+        return token;
+    }
+
+    /**
+     * Looks up an unexpired reset token by its digest (a unique-index probe) without using it up.
+     */
+    public Optional<PasswordResetToken> findValidToken(String token) {
+        if (token == null || token.isBlank()) {
+            return Optional.empty();
+        }
+        return resetTokenRepository.findByTokenHash(TokenDigest.sha256Hex(token))
+                .filter(t -> t.getExpiresAt().isAfter(LocalDateTime.now()));
+    }
+
+    /**
+     * Deletes the token so it cannot be used again. Only one of several concurrent callers
+     * gets {@code true}.
+     */
+    public boolean consumeToken(PasswordResetToken resetToken) {
+        return resetTokenRepository.deleteByTokenHash(resetToken.getTokenHash()) == 1;
+    }
+
+    // Deletes in bounded batches so the sweep never holds long locks on the table
+    @Scheduled(fixedDelay = 600000)
+    public void sweepExpiredTokens() {
+        LocalDateTime now = LocalDateTime.now();
+        int deleted;
+        do {
+            deleted = resetTokenRepository.deleteExpiredBatch(now, sweepBatchSize);
+        } while (deleted == sweepBatchSize);
+    }
+
     private Key getSigningKey() {
         byte[] keyBytes = Decoders.BASE64.decode(SECRET_KEY);
         return Keys.hmacShaKeyFor(keyBytes);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,268 @@
+package com.ems.backend.service;
+
+import com.ems.backend.dto.PayrollInput;
+import com.ems.backend.dto.PayrollRecalcReport;
+import com.ems.backend.entity.Holiday;
+import com.ems.backend.entity.LeaveRequest;
+import com.ems.backend.entity.LeaveType;
+import com.ems.backend.entity.Payroll;
+import com.ems.backend.entity.PayrollAdjustment;
+import com.ems.backend.entity.PayrollLineItem;
+import com.ems.backend.repository.PayrollAdjustmentRepository;
+import com.ems.backend.repository.PayrollJdbcRepository;
+import com.ems.backend.repository.PayrollJdbcRepository.QueuedRecalc;
+import com.ems.backend.repository.PayrollRepository;
+import com.ems.backend.service.payroll.PayrollAmounts;
+import com.ems.backend.service.payroll.PayrollPlan;
+import com.ems.backend.service.payroll.PayrollResult;
+import com.ems.backend.service.payroll.PayrollRulesEngine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Keeps generated payrolls in step with late changes to the facts they were priced from.
+ *
+ * <p>A payroll for (employee, month) depends on the employee's approved unpaid leave and
+ * ABSENT attendance days in that month, and on the month's company-wide holidays. The write
+ * paths that change those facts (leave approval / rejection, absence marking, attendance
+ * imports, holiday changes) call the {@code mark...}
+ * methods inside their own transaction, which queue just the affected payrolls that
+ * already exist. A scheduled worker then recomputes the queue in batches with the same
+ * loader and rules as the monthly run, and records any difference as a
+ * {@link PayrollAdjustment} next to the original payroll, which is never rewritten.</p>
+ *
+ * <p>Only payrolls priced under the employee's current plan, as recorded by its
+ * fingerprint, are recomputed, so a difference can only come from the facts. Manual
+ * payrolls, payrolls from before the fingerprint existed, and payrolls priced under rules
+ * that have since changed are skipped and reported, since re-pricing them would apply the
+ * new rules to a closed month rather than correct its facts.</p>
+ */
+@Service
+public class PayrollRecalcService {
+
+    private final PayrollJdbcRepository payrollJdbcRepository;
+    private final PayrollRepository payrollRepository;
+    private final PayrollAdjustmentRepository payrollAdjustmentRepository;
+    private final PayrollInputLoader payrollInputLoader;
+    private final PayrollRulesEngine payrollRulesEngine;
+    private final WorkingDayCalendar workingDayCalendar;
+    private final int batchSize;
+    private final AtomicBoolean draining = new AtomicBoolean();
+
+    public PayrollRecalcService(PayrollJdbcRepository payrollJdbcRepository,
+                                PayrollRepository payrollRepository,
+                                PayrollAdjustmentRepository payrollAdjustmentRepository,
+                                PayrollInputLoader payrollInputLoader,
+                                PayrollRulesEngine payrollRulesEngine,
+                                WorkingDayCalendar workingDayCalendar,
+                                @Value("${ems.payroll.recalc.batch-size:200}") int batchSize) {
+        this.payrollJdbcRepository = payrollJdbcRepository;
+        this.payrollRepository = payrollRepository;
+        this.payrollAdjustmentRepository = payrollAdjustmentRepository;
+        this.payrollInputLoader = payrollInputLoader;
+        this.payrollRulesEngine = payrollRulesEngine;
+        this.workingDayCalendar = workingDayCalendar;
+        this.batchSize = batchSize;
+    }
+
+    // Leave approved, or approved leave revoked; only unpaid leave is a payroll input
+    public void markLeaveChanged(LeaveRequest leave) {
+        markLeavesChanged(List.of(leave));
+    }
+
+    public void markLeavesChanged(Collection<LeaveRequest> leaves) {
+        Map<YearMonth, Set<Long>> employeesByMonth = new TreeMap<>();
+        for (LeaveRequest leave : leaves) {
+            if (leave.getType() != LeaveType.UNPAID) {
+                continue;
+            }
+            for (YearMonth month = YearMonth.from(leave.getStartDate()); !month.isAfter(YearMonth.from(leave.getEndDate())); month = month.plusMonths(1)) {
+                employeesByMonth.computeIfAbsent(month, m -> new HashSet<>()).add(leave.getEmployeeId());
+            }
+        }
+        markDirty(employeesByMonth);
+    }
+
+    // Absences recorded for these employees on this date
+    public void markAbsencesChanged(LocalDate date, Collection<Long> employeeIds) {
+        markDirty(Map.of(YearMonth.from(date), employeeIds));
+    }
+
+    // Attendance days rewritten, e.g. by an import, grouped by month
+    public void markAttendanceChanged(Map<YearMonth, ? extends Collection<Long>> employeesByMonth) {
+        markDirty(employeesByMonth);
+    }
+
+    // Only company-wide holidays change the working days payroll is prorated over
+    public void markHolidayChanged(Holiday holiday) {
+        if (holiday.getLocation() == null || holiday.getLocation().isBlank()) {
+            payrollJdbcRepository.markMonthDirty(YearMonth.from(holiday.getHolidayDate()).atDay(1));
+        }
+    }
+
+    private void markDirty(Map<YearMonth, ? extends Collection<Long>> employeesByMonth) {
+        employeesByMonth.forEach((month, employeeIds) -> {
+            if (!employeeIds.isEmpty()) {
+                payrollJdbcRepository.markDirty(month.atDay(1), employeeIds);
+            }
+        });
+    }
+
+    public List<PayrollAdjustment> getAdjustments(Long payrollId) {
+        return payrollAdjustmentRepository.findByPayrollIdOrderById(payrollId);
+    }
+
+    @Scheduled(fixedDelay = 60000)
+    public void recalculateQueued() {
+        try {
+            PayrollRecalcReport report = drainQueue();
+            if (report.getAdjusted() > 0) {
+                System.out.println("Payroll recalculation: " + report.getAdjusted() + " payrolls adjusted");
+            }
+            if (!report.getSkippedPayrollIds().isEmpty()) {
+                System.out.println("Payroll recalculation skipped payrolls not built from the current rules: "
+                        + report.getSkippedPayrollIds());
+            }
+        } catch (RuntimeException e) {
+            System.err.println("Payroll recalculation failed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Recomputes everything queued, a batch at a time.
+     *
+     * @throws IllegalStateException if a drain is already running
+     */
+    public PayrollRecalcReport drainQueue() {
+        if (!draining.compareAndSet(false, true)) {
+            throw new IllegalStateException("Payroll recalculation is already running.");
+        }
+        try {
+            PayrollRecalcReport report = PayrollRecalcReport.builder().skippedPayrollIds(new ArrayList<>()).build();
+            while (true) {
+                List<QueuedRecalc> batch = payrollJdbcRepository.findQueued(batchSize);
+                if (batch.isEmpty()) {
+                    return report;
+                }
+                recalculate(batch, report);
+                payrollJdbcRepository.dequeue(batch);
+                if (batch.size() < batchSize) {
+                    return report;
+                }
+            }
+        } finally {
+            draining.set(false);
+        }
+    }
+
+    // Adjustments are saved before the batch is dequeued; a retry then finds nothing left to adjust
+    private void recalculate(List<QueuedRecalc> batch, PayrollRecalcReport report) {
+        Map<LocalDate, List<Long>> employeesByMonth = new TreeMap<>();
+        for (QueuedRecalc entry : batch) {
+            employeesByMonth.computeIfAbsent(entry.salaryMonth(), m -> new ArrayList<>()).add(entry.employeeId());
+        }
+        List<PayrollAdjustment> adjustments = new ArrayList<>();
+        PayrollResult result = payrollRulesEngine.newResult();
+        employeesByMonth.forEach((salaryMonth, employeeIds) -> {
+            YearMonth month = YearMonth.from(salaryMonth);
+            int workingDays = workingDayCalendar.countWorkingDays(salaryMonth, month.atEndOfMonth(), null);
+            Map<Long, Payroll> payrolls = new HashMap<>();
+            for (Payroll payroll : payrollRepository.findBySalaryMonthAndEmployeeIdIn(salaryMonth, employeeIds)) {
+                payrolls.put(payroll.getEmployeeId(), payroll);
+            }
+            Map<Long, List<PayrollAdjustment>> previous = new HashMap<>();
+            if (!payrolls.isEmpty()) {
+                List<Long> payrollIds = payrolls.values().stream().map(Payroll::getId).toList();
+                for (PayrollAdjustment adjustment : payrollAdjustmentRepository.findByPayrollIdInOrderById(payrollIds)) {
+                    previous.computeIfAbsent(adjustment.getPayrollId(), id -> new ArrayList<>()).add(adjustment);
+                }
+            }
+            for (PayrollInput input : payrollInputLoader.load(month, employeeIds)) {
+                Payroll payroll = payrolls.get(input.getEmployeeId());
+                if (payroll == null) {
+                    continue;
+                }
+                PayrollPlan plan = payrollRulesEngine.planFor(input.getDepartment(), input.getDesignation());
+                if (!plan.getFingerprint().equals(payroll.getPlanFingerprint())) {
+                    report.getSkippedPayrollIds().add(payroll.getId());
+                    continue;
+                }
+                Map<String, PayrollLineItem> current = currentLines(payroll, previous.getOrDefault(payroll.getId(), List.of()));
+                plan.evaluate(workingDays, input.getUnpaidLeaveDays(), input.getAbsentDays(), result);
+                report.setRecalculated(report.getRecalculated() + 1);
+                PayrollAdjustment adjustment = diff(payroll, current, plan, result);
+                if (adjustment != null) {
+                    adjustments.add(adjustment);
+                }
+            }
+        });
+        payrollAdjustmentRepository.saveAll(adjustments);
+        report.setAdjusted(report.getAdjusted() + adjustments.size());
+    }
+
+    // Difference between the recomputed lines and the payroll as it currently stands, or null if
+    // none; the caller has checked that the payroll was priced under this plan
+    private static PayrollAdjustment diff(Payroll payroll, Map<String, PayrollLineItem> current, PayrollPlan plan, PayrollResult result) {
+        Map<String, PayrollLineItem> deltas = new LinkedHashMap<>();
+        for (int i = 0; i < plan.lineCount(); i++) {
+            long delta = result.amount(i) - current.get(plan.code(i)).getAmount();
+            if (delta != 0) {
+                deltas.put(plan.code(i), new PayrollLineItem(plan.code(i), plan.type(i), delta));
+            }
+        }
+        if (deltas.isEmpty()) {
+            return null;
+        }
+        long basic = 0;
+        long allowances = 0;
+        long deductions = 0;
+        for (PayrollLineItem delta : deltas.values()) {
+            switch (delta.getType()) {
+                case BASIC -> basic += delta.getAmount();
+                case ALLOWANCE -> allowances += delta.getAmount();
+                default -> deductions += delta.getAmount();
+            }
+        }
+        return PayrollAdjustment.builder()
+                .payrollId(payroll.getId())
+                .employeeId(payroll.getEmployeeId())
+                .salaryMonth(payroll.getSalaryMonth())
+                .basicDelta(PayrollAmounts.toMajor(basic))
+                .allowancesDelta(PayrollAmounts.toMajor(allowances))
+                .deductionsDelta(PayrollAmounts.toMajor(deductions))
+                .netDelta(PayrollAmounts.toMajor(basic + allowances - deductions))
+                .lineItems(new ArrayList<>(deltas.values()))
+                .createdAt(LocalDateTime.now())
+                .build();
+    }
+
+    // The original lines plus every adjustment so far, keyed by code
+    private static Map<String, PayrollLineItem> currentLines(Payroll payroll, List<PayrollAdjustment> previous) {
+        Map<String, PayrollLineItem> lines = new LinkedHashMap<>();
+        for (PayrollLineItem line : payroll.getLineItems()) {
+            lines.put(line.getCode(), new PayrollLineItem(line.getCode(), line.getType(), line.getAmount()));
+        }
+        for (PayrollAdjustment adjustment : previous) {
+            for (PayrollLineItem delta : adjustment.getLineItems()) {
+                PayrollLineItem line = lines.computeIfAbsent(delta.getCode(), code -> new PayrollLineItem(code, delta.getType(), 0));
+                line.setAmount(line.getAmount() + delta.getAmount());
+            }
+        }
+        return lines;
+    }
+}
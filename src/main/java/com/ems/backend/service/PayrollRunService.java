@@ -0,0 +1,287 @@
+package com.ems.backend.service;
+
+import com.ems.backend.dto.PayrollInput;
+import com.ems.backend.dto.PayrollRunReport;
+import com.ems.backend.entity.Payroll;
+import com.ems.backend.entity.PayrollRun;
+import com.ems.backend.entity.PayrollRunStatus;
+import com.ems.backend.repository.PayrollJdbcRepository;
+import com.ems.backend.repository.PayrollRunRepository;
+import com.ems.backend.service.payroll.PayrollPlan;
+import com.ems.backend.service.payroll.PayrollResult;
+import com.ems.backend.service.payroll.PayrollRulesEngine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Monthly payroll batch engine.
+ *
+ * <p>The month's inputs are loaded up front by {@link PayrollInputLoader} in a fixed
+ * number of queries, then cut into id-ordered chunks; each chunk is priced by the
+ * {@link PayrollRulesEngine} and written (one JDBC batch of {@code INSERT IGNORE}) on a
+ * bounded thread pool. When the pool is saturated the submitting thread prices the next
+ * chunk itself, so at most a few chunks of priced payrolls are ever in memory. The
+ * (employee_id, salary_month) unique key makes every write idempotent.</p>
+ *
+ * <p>Chunks finish out of order, so progress is checkpointed on {@link PayrollRun} as a
+ * watermark: the last employee id of the longest run of completed chunks from the start.
+ * A run that is interrupted resumes after the watermark; chunks that had finished beyond
+ * it are simply written again and ignored by the unique key.</p>
+ */
+@Service
+public class PayrollRunService {
+
+    private static final int WRITE_ATTEMPTS = 3;
+
+    private record ChunkResult(long lastEmployeeId, int employees, int rowsWritten, long millis) {
+    }
+
+    private final PayrollJdbcRepository payrollJdbcRepository;
+    private final PayrollRunRepository payrollRunRepository;
+    private final PayrollRulesEngine payrollRulesEngine;
+    private final PayrollInputLoader payrollInputLoader;
+    private final WorkingDayCalendar workingDayCalendar;
+    private final int threads;
+    private final int chunkSize;
+    private final Set<YearMonth> running = ConcurrentHashMap.newKeySet();
+
+    public PayrollRunService(PayrollJdbcRepository payrollJdbcRepository,
+                             PayrollRunRepository payrollRunRepository,
+                             PayrollRulesEngine payrollRulesEngine,
+                             PayrollInputLoader payrollInputLoader,
+                             WorkingDayCalendar workingDayCalendar,
+                             @Value("${ems.payroll.run.threads:0}") int threads,
+                             @Value("${ems.payroll.run.chunk-size:500}") int chunkSize) {
+        this.payrollJdbcRepository = payrollJdbcRepository;
+        this.payrollRunRepository = payrollRunRepository;
+        this.payrollRulesEngine = payrollRulesEngine;
+        this.payrollInputLoader = payrollInputLoader;
+        this.workingDayCalendar = workingDayCalendar;
+        this.threads = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        this.chunkSize = chunkSize;
+    }
+
+    public PayrollRun getRun(YearMonth month) {
+        return payrollRunRepository.findBySalaryMonth(month.atDay(1)).orElse(null);
+    }
+
+    /**
+     * Generates the payrolls of {@code month}, resuming a previous interrupted or failed
+     * run of the same month. A month that already completed is not run again.
+     */
+    public PayrollRunReport run(YearMonth month) {
+        if (!running.add(month)) {
+            throw new IllegalStateException("The payroll run for " + month + " is already in progress.");
+        }
+        try {
+            return execute(month);
+        } finally {
+            running.remove(month);
+        }
+    }
+
+    private PayrollRunReport execute(YearMonth month) {
+        LocalDate salaryMonth = month.atDay(1);
+        PayrollRun run = claimRun(salaryMonth);
+        if (run.getStatus() == PayrollRunStatus.COMPLETED) {
+            return PayrollRunReport.builder()
+                    .salaryMonth(salaryMonth)
+                    .status(PayrollRunStatus.COMPLETED)
+                    .resumedAfterEmployeeId(run.getLastEmployeeId())
+                    .threads(threads)
+                    .build();
+        }
+
+        long start = System.nanoTime();
+        int workingDays = workingDayCalendar.countWorkingDays(salaryMonth, month.atEndOfMonth(), null);
+        Watermark watermark = new Watermark(run.getId(), run.getLastEmployeeId());
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(threads), new ThreadPoolExecutor.CallerRunsPolicy());
+        long sequence = 0;
+        try {
+            List<PayrollInput> inputs = payrollInputLoader.load(month, run.getLastEmployeeId());
+            for (int offset = 0; offset < inputs.size() && failure.get() == null; offset += chunkSize) {
+                List<PayrollInput> employees = inputs.subList(offset, Math.min(offset + chunkSize, inputs.size()));
+                long chunk = sequence++;
+                pool.execute(() -> {
+                    if (failure.get() != null) {
+                        return;
+                    }
+                    try {
+                        watermark.complete(chunk, processChunk(employees, salaryMonth, workingDays));
+                    } catch (RuntimeException e) {
+                        failure.compareAndSet(null, e);
+                    }
+                });
+            }
+        } catch (RuntimeException e) {
+            failure.compareAndSet(null, e);
+        } finally {
+            pool.shutdown();
+            try {
+                if (!pool.awaitTermination(1, TimeUnit.HOURS)) {
+                    failure.compareAndSet(null, new IllegalStateException("Payroll run for " + month
+                            + " did not finish within an hour; resume it to continue from the checkpoint"));
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                failure.compareAndSet(null, e);
+            }
+            if (!pool.isTerminated()) {
+                pool.shutdownNow();
+            }
+        }
+
+        // chunks still finishing after this point leave the checkpoint alone; their rows are
+        // skipped as duplicates when the run is resumed
+        watermark.close();
+        Throwable error = failure.get();
+        run = payrollRunRepository.findById(run.getId()).orElseThrow();
+        run.setStatus(error == null ? PayrollRunStatus.COMPLETED : PayrollRunStatus.FAILED);
+        run.setFinishedAt(LocalDateTime.now());
+        run.setLastError(error == null ? null : truncate(error.toString()));
+        payrollRunRepository.save(run);
+
+        long elapsedMillis = Math.max(1, (System.nanoTime() - start) / 1_000_000);
+        PayrollRunReport report = PayrollRunReport.builder()
+                .salaryMonth(salaryMonth)
+                .status(run.getStatus())
+                .resumedAfterEmployeeId(watermark.resumedAfter)
+                .employeesProcessed(watermark.employees.get())
+                .rowsWritten(watermark.rows.get())
+                .chunks(watermark.chunks.get())
+                .threads(threads)
+                .elapsedMillis(elapsedMillis)
+                .employeesPerSecond(watermark.employees.get() * 1000 / elapsedMillis)
+                .averageChunkMillis(watermark.chunks.get() == 0 ? 0 : watermark.chunkMillis.get() / watermark.chunks.get())
+                .slowestChunkMillis(watermark.slowestChunkMillis.get())
+                .error(run.getLastError())
+                .build();
+        System.out.println("Payroll run: " + report);
+        return report;
+    }
+
+    // Creates the month's run row, or takes over an existing unfinished one
+    private PayrollRun claimRun(LocalDate salaryMonth) {
+        PayrollRun run = payrollRunRepository.findBySalaryMonth(salaryMonth).orElse(null);
+        if (run == null) {
+            try {
+                run = payrollRunRepository.save(PayrollRun.builder()
+                        .salaryMonth(salaryMonth)
+                        .status(PayrollRunStatus.RUNNING)
+                        .startedAt(LocalDateTime.now())
+                        .build());
+            } catch (DataIntegrityViolationException e) {
+                run = payrollRunRepository.findBySalaryMonth(salaryMonth).orElseThrow(() -> e);
+            }
+        }
+        if (run.getStatus() != PayrollRunStatus.COMPLETED) {
+            if (run.getLastEmployeeId() > 0) {
+                System.out.println("Resuming payroll run for " + salaryMonth + " after employee " + run.getLastEmployeeId());
+            }
+            run.setStatus(PayrollRunStatus.RUNNING);
+            run.setLastError(null);
+            run = payrollRunRepository.save(run);
+        }
+        return run;
+    }
+
+    private ChunkResult processChunk(List<PayrollInput> employees, LocalDate salaryMonth, int workingDays) {
+        long start = System.nanoTime();
+        List<Payroll> payrolls = new ArrayList<>(employees.size());
+        PayrollResult result = payrollRulesEngine.newResult();
+        for (PayrollInput employee : employees) {
+            PayrollPlan plan = payrollRulesEngine.planFor(employee.getDepartment(), employee.getDesignation());
+            plan.evaluate(workingDays, employee.getUnpaidLeaveDays(), employee.getAbsentDays(), result);
+            payrolls.add(result.toPayroll(employee.getEmployeeId(), salaryMonth));
+        }
+        int written;
+        for (int attempt = 1; ; attempt++) {
+            try {
+                written = payrollJdbcRepository.batchInsertPayrolls(payrolls);
+                break;
+            } catch (PessimisticLockingFailureException e) {
+                // INSERT IGNORE is idempotent, so a deadlock victim can simply retry
+                if (attempt >= WRITE_ATTEMPTS) {
+                    throw e;
+                }
+            }
+        }
+        return new ChunkResult(employees.get(employees.size() - 1).getEmployeeId(), employees.size(), written,
+                (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private static String truncate(String message) {
+        return message.length() <= 512 ? message : message.substring(0, 512);
+    }
+
+    /**
+     * Collects out-of-order chunk completions and persists the checkpoint whenever the
+     * contiguous prefix of finished chunks grows.
+     */
+    private final class Watermark {
+        private final long runId;
+        private final long resumedAfter;
+        private final TreeMap<Long, ChunkResult> finished = new TreeMap<>();
+        private long next;
+        private boolean closed;
+        private final AtomicLong employees = new AtomicLong();
+        private final AtomicLong rows = new AtomicLong();
+        private final AtomicLong chunks = new AtomicLong();
+        private final AtomicLong chunkMillis = new AtomicLong();
+        private final AtomicLong slowestChunkMillis = new AtomicLong();
+
+        Watermark(long runId, long resumedAfter) {
+            this.runId = runId;
+            this.resumedAfter = resumedAfter;
+        }
+
+        synchronized void close() {
+            closed = true;
+        }
+
+        synchronized void complete(long sequence, ChunkResult result) {
+            if (closed) {
+                return;
+            }
+            employees.addAndGet(result.employees());
+            rows.addAndGet(result.rowsWritten());
+            chunks.incrementAndGet();
+            chunkMillis.addAndGet(result.millis());
+            slowestChunkMillis.accumulateAndGet(result.millis(), Math::max);
+            finished.put(sequence, result);
+            long lastEmployeeId = 0;
+            long employeeCount = 0;
+            long rowCount = 0;
+            long chunkCount = 0;
+            while (!finished.isEmpty() && finished.firstKey() == next) {
+                ChunkResult done = finished.pollFirstEntry().getValue();
+                lastEmployeeId = done.lastEmployeeId();
+                employeeCount += done.employees();
+                rowCount += done.rowsWritten();
+                chunkCount++;
+                next++;
+            }
+            if (chunkCount > 0) {
+                payrollJdbcRepository.advanceCheckpoint(runId, lastEmployeeId, employeeCount, rowCount, chunkCount);
+            }
+        }
+    }
+}
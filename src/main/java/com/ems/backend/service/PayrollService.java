@@ -1,11 +1,12 @@
 package com.ems.backend.service;
 
 import com.ems.backend.entity.Payroll;
+import com.ems.backend.entity.PayrollComponentType;
+import com.ems.backend.entity.PayrollLineItem;
 import com.ems.backend.entity.User;
 import com.ems.backend.repository.PayrollRepository;
 import com.ems.backend.repository.UserRepository;
-import com.ems.backend.repository.LeaveRequestRepository;
-import com.ems.backend.entity.LeaveStatus;
+import com.ems.backend.service.payroll.PayrollAmounts;
 import org.apache.pdfbox.pdmodel.PDDocument;
 import org.apache.pdfbox.pdmodel.PDPage;
 import org.apache.pdfbox.pdmodel.PDPageContentStream;
@@ -14,6 +15,7 @@ import org.springframework.stereotype.Service;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.time.LocalDate;
 import java.util.List;
 
 @Service
@@ -21,19 +23,29 @@ public class PayrollService {
 
     private final PayrollRepository payrollRepository;
     private final UserRepository userRepository;
-    private final LeaveRequestRepository leaveRequestRepository;
+    private final LeaveService leaveService;
 
     public PayrollService(PayrollRepository payrollRepository,
                           UserRepository userRepository,
-                          LeaveRequestRepository leaveRequestRepository) {
+                          LeaveService leaveService) {
         this.payrollRepository = payrollRepository;
         this.userRepository = userRepository;
-        this.leaveRequestRepository = leaveRequestRepository;
+        this.leaveService = leaveService;
     }
 
+    // Manual payroll: the totals are summed in minor units so the net is exact to the paisa
     public Payroll createPayroll(Payroll payroll) {
-        double netSalary = payroll.getBasicSalary() + payroll.getAllowances() - payroll.getDeductions();
-        payroll.setNetSalary(netSalary);
+        long basic = PayrollAmounts.toMinor(payroll.getBasicSalary());
+        long allowances = PayrollAmounts.toMinor(payroll.getAllowances());
+        long deductions = PayrollAmounts.toMinor(payroll.getDeductions());
+        payroll.setBasicSalary(PayrollAmounts.toMajor(basic));
+        payroll.setAllowances(PayrollAmounts.toMajor(allowances));
+        payroll.setDeductions(PayrollAmounts.toMajor(deductions));
+        payroll.setNetSalary(PayrollAmounts.toMajor(basic + allowances - deductions));
+        payroll.setLineItems(List.of(
+                new PayrollLineItem("BASIC", PayrollComponentType.BASIC, basic),
+                new PayrollLineItem("ALLOWANCES", PayrollComponentType.ALLOWANCE, allowances),
+                new PayrollLineItem("DEDUCTIONS", PayrollComponentType.DEDUCTION, deductions)));
         return payrollRepository.save(payroll);
     }
 
@@ -54,13 +66,9 @@ public class PayrollService {
         User employee = userRepository.findById(payroll.getEmployeeId())
                 .orElseThrow(() -> new RuntimeException("Employee not found"));
 
-        // Count approved leaves for current year
-        long leavesTaken = leaveRequestRepository.findByEmployeeId(employee.getId()).stream()
-                .filter(l -> l.getStatus() == LeaveStatus.APPROVED)
-                .count();
-
-        int totalLeaveQuota = 20; // Example: 20 leaves allowed per year
-        long leaveBalance = totalLeaveQuota - leavesTaken;
+        // Paid leave left in the slip's year, read from the balance ledger
+        int year = payroll.getSalaryMonth() != null ? payroll.getSalaryMonth().getYear() : LocalDate.now().getYear();
+        int leaveBalance = leaveService.getRemainingPaidDays(employee.getId(), year);
 
         try (PDDocument document = new PDDocument();
              ByteArrayOutputStream out = new ByteArrayOutputStream()) {
@@ -106,6 +114,18 @@ public class PayrollService {
             contentStream.showText("Leave Balance: " + leaveBalance + " days");
             contentStream.endText();
 
+            // Breakdown
+            if (payroll.getLineItems() != null && !payroll.getLineItems().isEmpty()) {
+                contentStream.beginText();
+                contentStream.newLineAtOffset(50, 500);
+                for (PayrollLineItem item : payroll.getLineItems()) {
+                    contentStream.showText(item.getCode() + " (" + item.getType() + "): "
+                            + PayrollAmounts.toMajor(item.getAmount()));
+                    contentStream.newLineAtOffset(0, -20);
+                }
+                contentStream.endText();
+            }
+
             contentStream.close();
             document.save(out);
             return out.toByteArray();
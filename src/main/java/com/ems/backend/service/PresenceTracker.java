@@ -0,0 +1,202 @@
+package com.ems.backend.service;
+
+import com.ems.backend.dto.AttendanceEvent;
+import com.ems.backend.dto.AttendanceEventsDropped;
+import com.ems.backend.dto.PresenceDelta;
+import com.ems.backend.entity.Attendance;
+import com.ems.backend.repository.AttendanceJdbcRepository;
+import jakarta.annotation.PostConstruct;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.simp.SimpMessageSendingOperations;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.BitSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Today's office presence as two bitmaps indexed by employee id: who is in right now,
+ * and who has checked in and already left. User ids are dense IDENTITY values, so a
+ * plain {@link BitSet} costs one bit per employee and answers counts and membership
+ * without touching the database. Writes hold the lock only for a bit flip; the STOMP
+ * push happens after it is released.
+ */
+@Service
+public class PresenceTracker {
+
+    public static final String TOPIC = "/topic/presence";
+
+    public enum Status {
+        IN,
+        OUT,
+        ABSENT
+    }
+
+    private final AttendanceJdbcRepository attendanceJdbcRepository;
+    private final SimpMessageSendingOperations messagingTemplate;
+    private final StampedLock lock = new StampedLock();
+
+    private LocalDate date;
+    private BitSet checkedIn = new BitSet();
+    private BitSet checkedOut = new BitSet();
+
+    public PresenceTracker(AttendanceJdbcRepository attendanceJdbcRepository,
+                           SimpMessageSendingOperations messagingTemplate) {
+        this.attendanceJdbcRepository = attendanceJdbcRepository;
+        this.messagingTemplate = messagingTemplate;
+    }
+
+    @PostConstruct
+    public void rebuild() {
+        LocalDate today = LocalDate.now();
+        BitSet in = new BitSet();
+        BitSet out = new BitSet();
+        for (Attendance a : attendanceJdbcRepository.findAllByDate(today)) {
+            int bit = toBit(a.getEmployeeId());
+            if (bit < 0) {
+                continue;
+            }
+            (a.getCheckOut() != null ? out : in).set(bit);
+        }
+        long stamp = lock.writeLock();
+        try {
+            date = today;
+            checkedIn = in;
+            checkedOut = out;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Applies check-ins and check-outs accepted by {@link AttendanceRecorder}.
+     */
+    @EventListener
+    public void onAttendanceEvent(AttendanceEvent event) {
+        int bit = toBit(event.getEmployeeId());
+        if (bit < 0) {
+            return;
+        }
+        boolean in = event.getType() == AttendanceEvent.Type.CHECK_IN;
+        int inCount;
+        int outCount;
+        long stamp = lock.writeLock();
+        try {
+            if (!event.getDate().equals(date)) {
+                if (event.getDate().isBefore(date)) {
+                    return; // late event for a day that has already rolled over
+                }
+                date = event.getDate();
+                checkedIn = new BitSet();
+                checkedOut = new BitSet();
+            }
+            if (in) {
+                checkedIn.set(bit);
+            } else {
+                checkedIn.clear(bit);
+                checkedOut.set(bit);
+            }
+            inCount = checkedIn.cardinality();
+            outCount = checkedOut.cardinality();
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+
+        try {
+            messagingTemplate.convertAndSend(TOPIC, new PresenceDelta(event.getEmployeeId(),
+                    in ? Status.IN.name() : Status.OUT.name(), inCount, outCount, event.getTime()));
+        } catch (RuntimeException e) {
+            System.err.println("Failed to publish presence update: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Reverts events the recorder accepted but could not write, newest first.
+     */
+    @EventListener
+    public void onAttendanceEventsDropped(AttendanceEventsDropped dropped) {
+        List<AttendanceEvent> events = dropped.getEvents();
+        long stamp = lock.writeLock();
+        try {
+            for (int i = events.size() - 1; i >= 0; i--) {
+                AttendanceEvent event = events.get(i);
+                int bit = toBit(event.getEmployeeId());
+                if (bit < 0 || !event.getDate().equals(date)) {
+                    continue;
+                }
+                if (event.getType() == AttendanceEvent.Type.CHECK_IN) {
+                    checkedIn.clear(bit);
+                } else if (checkedOut.get(bit)) {
+                    checkedOut.clear(bit);
+                    checkedIn.set(bit);
+                }
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    public Status getStatus(Long employeeId) {
+        int bit = toBit(employeeId);
+        if (bit < 0) {
+            return Status.ABSENT;
+        }
+        long stamp = lock.readLock();
+        try {
+            return statusOf(bit);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    public Map<String, Object> getCounts() {
+        long stamp = lock.readLock();
+        try {
+            Map<String, Object> counts = new LinkedHashMap<>();
+            counts.put("date", currentDate());
+            counts.put("checkedIn", isToday() ? checkedIn.cardinality() : 0);
+            counts.put("checkedOut", isToday() ? checkedOut.cardinality() : 0);
+            return counts;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    public long[] getMembers(Status status) {
+        long stamp = lock.readLock();
+        try {
+            if (status == Status.ABSENT || !isToday()) {
+                return new long[0];
+            }
+            return (status == Status.IN ? checkedIn : checkedOut).stream().asLongStream().toArray();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    private Status statusOf(int bit) {
+        // a stale bitmap from yesterday reads as nobody present
+        if (!isToday()) {
+            return Status.ABSENT;
+        }
+        if (checkedIn.get(bit)) {
+            return Status.IN;
+        }
+        return checkedOut.get(bit) ? Status.OUT : Status.ABSENT;
+    }
+
+    private boolean isToday() {
+        return currentDate().equals(date);
+    }
+
+    private static LocalDate currentDate() {
+        return LocalDate.now();
+    }
+
+    private static int toBit(Long employeeId) {
+        return employeeId == null || employeeId < 0 || employeeId > Integer.MAX_VALUE - 1 ? -1 : employeeId.intValue();
+    }
+}
@@ -1,36 +1,100 @@
 package com.ems.backend.service;
 
+import com.ems.backend.auth.JwtUtil;
+import com.ems.backend.auth.TokenRevocationRegistry;
+import com.ems.backend.entity.User;
 import io.jsonwebtoken.*;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.security.Key;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.UUID;
 
 @Service
 public class RefreshTokenService {
 
-    private final String SECRET = "refresh_secret_key"; // ideally keep in env vars
-    private final long EXPIRATION = 1000 * 60 * 60 * 24 * 7; // 7 days
+    @Value("${jwt.refresh.secret}")
+    private String SECRET_KEY;
 
-    public String generateRefreshToken(String username) {
+    @Value("${jwt.refresh.expiration:604800000}")
+    private long EXPIRATION_TIME;
+
+    private final TokenRevocationRegistry revocationRegistry;
+
+    private Key signingKey;
+    private JwtParser jwtParser;
+
+    public RefreshTokenService(TokenRevocationRegistry revocationRegistry) {
+        this.revocationRegistry = revocationRegistry;
+    }
+
+    @PostConstruct
+    void init() {
+        this.signingKey = Keys.hmacShaKeyFor(Decoders.BASE64.decode(SECRET_KEY));
+        this.jwtParser = Jwts.parserBuilder()
+                .setSigningKey(signingKey)
+                .build();
+    }
+
+    public String newFamilyId() {
+        return UUID.randomUUID().toString();
+    }
+
+    public String generateRefreshToken(User user, String familyId) {
+        long now = System.currentTimeMillis();
+        Map<String, Object> claims = new HashMap<>();
+        claims.put(JwtUtil.CLAIM_USER_ID, user.getId());
+        claims.put(JwtUtil.CLAIM_SECURITY_VERSION, user.getSecurityVersion());
+        claims.put(JwtUtil.CLAIM_FAMILY, familyId);
         return Jwts.builder()
-                .setSubject(username)
-                .setIssuedAt(new Date())
-                .setExpiration(new Date(System.currentTimeMillis() + EXPIRATION))
-                .signWith(SignatureAlgorithm.HS256, SECRET)
+                .setClaims(claims)
+                .setSubject(user.getUsername())
+                .setId(UUID.randomUUID().toString())
+                .setIssuedAt(new Date(now))
+                .setExpiration(new Date(now + EXPIRATION_TIME))
+                .signWith(signingKey, SignatureAlgorithm.HS256)
                 .compact();
     }
 
-    public String validateRefreshToken(String token) {
+    /**
+     * Validates a refresh token and consumes it, so each refresh token can be used exactly
+     * once. Presenting an already-used token is treated as theft: the whole family is
+     * revoked, which also invalidates the access tokens issued from it.
+     *
+     * @return the claims of the consumed token, or {@code null} if it must not be honoured
+     */
+    public Claims consumeRefreshToken(String token) {
+        Claims claims;
         try {
-            return Jwts.parser()
-                    .setSigningKey(SECRET)
-                    .parseClaimsJws(token)
-                    .getBody()
-                    .getSubject();
-        } catch (JwtException e) {
+            claims = jwtParser.parseClaimsJws(token).getBody();
+        } catch (JwtException | IllegalArgumentException e) {
             return null;
         }
+
+        Long userId = claims.get(JwtUtil.CLAIM_USER_ID, Long.class);
+        String familyId = claims.get(JwtUtil.CLAIM_FAMILY, String.class);
+        if (claims.getId() == null || userId == null || familyId == null
+                || claims.get(JwtUtil.CLAIM_SECURITY_VERSION) == null
+                || revocationRegistry.isFamilyRevoked(familyId)) {
+            return null;
+        }
+
+        // first use wins atomically; any later presentation of the same jti is a replay
+        if (!revocationRegistry.revokeToken(claims.getId(), userId, claims.getExpiration().getTime())) {
+            revokeFamily(familyId, userId);
+            return null;
+        }
+        return claims;
+    }
+
+    public void revokeFamily(String familyId, Long userId) {
+        // outlives every token that could still have been issued in the family
+        revocationRegistry.revokeFamily(familyId, userId, System.currentTimeMillis() + EXPIRATION_TIME);
     }
 }
@@ -0,0 +1,130 @@
+package com.ems.backend.service;
+
+import com.ems.backend.dto.TeamCalendarDay;
+import com.ems.backend.dto.TeamLeaveEntry;
+import com.ems.backend.entity.LeaveRequest;
+import com.ems.backend.repository.LeaveRequestRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * "Who in the department is off" for a date range. Approved leave is read one
+ * (department, month) at a time from an indexed join of LeaveRequest and User, and each
+ * month is cached for {@code ems.leave.calendar.cache-ttl-millis}. Approving or rejecting
+ * a request drops the cached months it touches once the change commits.
+ */
+@Service
+public class TeamLeaveCalendarService {
+
+    public static final int MAX_RANGE_DAYS = 92;
+
+    private record MonthKey(String department, YearMonth month) {
+    }
+
+    private record CachedMonth(List<TeamLeaveEntry> entries, long loadedAtMillis) {
+    }
+
+    private final LeaveRequestRepository leaveRequestRepository;
+    private final long ttlMillis;
+    private final Map<MonthKey, CachedMonth> cache = new ConcurrentHashMap<>();
+    // bumped on every invalidation, so a load that raced with one is not cached
+    private final AtomicLong generation = new AtomicLong();
+
+    public TeamLeaveCalendarService(LeaveRequestRepository leaveRequestRepository,
+                                    @Value("${ems.leave.calendar.cache-ttl-millis:60000}") long ttlMillis) {
+        this.leaveRequestRepository = leaveRequestRepository;
+        this.ttlMillis = ttlMillis;
+    }
+
+    /**
+     * One entry per day in [from, to], each listing the department's approved leave
+     * covering that day.
+     */
+    public List<TeamCalendarDay> getCalendar(String department, LocalDate from, LocalDate to) {
+        if (department == null || department.isBlank()) {
+            throw new IllegalArgumentException("A department is required.");
+        }
+        if (from.isAfter(to)) {
+            throw new IllegalArgumentException("'from' must not be after 'to'");
+        }
+        if (ChronoUnit.DAYS.between(from, to) >= MAX_RANGE_DAYS) {
+            throw new IllegalArgumentException("The calendar covers at most " + MAX_RANGE_DAYS + " days per request.");
+        }
+
+        List<TeamCalendarDay> days = new ArrayList<>();
+        for (LocalDate day = from; !day.isAfter(to); day = day.plusDays(1)) {
+            days.add(new TeamCalendarDay(day, new ArrayList<>()));
+        }
+        for (YearMonth month = YearMonth.from(from); !month.isAfter(YearMonth.from(to)); month = month.plusMonths(1)) {
+            LocalDate monthStart = month.atDay(1).isBefore(from) ? from : month.atDay(1);
+            LocalDate monthEnd = month.atEndOfMonth().isAfter(to) ? to : month.atEndOfMonth();
+            for (TeamLeaveEntry entry : monthEntries(department, month)) {
+                LocalDate start = entry.getStartDate().isBefore(monthStart) ? monthStart : entry.getStartDate();
+                LocalDate end = entry.getEndDate().isAfter(monthEnd) ? monthEnd : entry.getEndDate();
+                for (LocalDate day = start; !day.isAfter(end); day = day.plusDays(1)) {
+                    days.get((int) ChronoUnit.DAYS.between(from, day)).getOnLeave().add(entry);
+                }
+            }
+        }
+        return days;
+    }
+
+    /**
+     * Drops every cached month the request touches, in all departments; inside a
+     * transaction this happens after commit.
+     */
+    public void invalidate(LeaveRequest leave) {
+        YearMonth first = YearMonth.from(leave.getStartDate());
+        YearMonth last = YearMonth.from(leave.getEndDate());
+        Runnable evict = () -> {
+            generation.incrementAndGet();
+            cache.keySet().removeIf(key -> !key.month().isBefore(first) && !key.month().isAfter(last));
+        };
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evict.run();
+                }
+            });
+        } else {
+            evict.run();
+        }
+    }
+
+    @Scheduled(fixedDelay = 60000)
+    public void evictExpired() {
+        long cutoff = System.currentTimeMillis() - ttlMillis;
+        cache.values().removeIf(cached -> cached.loadedAtMillis() < cutoff);
+    }
+
+    private List<TeamLeaveEntry> monthEntries(String department, YearMonth month) {
+        MonthKey key = new MonthKey(department, month);
+        long now = System.currentTimeMillis();
+        CachedMonth cached = cache.get(key);
+        if (cached != null && now - cached.loadedAtMillis() < ttlMillis) {
+            return cached.entries();
+        }
+        long loadedGeneration = generation.get();
+        List<TeamLeaveEntry> entries = List.copyOf(
+                leaveRequestRepository.findApprovedTeamLeave(department, month.atDay(1), month.atEndOfMonth()));
+        CachedMonth loaded = new CachedMonth(entries, now);
+        cache.put(key, loaded);
+        if (generation.get() != loadedGeneration) {
+            cache.remove(key, loaded);
+        }
+        return entries;
+    }
+}
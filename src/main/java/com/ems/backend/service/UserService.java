@@ -1,14 +1,14 @@
 // src/main/java/com/ems/backend/service/UserService.java
 package com.ems.backend.service;
 import lombok.*;
+import com.ems.backend.auth.PasswordValidator;
+import com.ems.backend.auth.UserSnapshotCache;
 import com.ems.backend.dto.UserRegistrationDto;
 import com.ems.backend.entity.Role;
 import com.ems.backend.entity.User;
 import com.ems.backend.repository.UserRepository;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import jakarta.mail.MessagingException;
-import com.ems.backend.entity.PasswordValidator;
 
 import java.time.LocalDate;
 import java.util.List;
@@ -17,24 +17,30 @@ import java.util.List;
 public class UserService {
 
     private final UserRepository userRepository;
-    private final PasswordEncoder passwordEncoder;
     private final EmailService emailService;
+    private final UserSnapshotCache userSnapshotCache;
+    private final PasswordHashingService passwordHashingService;
+    private final PasswordValidator passwordValidator;
 
-    public UserService(UserRepository userRepository, PasswordEncoder passwordEncoder, EmailService emailService) {
+    public UserService(UserRepository userRepository, PasswordHashingService passwordHashingService,
+                       EmailService emailService, UserSnapshotCache userSnapshotCache,
+                       PasswordValidator passwordValidator) {
         this.userRepository = userRepository;
-        this.passwordEncoder = passwordEncoder;
+        this.passwordHashingService = passwordHashingService;
         this.emailService = emailService;
+        this.userSnapshotCache = userSnapshotCache;
+        this.passwordValidator = passwordValidator;
     }
 
     // Admin creates new employee
     public User registerUser(UserRegistrationDto dto) {
-        if (!PasswordValidator.isValid(dto.getPassword())) { // ✅ Added password validation
+        if (!passwordValidator.isValid(dto.getPassword())) { // ✅ Added password validation
             throw new IllegalArgumentException("Password does not meet complexity requirements.");
         }
         User user = User.builder()
                 .name(dto.getName())
                 .username(dto.getUsername())
-                .password(passwordEncoder.encode(dto.getPassword()))
+                .password(passwordHashingService.encode(dto.getPassword()))
                 .contactNumber(dto.getContactNumber())
                 .department(dto.getDepartment())
                 .designation(dto.getDesignation())
@@ -62,11 +68,15 @@ public class UserService {
         user.setDepartment(dto.getDepartment());
         user.setDesignation(dto.getDesignation());
         user.setDateOfJoining(dto.getDateOfJoining());
-        return userRepository.save(user);
+        user.bumpSecurityVersion();
+        User saved = userRepository.save(user);
+        userSnapshotCache.evict(id);
+        return saved;
     }
 
     public void deleteUser(Long id) {
         userRepository.deleteById(id);
+        userSnapshotCache.evict(id);
     }
 
     // ✅ New: Approve a user and set their joining date
@@ -80,7 +90,9 @@ public class UserService {
 
         user.setApproved(true);
         user.setDateOfJoining(LocalDate.now()); // ✅ Set date of joining on approval
+        user.bumpSecurityVersion();
         userRepository.save(user);
+        userSnapshotCache.evict(userId);
 
         try {
             emailService.sendAccountApprovalEmail(user.getUsername(), user.getName());
@@ -0,0 +1,155 @@
+package com.ems.backend.service;
+
+import com.ems.backend.entity.Holiday;
+import com.ems.backend.repository.HolidayRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Working days (not a weekend, not a holiday) per year and location.
+ *
+ * <p>Each year is built once from the holiday table into a bitset over day-of-year, stored
+ * as its backing {@code long} words plus a running count of set bits before each word.
+ * Counting the working days in any range is then two word lookups and two
+ * {@link Long#bitCount} calls per year touched, with no loops over dates and no database
+ * access. Cached years are discarded whenever the holiday list changes.</p>
+ */
+@Service
+public class WorkingDayCalendar {
+
+    private record YearKey(int year, String location) {
+    }
+
+    private static final class YearCalendar {
+        private final long generation;
+        private final long[] words;
+        private final int[] setBitsBeforeWord;
+
+        YearCalendar(long generation, BitSet workingDays, int daysInYear) {
+            this.generation = generation;
+            this.words = new long[(daysInYear + 63) / 64];
+            long[] packed = workingDays.toLongArray();
+            System.arraycopy(packed, 0, words, 0, packed.length);
+            this.setBitsBeforeWord = new int[words.length + 1];
+            for (int i = 0; i < words.length; i++) {
+                setBitsBeforeWord[i + 1] = setBitsBeforeWord[i] + Long.bitCount(words[i]);
+            }
+        }
+
+        // Working days in day-of-year indexes [0, endExclusive)
+        int countBefore(int endExclusive) {
+            int word = endExclusive >>> 6;
+            int bit = endExclusive & 63;
+            int count = setBitsBeforeWord[word];
+            if (bit != 0) {
+                count += Long.bitCount(words[word] & ((1L << bit) - 1));
+            }
+            return count;
+        }
+
+        boolean isWorking(int dayIndex) {
+            return (words[dayIndex >>> 6] & (1L << (dayIndex & 63))) != 0;
+        }
+    }
+
+    private final HolidayRepository holidayRepository;
+    private final List<DayOfWeek> weekendDays;
+    private final Map<YearKey, YearCalendar> years = new ConcurrentHashMap<>();
+    // bumped on every holiday change; a calendar built under an older generation is rebuilt
+    private final AtomicLong generation = new AtomicLong();
+
+    public WorkingDayCalendar(HolidayRepository holidayRepository,
+                              @Value("${ems.attendance.weekend-days:SATURDAY,SUNDAY}") List<DayOfWeek> weekendDays) {
+        this.holidayRepository = holidayRepository;
+        this.weekendDays = weekendDays;
+    }
+
+    /**
+     * Working days in {@code [from, to]}, both inclusive; 0 if {@code to} is before {@code from}.
+     *
+     * @param location the employee's location, or {@code null} for company-wide holidays only
+     */
+    public int countWorkingDays(LocalDate from, LocalDate to, String location) {
+        int count = 0;
+        for (int year = from.getYear(); year <= to.getYear(); year++) {
+            int startIndex = year == from.getYear() ? from.getDayOfYear() - 1 : 0;
+            int endExclusive = year == to.getYear() ? to.getDayOfYear() : LocalDate.of(year, 12, 31).getDayOfYear();
+            if (endExclusive > startIndex) {
+                YearCalendar calendar = calendarFor(year, location);
+                count += calendar.countBefore(endExclusive) - calendar.countBefore(startIndex);
+            }
+        }
+        return count;
+    }
+
+    public boolean isWorkingDay(LocalDate date, String location) {
+        return calendarFor(date.getYear(), location).isWorking(date.getDayOfYear() - 1);
+    }
+
+    // Call after any holiday is added or removed
+    public void invalidate() {
+        generation.incrementAndGet();
+        years.clear();
+    }
+
+    public Holiday addHoliday(Holiday holiday) {
+        holiday.setId(null);
+        if (holiday.getLocation() != null && holiday.getLocation().isBlank()) {
+            holiday.setLocation(null); // blank means company-wide, same as absent
+        }
+        Holiday saved = holidayRepository.save(holiday);
+        invalidate();
+        return saved;
+    }
+
+    /**
+     * @return the removed holiday, or {@code null} if there was none with that id
+     */
+    public Holiday removeHoliday(Long holidayId) {
+        Holiday holiday = holidayRepository.findById(holidayId).orElse(null);
+        if (holiday != null) {
+            holidayRepository.delete(holiday);
+            invalidate();
+        }
+        return holiday;
+    }
+
+    public List<Holiday> getHolidays(int year) {
+        return holidayRepository.findByHolidayDateBetweenOrderByHolidayDate(LocalDate.of(year, 1, 1), LocalDate.of(year, 12, 31));
+    }
+
+    private YearCalendar calendarFor(int year, String location) {
+        YearKey key = new YearKey(year, location);
+        YearCalendar calendar = years.get(key);
+        if (calendar != null && calendar.generation == generation.get()) {
+            return calendar;
+        }
+        // a build racing with invalidate() may cache a stale year; its old generation forces a rebuild
+        return years.compute(key, (k, current) ->
+                current != null && current.generation == generation.get() ? current : build(k));
+    }
+
+    private YearCalendar build(YearKey key) {
+        long builtUnder = generation.get();
+        LocalDate start = LocalDate.of(key.year(), 1, 1);
+        int daysInYear = start.lengthOfYear();
+        BitSet working = new BitSet(daysInYear);
+        for (int i = 0; i < daysInYear; i++) {
+            if (!weekendDays.contains(start.plusDays(i).getDayOfWeek())) {
+                working.set(i);
+            }
+        }
+        for (LocalDate holiday : holidayRepository.findDatesObservedAt(start, LocalDate.of(key.year(), 12, 31), key.location())) {
+            working.clear(holiday.getDayOfYear() - 1);
+        }
+        return new YearCalendar(builtUnder, working, daysInYear);
+    }
+}
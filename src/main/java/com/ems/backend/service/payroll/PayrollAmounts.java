@@ -0,0 +1,48 @@
+package com.ems.backend.service.payroll;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Conversions between major units (the doubles on {@code Payroll} and the decimals in the
+ * rules file) and the {@code long} minor units all payroll arithmetic is done in.
+ */
+public final class PayrollAmounts {
+
+    public static final int MINOR_DIGITS = 2;
+
+    private PayrollAmounts() {
+    }
+
+    /**
+     * Exact conversion; amounts with more than two decimals are rejected rather than rounded.
+     */
+    public static long toMinor(BigDecimal amount) {
+        try {
+            return amount.setScale(MINOR_DIGITS, RoundingMode.UNNECESSARY).unscaledValue().longValueExact();
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("Amount " + amount.toPlainString() + " is not a whole number of minor units");
+        }
+    }
+
+    // Doubles coming in over the API are rounded to the nearest minor unit
+    public static long toMinor(double amount) {
+        return BigDecimal.valueOf(amount).setScale(MINOR_DIGITS, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    public static double toMajor(long minor) {
+        return BigDecimal.valueOf(minor, MINOR_DIGITS).doubleValue();
+    }
+
+    // Percent (e.g. 12.5) as basis points (1250)
+    static int toBasisPoints(BigDecimal percent) {
+        if (percent.signum() < 0 || percent.compareTo(BigDecimal.valueOf(100)) > 0) {
+            throw new IllegalArgumentException("Percentage " + percent.toPlainString() + " is outside 0..100");
+        }
+        try {
+            return percent.setScale(2, RoundingMode.UNNECESSARY).unscaledValue().intValueExact();
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("Percentage " + percent.toPlainString() + " has more than two decimals");
+        }
+    }
+}
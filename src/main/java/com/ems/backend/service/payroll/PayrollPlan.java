@@ -0,0 +1,292 @@
+package com.ems.backend.service.payroll;
+
+import com.ems.backend.entity.PayrollComponentType;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * A {@link PayrollRuleSet} compiled for evaluation. Components are validated once, sorted
+ * into evaluation order (allowances, unpaid leave, absence, deductions, tax) and flattened
+ * into parallel primitive arrays, so {@link #evaluate} is a single pass of integer
+ * arithmetic in minor units that allocates nothing.
+ *
+ * <p>Line 0 is always the basic salary; line {@code i} is component {@code i - 1} in
+ * evaluation order. Percentages are held as basis points and every line is rounded half
+ * up to a whole minor unit on its own, so the lines always add up to the totals.</p>
+ *
+ * <p>{@link #getFingerprint()} identifies the compiled arithmetic, not the file it came
+ * from: two plans with the same fingerprint price every input identically.</p>
+ */
+public final class PayrollPlan {
+
+    private static final byte OP_FIXED = 0;
+    private static final byte OP_PERCENT_OF_BASIC = 1;
+    private static final byte OP_PERCENT_OF_GROSS = 2;
+    private static final byte OP_PRORATE_BASIC = 3;
+    private static final byte OP_PRORATE_GROSS = 4;
+    private static final byte OP_TAX_SLABS = 5;
+
+    private static final long BASIS_POINTS = 10_000;
+
+    private final String name;
+    private final long basicSalary;
+    private final String[] codes;
+    private final PayrollComponentType[] types;
+    private final byte[] ops;
+    private final long[] fixedAmounts;
+    private final int[] basisPoints;
+    // slabs of line i are slabUpTo / slabBasisPoints [slabStart[i], slabStart[i + 1])
+    private final int[] slabStart;
+    private final long[] slabUpTo;
+    private final int[] slabBasisPoints;
+    private String fingerprint;
+
+    private PayrollPlan(String name, long basicSalary, int lines, int slabs) {
+        this.name = name;
+        this.basicSalary = basicSalary;
+        this.codes = new String[lines];
+        this.types = new PayrollComponentType[lines];
+        this.ops = new byte[lines];
+        this.fixedAmounts = new long[lines];
+        this.basisPoints = new int[lines];
+        this.slabStart = new int[lines + 1];
+        this.slabUpTo = new long[slabs];
+        this.slabBasisPoints = new int[slabs];
+    }
+
+    /**
+     * Validates and compiles a rule set.
+     *
+     * @throws IllegalArgumentException naming the rule set and component at fault
+     */
+    public static PayrollPlan compile(PayrollRuleSet ruleSet) {
+        String name = ruleSet.getName();
+        if (name == null || name.isBlank()) {
+            throw new IllegalArgumentException("Every payroll rule set needs a name");
+        }
+        if (ruleSet.getBasicSalary() == null || ruleSet.getBasicSalary().signum() < 0) {
+            throw new IllegalArgumentException("Rule set '" + name + "' needs a non-negative basicSalary");
+        }
+        List<PayrollRuleSet.Component> components = new ArrayList<>(ruleSet.getComponents());
+        for (PayrollRuleSet.Component component : components) {
+            if (component.getType() == null || component.getType() == PayrollComponentType.BASIC) {
+                throw new IllegalArgumentException("Rule set '" + name + "': component '" + component.getCode()
+                        + "' needs a type other than BASIC");
+            }
+        }
+        // stable, so components of one type keep their file order
+        components.sort(Comparator.comparingInt(component -> component.getType().ordinal()));
+        int slabs = 0;
+        for (PayrollRuleSet.Component component : components) {
+            slabs += component.getSlabs().size();
+        }
+
+        PayrollPlan plan = new PayrollPlan(name, PayrollAmounts.toMinor(ruleSet.getBasicSalary()), components.size() + 1, slabs);
+        plan.codes[0] = "BASIC";
+        plan.types[0] = PayrollComponentType.BASIC;
+        Set<String> seen = new HashSet<>();
+        seen.add("BASIC");
+        int slab = 0;
+        for (int i = 1; i <= components.size(); i++) {
+            PayrollRuleSet.Component component = components.get(i - 1);
+            String where = "Rule set '" + name + "', component '" + component.getCode() + "': ";
+            if (component.getCode() == null || component.getCode().isBlank() || !seen.add(component.getCode())) {
+                throw new IllegalArgumentException(where + "codes must be present and unique");
+            }
+            plan.codes[i] = component.getCode();
+            plan.types[i] = component.getType();
+            plan.slabStart[i] = slab;
+            try {
+                switch (component.getType()) {
+                    case ALLOWANCE, DEDUCTION -> plan.compileAmount(i, component);
+                    case UNPAID_LEAVE, ABSENCE -> {
+                        String basis = component.getBasis() == null ? "GROSS" : component.getBasis().toUpperCase(Locale.ROOT);
+                        if (!basis.equals("BASIC") && !basis.equals("GROSS")) {
+                            throw new IllegalArgumentException("basis must be BASIC or GROSS");
+                        }
+                        plan.ops[i] = basis.equals("BASIC") ? OP_PRORATE_BASIC : OP_PRORATE_GROSS;
+                    }
+                    case TAX -> slab = plan.compileSlabs(i, component.getSlabs(), slab);
+                    default -> throw new IllegalArgumentException("unsupported type " + component.getType());
+                }
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException(where + e.getMessage(), e);
+            }
+        }
+        plan.slabStart[components.size() + 1] = slab;
+        plan.fingerprint = plan.computeFingerprint();
+        return plan;
+    }
+
+    private void compileAmount(int line, PayrollRuleSet.Component component) {
+        boolean allowance = component.getType() == PayrollComponentType.ALLOWANCE;
+        if (allowance && component.getPercentOfGross() != null) {
+            throw new IllegalArgumentException("allowances cannot be a percentage of gross pay");
+        }
+        int given = (component.getAmount() != null ? 1 : 0)
+                + (component.getPercentOfBasic() != null ? 1 : 0)
+                + (component.getPercentOfGross() != null ? 1 : 0);
+        if (given != 1) {
+            throw new IllegalArgumentException("exactly one of amount, percentOfBasic"
+                    + (allowance ? "" : ", percentOfGross") + " is required");
+        }
+        if (component.getAmount() != null) {
+            if (component.getAmount().signum() < 0) {
+                throw new IllegalArgumentException("amount must not be negative");
+            }
+            ops[line] = OP_FIXED;
+            fixedAmounts[line] = PayrollAmounts.toMinor(component.getAmount());
+        } else if (component.getPercentOfBasic() != null) {
+            ops[line] = OP_PERCENT_OF_BASIC;
+            basisPoints[line] = PayrollAmounts.toBasisPoints(component.getPercentOfBasic());
+        } else {
+            ops[line] = OP_PERCENT_OF_GROSS;
+            basisPoints[line] = PayrollAmounts.toBasisPoints(component.getPercentOfGross());
+        }
+    }
+
+    private int compileSlabs(int line, List<PayrollRuleSet.Slab> slabs, int next) {
+        if (slabs.isEmpty()) {
+            throw new IllegalArgumentException("tax needs at least one slab");
+        }
+        ops[line] = OP_TAX_SLABS;
+        long previous = 0;
+        for (int s = 0; s < slabs.size(); s++) {
+            PayrollRuleSet.Slab slab = slabs.get(s);
+            boolean last = s == slabs.size() - 1;
+            if (slab.getPercent() == null) {
+                throw new IllegalArgumentException("every slab needs a percent");
+            }
+            BigDecimal upTo = slab.getUpTo();
+            if (last != (upTo == null)) {
+                throw new IllegalArgumentException("only the last slab is open-ended, and it must be");
+            }
+            long bound = last ? Long.MAX_VALUE : PayrollAmounts.toMinor(upTo);
+            if (bound <= previous) {
+                throw new IllegalArgumentException("slab limits must be positive and increasing");
+            }
+            slabUpTo[next] = bound;
+            slabBasisPoints[next] = PayrollAmounts.toBasisPoints(slab.getPercent());
+            previous = bound;
+            next++;
+        }
+        return next;
+    }
+
+    // First 64 bits of a SHA-256 over everything evaluate() reads
+    private String computeFingerprint() {
+        StringBuilder canonical = new StringBuilder().append(basicSalary);
+        for (int i = 0; i < codes.length; i++) {
+            canonical.append('|').append(codes[i]).append(',').append(types[i]).append(',').append(ops[i])
+                    .append(',').append(fixedAmounts[i]).append(',').append(basisPoints[i]);
+            for (int s = slabStart[i]; s < slabStart[i + 1]; s++) {
+                canonical.append(',').append(slabUpTo[s]).append('@').append(slabBasisPoints[s]);
+            }
+        }
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(canonical.toString().getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest, 0, 8);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getFingerprint() {
+        return fingerprint;
+    }
+
+    public int lineCount() {
+        return codes.length;
+    }
+
+    public String code(int line) {
+        return codes[line];
+    }
+
+    public PayrollComponentType type(int line) {
+        return types[line];
+    }
+
+    public PayrollResult newResult() {
+        return new PayrollResult(lineCount());
+    }
+
+    /**
+     * Prices one employee-month into {@code result}, overwriting whatever it held.
+     *
+     * @param workingDays     working days in the month; leave and absence are prorated over them
+     * @param unpaidLeaveDays approved unpaid leave taken on working days of the month
+     * @param absentDays      working days marked absent
+     */
+    public void evaluate(int workingDays, int unpaidLeaveDays, int absentDays, PayrollResult result) {
+        long[] amounts = result.prepare(this);
+        long basic = basicSalary;
+        long gross = basic;
+        long allowances = 0;
+        long deductions = 0;
+        long lossOfPay = 0;
+        amounts[0] = basic;
+        for (int i = 1; i < codes.length; i++) {
+            long amount = switch (ops[i]) {
+                case OP_FIXED -> fixedAmounts[i];
+                case OP_PERCENT_OF_BASIC -> percentOf(basic, basisPoints[i]);
+                case OP_PERCENT_OF_GROSS -> percentOf(gross, basisPoints[i]);
+                case OP_PRORATE_BASIC, OP_PRORATE_GROSS -> prorate(ops[i] == OP_PRORATE_BASIC ? basic : gross,
+                        types[i] == PayrollComponentType.UNPAID_LEAVE ? unpaidLeaveDays : absentDays, workingDays);
+                case OP_TAX_SLABS -> tax(Math.max(0, gross - lossOfPay), slabStart[i], slabStart[i + 1]);
+                default -> throw new IllegalStateException("Unknown payroll op " + ops[i]);
+            };
+            amounts[i] = amount;
+            switch (types[i]) {
+                case ALLOWANCE -> {
+                    allowances += amount;
+                    gross += amount;
+                }
+                case UNPAID_LEAVE, ABSENCE -> {
+                    lossOfPay += amount;
+                    deductions += amount;
+                }
+                default -> deductions += amount;
+            }
+        }
+        result.setTotals(basic, allowances, deductions);
+    }
+
+    private static long percentOf(long base, int basisPoints) {
+        return (base * basisPoints + BASIS_POINTS / 2) / BASIS_POINTS;
+    }
+
+    private static long prorate(long base, int days, int workingDays) {
+        if (workingDays <= 0 || days <= 0) {
+            return 0;
+        }
+        long charged = Math.min(days, workingDays);
+        return (2 * base * charged + workingDays) / (2L * workingDays);
+    }
+
+    // Marginal tax: each slab's rate applies only to the part of the pay that falls in it
+    private long tax(long taxable, int from, int to) {
+        long scaled = 0;
+        long lower = 0;
+        for (int s = from; s < to && taxable > lower; s++) {
+            long upper = slabUpTo[s];
+            scaled += (Math.min(taxable, upper) - lower) * slabBasisPoints[s];
+            lower = upper;
+        }
+        return (scaled + BASIS_POINTS / 2) / BASIS_POINTS;
+    }
+}
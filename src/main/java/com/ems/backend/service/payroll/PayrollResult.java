@@ -0,0 +1,82 @@
+package com.ems.backend.service.payroll;
+
+import com.ems.backend.entity.Payroll;
+import com.ems.backend.entity.PayrollLineItem;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reusable output of {@link PayrollPlan#evaluate}: the amount of every line plus the
+ * totals, all in minor units. One instance per thread is reused for a whole chunk of
+ * employees; only {@link #toPayroll} allocates.
+ */
+public final class PayrollResult {
+
+    private final long[] amounts;
+    private PayrollPlan plan;
+    private long basic;
+    private long allowances;
+    private long deductions;
+
+    PayrollResult(int capacity) {
+        this.amounts = new long[capacity];
+    }
+
+    long[] prepare(PayrollPlan plan) {
+        if (plan.lineCount() > amounts.length) {
+            throw new IllegalArgumentException("Result sized for " + amounts.length + " lines, plan '"
+                    + plan.getName() + "' has " + plan.lineCount());
+        }
+        this.plan = plan;
+        return amounts;
+    }
+
+    void setTotals(long basic, long allowances, long deductions) {
+        this.basic = basic;
+        this.allowances = allowances;
+        this.deductions = deductions;
+    }
+
+    public PayrollPlan getPlan() {
+        return plan;
+    }
+
+    public long amount(int line) {
+        return amounts[line];
+    }
+
+    public long getBasic() {
+        return basic;
+    }
+
+    public long getAllowances() {
+        return allowances;
+    }
+
+    public long getDeductions() {
+        return deductions;
+    }
+
+    public long getNet() {
+        return basic + allowances - deductions;
+    }
+
+    public Payroll toPayroll(Long employeeId, LocalDate salaryMonth) {
+        List<PayrollLineItem> lineItems = new ArrayList<>(plan.lineCount());
+        for (int i = 0; i < plan.lineCount(); i++) {
+            lineItems.add(new PayrollLineItem(plan.code(i), plan.type(i), amounts[i]));
+        }
+        return Payroll.builder()
+                .employeeId(employeeId)
+                .salaryMonth(salaryMonth)
+                .basicSalary(PayrollAmounts.toMajor(basic))
+                .allowances(PayrollAmounts.toMajor(allowances))
+                .deductions(PayrollAmounts.toMajor(deductions))
+                .netSalary(PayrollAmounts.toMajor(getNet()))
+                .lineItems(lineItems)
+                .planFingerprint(plan.getFingerprint())
+                .build();
+    }
+}
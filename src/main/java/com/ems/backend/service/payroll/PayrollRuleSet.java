@@ -0,0 +1,68 @@
+package com.ems.backend.service.payroll;
+
+import com.ems.backend.entity.PayrollComponentType;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Declarative salary structure as written in the rules file; compiled into a
+ * {@link PayrollPlan} before use. Amounts are in major units (rupees / dollars) and
+ * percentages are plain percents, e.g. {@code 12.5}.
+ *
+ * <p>A rule set applies to employees whose department is in {@code departments} and whose
+ * designation (grade) is in {@code designations}; an empty list matches everyone.</p>
+ */
+@Data
+@NoArgsConstructor
+public class PayrollRuleSet {
+
+    private String name;
+    private List<String> departments = new ArrayList<>();
+    private List<String> designations = new ArrayList<>();
+    private BigDecimal basicSalary;
+    private List<Component> components = new ArrayList<>();
+
+    /**
+     * One salary component. Which fields apply depends on the type:
+     * <ul>
+     *     <li>ALLOWANCE / DEDUCTION: {@code amount}, {@code percentOfBasic} or (deductions
+     *     only) {@code percentOfGross}</li>
+     *     <li>UNPAID_LEAVE / ABSENCE: {@code basis} BASIC or GROSS, prorated over the
+     *     month's working days</li>
+     *     <li>TAX: {@code slabs}, applied marginally to gross pay less leave and absence
+     *     deductions</li>
+     * </ul>
+     */
+    @Data
+    @NoArgsConstructor
+    public static class Component {
+        private String code;
+        private PayrollComponentType type;
+        private BigDecimal amount;
+        private BigDecimal percentOfBasic;
+        private BigDecimal percentOfGross;
+        private String basis = "GROSS";
+        private List<Slab> slabs = new ArrayList<>();
+    }
+
+    /**
+     * Tax slab covering the monthly taxable pay up to {@code upTo}; the last slab leaves
+     * it out.
+     */
+    @Data
+    @NoArgsConstructor
+    public static class Slab {
+        private BigDecimal upTo;
+        private BigDecimal percent;
+    }
+
+    @Data
+    @NoArgsConstructor
+    public static class RulesFile {
+        private List<PayrollRuleSet> ruleSets = new ArrayList<>();
+    }
+}
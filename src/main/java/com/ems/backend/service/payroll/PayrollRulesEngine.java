@@ -0,0 +1,108 @@
+package com.ems.backend.service.payroll;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Holds the compiled payroll rule sets and picks the one that applies to an employee.
+ *
+ * <p>Rules are read from {@code ems.payroll.rules} (JSON, see {@link PayrollRuleSet}) and
+ * compiled once at startup, so a mistake in the file stops the application instead of
+ * surfacing halfway through a payroll run. When several rule sets match, one naming a
+ * designation beats one naming only a department, which beats a catch-all; ties go to the
+ * first in the file.</p>
+ */
+@Service
+public class PayrollRulesEngine {
+
+    private final ResourceLoader resourceLoader;
+    private final ObjectMapper objectMapper;
+    private final String rulesLocation;
+
+    // swapped as a whole so a reader never sees plans and maxLines from different installs
+    private volatile Rules rules = new Rules(List.of(), 1);
+
+    private record Rules(List<Entry> entries, int maxLines) {
+    }
+
+    private record Entry(PayrollPlan plan, List<String> departments, List<String> designations, int specificity) {
+        boolean matches(String department, String designation) {
+            // immutable lists throw on contains(null)
+            return (departments.isEmpty() || (department != null && departments.contains(department)))
+                    && (designations.isEmpty() || (designation != null && designations.contains(designation)));
+        }
+    }
+
+    public PayrollRulesEngine(ResourceLoader resourceLoader,
+                              ObjectMapper objectMapper,
+                              @Value("${ems.payroll.rules:classpath:payroll/rules.json}") String rulesLocation) {
+        this.resourceLoader = resourceLoader;
+        this.objectMapper = objectMapper;
+        this.rulesLocation = rulesLocation;
+    }
+
+    @PostConstruct
+    void load() throws IOException {
+        Resource resource = resourceLoader.getResource(rulesLocation);
+        if (!resource.exists()) {
+            System.err.println("Payroll rules not found: " + rulesLocation);
+            return;
+        }
+        try (InputStream in = resource.getInputStream()) {
+            install(objectMapper.readValue(in, PayrollRuleSet.RulesFile.class).getRuleSets());
+        }
+        System.out.println("Loaded " + rules.entries().size() + " payroll rule sets from " + rulesLocation);
+    }
+
+    /**
+     * Compiles and swaps in a new set of rules; the old ones stay in use if any fails to
+     * compile.
+     */
+    public void install(List<PayrollRuleSet> ruleSets) {
+        List<Entry> compiled = new ArrayList<>(ruleSets.size());
+        int lines = 1;
+        for (PayrollRuleSet ruleSet : ruleSets) {
+            PayrollPlan plan = PayrollPlan.compile(ruleSet);
+            List<String> departments = List.copyOf(ruleSet.getDepartments());
+            List<String> designations = List.copyOf(ruleSet.getDesignations());
+            compiled.add(new Entry(plan, departments, designations,
+                    (designations.isEmpty() ? 0 : 2) + (departments.isEmpty() ? 0 : 1)));
+            lines = Math.max(lines, plan.lineCount());
+        }
+        this.rules = new Rules(List.copyOf(compiled), lines);
+    }
+
+    /**
+     * The plan for an employee of {@code department} with {@code designation} (either may
+     * be {@code null}).
+     *
+     * @throws IllegalStateException if no rule set applies
+     */
+    public PayrollPlan planFor(String department, String designation) {
+        Entry best = null;
+        for (Entry entry : rules.entries()) {
+            if (entry.matches(department, designation) && (best == null || entry.specificity() > best.specificity())) {
+                best = entry;
+            }
+        }
+        if (best == null) {
+            throw new IllegalStateException("No payroll rule set applies to department " + department
+                    + ", designation " + designation);
+        }
+        return best.plan();
+    }
+
+    // A result large enough for any installed plan
+    public PayrollResult newResult() {
+        return new PayrollResult(rules.maxLines());
+    }
+}
@@ -0,0 +1,58 @@
+package com.ems.backend.auth;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BreachedPasswordFilterTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void matchesCaseVariantsOfListedPasswords() throws Exception {
+        BreachedPasswordFilter filter = filterOver(List.of("Password1!", "letmein"));
+
+        assertTrue(filter.mightBeBreached("Password1!"));
+        assertTrue(filter.mightBeBreached("password1!"));
+        assertTrue(filter.mightBeBreached("PASSWORD1!"));
+        assertTrue(filter.mightBeBreached("LetMeIn"));
+        assertFalse(filter.mightBeBreached("correct horse battery staple"));
+    }
+
+    @Test
+    void prebuiltFileKeepsCaseInsensitivity() throws Exception {
+        Path prebuilt = dir.resolve("breached.bin");
+        filterOver(List.of("Password1!")).writeTo(prebuilt);
+
+        BreachedPasswordFilter mapped = new BreachedPasswordFilter(new DefaultResourceLoader());
+        configure(mapped, "file:" + dir.resolve("missing.txt"), prebuilt.toString());
+        mapped.load();
+
+        assertTrue(mapped.mightBeBreached("PASSWORD1!"));
+    }
+
+    private BreachedPasswordFilter filterOver(List<String> words) throws Exception {
+        Path list = dir.resolve("passwords.txt");
+        Files.write(list, words);
+        BreachedPasswordFilter filter = new BreachedPasswordFilter(new DefaultResourceLoader());
+        configure(filter, "file:" + list, "");
+        filter.load();
+        return filter;
+    }
+
+    private static void configure(BreachedPasswordFilter filter, String wordList, String prebuilt) {
+        ReflectionTestUtils.setField(filter, "enabled", true);
+        ReflectionTestUtils.setField(filter, "wordListLocation", wordList);
+        ReflectionTestUtils.setField(filter, "prebuiltFilterFile", prebuilt);
+        ReflectionTestUtils.setField(filter, "falsePositiveRate", 0.001);
+    }
+}
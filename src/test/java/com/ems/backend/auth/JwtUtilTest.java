@@ -0,0 +1,38 @@
+package com.ems.backend.auth;
+
+import com.ems.backend.entity.Role;
+import com.ems.backend.entity.User;
+import com.ems.backend.repository.RevokedTokenRepository;
+import io.jsonwebtoken.Claims;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+
+class JwtUtilTest {
+
+    @Test
+    void cachedClaimsAreNotSharedBetweenCallers() {
+        JwtUtil jwtUtil = jwtUtil(Base64.getEncoder().encodeToString(new byte[32]));
+        String token = jwtUtil.generateToken(User.builder().id(5L).username("asha@example.com").role(Role.EMPLOYEE).build());
+
+        Claims first = jwtUtil.parseClaims(token);
+        Claims hit = jwtUtil.parseClaims(token);
+        hit.setSubject("mallory@example.com");
+
+        assertEquals(1, jwtUtil.getVerifiedCacheHits());
+        assertEquals("asha@example.com", first.getSubject());
+        assertEquals("asha@example.com", jwtUtil.parseClaims(token).getSubject());
+    }
+
+    private static JwtUtil jwtUtil(String secret) {
+        JwtUtil jwtUtil = new JwtUtil(new TokenRevocationRegistry(mock(RevokedTokenRepository.class)));
+        ReflectionTestUtils.setField(jwtUtil, "SECRET_KEY", secret);
+        ReflectionTestUtils.setField(jwtUtil, "EXPIRATION_TIME", 60_000L);
+        ReflectionTestUtils.setField(jwtUtil, "verifiedCacheMaxEntries", 100);
+        return jwtUtil;
+    }
+}
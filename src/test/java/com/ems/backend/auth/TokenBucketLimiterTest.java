@@ -0,0 +1,117 @@
+package com.ems.backend.auth;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TokenBucketLimiterTest {
+
+    @Test
+    void throttlesBurstBeyondCapacityAndRefills() {
+        TokenBucketLimiter limiter = new TokenBucketLimiter(5, 60, 1000, 60000);
+        long start = 0;
+        for (int i = 0; i < 5; i++) {
+            assertTrue(limiter.tryAcquire("alice", start));
+        }
+        assertFalse(limiter.tryAcquire("alice", start));
+        // 60/minute refills one token per second
+        assertTrue(limiter.tryAcquire("alice", start + TimeUnit.SECONDS.toNanos(1)));
+        assertEquals(1, limiter.getThrottled());
+    }
+
+    @Test
+    void evictsIdleKeysAndStaysBounded() {
+        TokenBucketLimiter limiter = new TokenBucketLimiter(5, 5, 100, 1000);
+        for (int i = 0; i < 100; i++) {
+            limiter.tryAcquire("user" + i, 0);
+        }
+        assertEquals(100, limiter.size());
+        // the scheduled sweep, not the request path, removes the stale ones
+        limiter.tryAcquire("late", TimeUnit.SECONDS.toNanos(5));
+        assertEquals(100, limiter.size());
+        limiter.evictIdle(TimeUnit.SECONDS.toNanos(5));
+        assertEquals(0, limiter.size());
+        limiter.tryAcquire("late", TimeUnit.SECONDS.toNanos(5));
+        assertEquals(1, limiter.size());
+    }
+
+    @Test
+    void overflowKeysShareOneBucketInsteadOfFailingOpen() {
+        TokenBucketLimiter limiter = new TokenBucketLimiter(5, 5, 10, 60_000);
+        for (int i = 0; i < 10; i++) {
+            assertTrue(limiter.tryAcquire("user" + i, 0));
+        }
+        // the map is full: a spray of new keys drains a single shared bucket
+        int granted = 0;
+        for (int i = 0; i < 1000; i++) {
+            granted += limiter.tryAcquire("spray" + i, 0) ? 1 : 0;
+        }
+        assertEquals(5, granted);
+        assertEquals(10, limiter.size());
+        assertEquals(1000, limiter.getOverflowed());
+        assertTrue(limiter.secondsUntilAvailable("spray-next") > 0);
+    }
+
+    @Test
+    void admitsEveryConcurrentLegitimateLogin() throws Exception {
+        TokenBucketLimiter limiter = new TokenBucketLimiter(5, 5, 100_000, 600_000);
+        runConcurrentLogins(limiter, 8, 10_000);
+        assertEquals(80_000, limiter.getAllowed());
+        assertEquals(0, limiter.getThrottled());
+        assertEquals(0, limiter.getOverflowed());
+    }
+
+    @Test
+    @Tag("benchmark")
+    void addsNegligibleLatencyToConcurrentLegitimateLogins() throws Exception {
+        TokenBucketLimiter limiter = new TokenBucketLimiter(5, 5, 100_000, 600_000);
+        int threads = 8;
+        int loginsPerThread = 10_000;
+        long totalNanos = runConcurrentLogins(limiter, threads, loginsPerThread);
+
+        double meanMicros = totalNanos / 1000.0 / (threads * loginsPerThread);
+        System.out.printf("login throttle: mean %.2f us per admission check%n", meanMicros);
+        assertEquals(0, limiter.getThrottled());
+        // a BCrypt verification costs tens of milliseconds; the admission check must be noise next to it
+        assertTrue(meanMicros < 100, "mean admission latency " + meanMicros + "us");
+    }
+
+    // Every user logs in once from its own thread slice; returns the summed time spent in tryAcquire
+    private static long runConcurrentLogins(TokenBucketLimiter limiter, int threads, int loginsPerThread) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch startGate = new CountDownLatch(1);
+        List<Future<Long>> results = new ArrayList<>();
+
+        for (int t = 0; t < threads; t++) {
+            int threadId = t;
+            results.add(pool.submit(() -> {
+                startGate.await();
+                long begin = System.nanoTime();
+                for (int i = 0; i < loginsPerThread; i++) {
+                    // every user logs in once: none of these should be throttled
+                    assertTrue(limiter.tryAcquire("user-" + threadId + "-" + i));
+                }
+                return System.nanoTime() - begin;
+            }));
+        }
+
+        startGate.countDown();
+        long totalNanos = 0;
+        for (Future<Long> result : results) {
+            totalNanos += result.get(30, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+        return totalNanos;
+    }
+}
@@ -0,0 +1,133 @@
+package com.ems.backend.repository;
+
+import com.ems.backend.dto.AttendanceEvent;
+import com.ems.backend.service.AttendanceRules;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class AttendanceJdbcRepositoryConcurrencyTest {
+
+    private static final int THREADS = 16;
+    private static final int ATTEMPTS_PER_THREAD = 50;
+
+    private JdbcTemplate jdbcTemplate;
+    private AttendanceJdbcRepository repository;
+
+    @BeforeEach
+    void createSchema() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:attendance-upsert;MODE=MySQL;DB_CLOSE_DELAY=-1", "sa", "");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE attendance (id BIGINT AUTO_INCREMENT PRIMARY KEY, "
+                + "employee_id BIGINT, check_in TIMESTAMP, check_out TIMESTAMP, date DATE, "
+                + "status VARCHAR(16), late_minutes INT, worked_minutes INT, overtime_minutes INT, "
+                + "CONSTRAINT uk_attendance_employee_date UNIQUE (employee_id, date))");
+        jdbcTemplate.execute("CREATE TABLE attendance_monthly_summary (id BIGINT AUTO_INCREMENT PRIMARY KEY, "
+                + "employee_id BIGINT NOT NULL, summary_month DATE NOT NULL, days_present INT NOT NULL, "
+                + "total_minutes BIGINT NOT NULL, late_count INT NOT NULL, "
+                + "CONSTRAINT uk_attendance_summary_employee_month UNIQUE (employee_id, summary_month))");
+        repository = new AttendanceJdbcRepository(jdbcTemplate, new AttendanceRules("09:00", 10, 540));
+    }
+
+    @AfterEach
+    void dropSchema() {
+        jdbcTemplate.execute("DROP TABLE attendance_monthly_summary");
+        jdbcTemplate.execute("DROP TABLE attendance");
+    }
+
+    @Test
+    void concurrentCheckInsForOneEmployeeCreateExactlyOneRow() throws Exception {
+        LocalDate today = LocalDate.now();
+
+        int created = hammer(() -> repository.insertCheckInIfAbsent(7L, today, LocalDateTime.now()));
+
+        assertEquals(1, created);
+        assertEquals(1, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM attendance WHERE employee_id = 7", Integer.class));
+    }
+
+    @Test
+    void concurrentCheckOutsForOneEmployeeRecordExactlyOnce() throws Exception {
+        LocalDate today = LocalDate.now();
+        LocalDateTime firstCheckOut = LocalDateTime.now().plusHours(8).truncatedTo(ChronoUnit.SECONDS);
+        repository.insertCheckInIfAbsent(7L, today, LocalDateTime.now());
+
+        int recorded = hammer(() -> repository.updateCheckOutIfOpen(7L, today, firstCheckOut));
+        // a later check-out must not overwrite the one that won
+        repository.updateCheckOutIfOpen(7L, today, firstCheckOut.plusHours(1));
+
+        assertEquals(1, recorded);
+        assertEquals(firstCheckOut, jdbcTemplate.queryForObject(
+                "SELECT check_out FROM attendance WHERE employee_id = 7", LocalDateTime.class));
+    }
+
+    @Test
+    void checkOutsRollUpOnceAndMatchARebuild() throws Exception {
+        LocalDate day1 = LocalDate.of(2025, 9, 1);
+        LocalDate day2 = LocalDate.of(2025, 9, 2);
+        repository.insertCheckInIfAbsent(7L, day1, day1.atTime(8, 55));
+        repository.insertCheckInIfAbsent(7L, day2, day2.atTime(9, 20));
+
+        hammer(() -> repository.updateCheckOutIfOpen(7L, day1, day1.atTime(17, 55)));
+        AttendanceEvent checkOut = new AttendanceEvent(AttendanceEvent.Type.CHECK_OUT, 7L, day2, day2.atTime(17, 20));
+        repository.batchUpdateCheckOuts(List.of(checkOut, checkOut));
+
+        Map<String, Object> incremental = summaryRow();
+        assertEquals(2, ((Number) incremental.get("days_present")).intValue());
+        assertEquals(2 * 9 * 60 - 60, ((Number) incremental.get("total_minutes")).longValue());
+        assertEquals(1, ((Number) incremental.get("late_count")).intValue());
+
+        assertEquals(1, repository.rebuildMonthlySummary(YearMonth.of(2025, 9)));
+        assertEquals(incremental, summaryRow());
+    }
+
+    private Map<String, Object> summaryRow() {
+        return jdbcTemplate.queryForMap("SELECT days_present, total_minutes, late_count "
+                + "FROM attendance_monthly_summary WHERE employee_id = 7 AND summary_month = DATE '2025-09-01'");
+    }
+
+    private int hammer(Callable<Boolean> operation) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch startGate = new CountDownLatch(1);
+        List<Future<Integer>> results = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            results.add(pool.submit(() -> {
+                startGate.await();
+                int successes = 0;
+                for (int i = 0; i < ATTEMPTS_PER_THREAD; i++) {
+                    if (operation.call()) {
+                        successes++;
+                    }
+                }
+                return successes;
+            }));
+        }
+        startGate.countDown();
+
+        int total = 0;
+        for (Future<Integer> result : results) {
+            total += result.get(30, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+        return total;
+    }
+}
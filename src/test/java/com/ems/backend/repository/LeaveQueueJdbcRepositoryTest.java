@@ -0,0 +1,93 @@
+package com.ems.backend.repository;
+
+import com.ems.backend.dto.LeaveQueueItem;
+import com.ems.backend.entity.LeaveStatus;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class LeaveQueueJdbcRepositoryTest {
+
+    private static final LocalDate EARLIEST = LocalDate.of(1970, 1, 1);
+    private static final LocalDate LATEST = LocalDate.of(9999, 12, 31);
+    private static final LocalDateTime SAME_INSTANT = LocalDateTime.of(2026, 3, 2, 9, 30);
+
+    private JdbcTemplate jdbcTemplate;
+    private LeaveQueueJdbcRepository repository;
+
+    @BeforeEach
+    void createSchema() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:leave-queue;MODE=MySQL;DB_CLOSE_DELAY=-1", "sa", "");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE users (id BIGINT PRIMARY KEY, name VARCHAR(64), department VARCHAR(64))");
+        jdbcTemplate.execute("CREATE TABLE leave_request (id BIGINT AUTO_INCREMENT PRIMARY KEY, employee_id BIGINT, "
+                + "start_date DATE, end_date DATE, type VARCHAR(16), reason VARCHAR(255), status VARCHAR(16), "
+                + "applied_on TIMESTAMP, last_modified_at TIMESTAMP)");
+        jdbcTemplate.update("INSERT INTO users (id, name, department) VALUES (1, 'Asha', 'Engineering')");
+        repository = new LeaveQueueJdbcRepository(jdbcTemplate);
+    }
+
+    @AfterEach
+    void dropSchema() {
+        jdbcTemplate.execute("DROP TABLE leave_request");
+        jdbcTemplate.execute("DROP TABLE users");
+    }
+
+    @Test
+    void pagesThroughRequestsAppliedAtTheSameInstantWithoutSkippingOrRepeating() {
+        for (int i = 0; i < 5; i++) {
+            insertLeave("PENDING", SAME_INSTANT);
+        }
+        insertLeave("APPROVED", SAME_INSTANT);
+
+        List<Long> oldestFirst = drain(true);
+        List<Long> newestFirst = drain(false);
+
+        assertEquals(List.of(1L, 2L, 3L, 4L, 5L), oldestFirst);
+        assertEquals(List.of(5L, 4L, 3L, 2L, 1L), newestFirst);
+    }
+
+    @Test
+    void backfilledRequestsShowUpInTheQueue() {
+        insertLeave("PENDING", null);
+        insertLeave("PENDING", SAME_INSTANT);
+
+        assertEquals(1, repository.backfillAppliedOn());
+        // the legacy request now sorts by its first day, after the one applied on 2 March
+        assertEquals(List.of(2L, 1L), drain(true));
+    }
+
+    // Every PENDING id, two rows per page, following the cursor of each page's last row
+    private List<Long> drain(boolean oldestFirst) {
+        List<Long> ids = new ArrayList<>();
+        LocalDateTime appliedOn = (oldestFirst ? EARLIEST : LATEST).atStartOfDay();
+        long id = oldestFirst ? 0L : Long.MAX_VALUE;
+        while (true) {
+            List<LeaveQueueItem> page = repository.findPage(LeaveStatus.PENDING, null, null,
+                    EARLIEST, LATEST, oldestFirst, appliedOn, id, 2);
+            if (page.isEmpty()) {
+                return ids;
+            }
+            page.forEach(item -> ids.add(item.getId()));
+            LeaveQueueItem last = page.get(page.size() - 1);
+            appliedOn = last.getAppliedOn();
+            id = last.getId();
+        }
+    }
+
+    private void insertLeave(String status, LocalDateTime appliedOn) {
+        jdbcTemplate.update("INSERT INTO leave_request (employee_id, start_date, end_date, type, reason, status, applied_on) "
+                        + "VALUES (1, ?, ?, 'CASUAL', 'family', ?, ?)",
+                LocalDate.of(2026, 3, 10), LocalDate.of(2026, 3, 11), status, appliedOn);
+    }
+}
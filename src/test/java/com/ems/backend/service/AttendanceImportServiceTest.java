@@ -0,0 +1,111 @@
+package com.ems.backend.service;
+
+import com.ems.backend.dto.AttendanceImportReport;
+import com.ems.backend.repository.AttendanceJdbcRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+class AttendanceImportServiceTest {
+
+    private static final int EMPLOYEES = 2_000;
+    private static final int DAYS = 5;
+    private static final int PUNCHES_PER_DAY = 4;
+
+    @TempDir
+    Path errorDir;
+
+    private JdbcTemplate jdbcTemplate;
+    private AttendanceImportService importService;
+
+    @BeforeEach
+    void createSchema() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:attendance-import;MODE=MySQL;DB_CLOSE_DELAY=-1", "sa", "");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE attendance (id BIGINT AUTO_INCREMENT PRIMARY KEY, "
+                + "employee_id BIGINT, check_in TIMESTAMP, check_out TIMESTAMP, date DATE, "
+                + "status VARCHAR(16), late_minutes INT, worked_minutes INT, overtime_minutes INT, "
+                + "CONSTRAINT uk_attendance_employee_date UNIQUE (employee_id, date))");
+        jdbcTemplate.execute("CREATE TABLE attendance_monthly_summary (id BIGINT AUTO_INCREMENT PRIMARY KEY, "
+                + "employee_id BIGINT NOT NULL, summary_month DATE NOT NULL, days_present INT NOT NULL, "
+                + "total_minutes BIGINT NOT NULL, late_count INT NOT NULL, "
+                + "CONSTRAINT uk_attendance_summary_employee_month UNIQUE (employee_id, summary_month))");
+        importService = new AttendanceImportService(new AttendanceJdbcRepository(jdbcTemplate, new AttendanceRules("09:00", 10, 540)),
+                mock(PayrollRecalcService.class), 4, errorDir.toString());
+    }
+
+    @AfterEach
+    void dropSchema() {
+        jdbcTemplate.execute("DROP TABLE attendance_monthly_summary");
+        jdbcTemplate.execute("DROP TABLE attendance");
+    }
+
+    @Test
+    void punchesMergeIntoFirstInLastOutDays() throws Exception {
+        StringBuilder csv = new StringBuilder("employee_id,timestamp,device\n");
+        for (int day = 1; day <= DAYS; day++) {
+            for (int punch = PUNCHES_PER_DAY - 1; punch >= 0; punch--) { // deliberately out of order
+                for (long employeeId = 1; employeeId <= EMPLOYEES; employeeId++) {
+                    csv.append(String.format("%d,2025-09-%02d %02d:00:00,gate-1%n", employeeId, day, 9 + punch * 2));
+                }
+            }
+        }
+
+        AttendanceImportReport report = run(csv.toString());
+
+        assertEquals(EMPLOYEES * DAYS * PUNCHES_PER_DAY, report.getPunchesAccepted());
+        assertEquals(EMPLOYEES * DAYS, report.getRowsWritten());
+        assertEquals(0, report.getLinesRejected());
+        assertNull(report.getErrorFile());
+        Map<String, Object> row = jdbcTemplate.queryForMap(
+                "SELECT check_in, check_out FROM attendance WHERE employee_id = 42 AND date = DATE '2025-09-03'");
+        assertEquals(LocalDateTime.of(2025, 9, 3, 9, 0), ((Timestamp) row.get("CHECK_IN")).toLocalDateTime());
+        assertEquals(LocalDateTime.of(2025, 9, 3, 15, 0), ((Timestamp) row.get("CHECK_OUT")).toLocalDateTime());
+        assertEquals(DAYS, jdbcTemplate.queryForObject(
+                "SELECT days_present FROM attendance_monthly_summary WHERE employee_id = 42", Integer.class));
+    }
+
+    @Test
+    void reimportWidensExistingDaysAndRejectsBadLines() throws Exception {
+        run("7,2025-09-01T10:00:00\n");
+        AttendanceImportReport report = run("""
+                7,2025-09-01T08:30:00
+                x7,2025-09-01T09:00:00
+                7,yesterday
+                7
+                7,2025-09-01T18:15:00
+                """);
+
+        assertEquals(2, report.getPunchesAccepted());
+        assertEquals(3, report.getLinesRejected());
+        List<String> errors = Files.readAllLines(Path.of(report.getErrorFile()));
+        assertEquals(4, errors.size());
+        assertTrue(errors.contains("3,invalid timestamp,7,yesterday"));
+
+        Map<String, Object> row = jdbcTemplate.queryForMap("SELECT check_in, check_out FROM attendance WHERE employee_id = 7");
+        assertEquals(LocalDateTime.of(2025, 9, 1, 8, 30), ((Timestamp) row.get("CHECK_IN")).toLocalDateTime());
+        assertEquals(LocalDateTime.of(2025, 9, 1, 18, 15), ((Timestamp) row.get("CHECK_OUT")).toLocalDateTime());
+    }
+
+    private AttendanceImportReport run(String csv) throws Exception {
+        return importService.importCsv(new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)));
+    }
+}
@@ -0,0 +1,175 @@
+package com.ems.backend.service;
+
+import com.ems.backend.dto.AttendanceEventsDropped;
+import com.ems.backend.repository.AttendanceJdbcRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * {@link AttendanceRecorder} against an in-memory database. The comparison with the old
+ * per-request check-in path (SELECT for today's row, then a single-row INSERT) is tagged
+ * {@code benchmark} and only runs with {@code mvn test -Pbenchmark}.
+ */
+class AttendanceRecorderBenchmarkTest {
+
+    private static final int EMPLOYEES = 5_000;
+
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void createSchema() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:attendance-bench;MODE=MySQL;DB_CLOSE_DELAY=-1", "sa", "");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE attendance (id BIGINT AUTO_INCREMENT PRIMARY KEY, "
+                + "employee_id BIGINT, check_in TIMESTAMP, check_out TIMESTAMP, date DATE, "
+                + "status VARCHAR(16), late_minutes INT, worked_minutes INT, overtime_minutes INT, "
+                + "CONSTRAINT uk_attendance_employee_date UNIQUE (employee_id, date))");
+        jdbcTemplate.execute("CREATE TABLE attendance_monthly_summary (id BIGINT AUTO_INCREMENT PRIMARY KEY, "
+                + "employee_id BIGINT NOT NULL, summary_month DATE NOT NULL, days_present INT NOT NULL, "
+                + "total_minutes BIGINT NOT NULL, late_count INT NOT NULL, "
+                + "CONSTRAINT uk_attendance_summary_employee_month UNIQUE (employee_id, summary_month))");
+    }
+
+    @AfterEach
+    void dropSchema() {
+        jdbcTemplate.execute("DROP TABLE attendance_monthly_summary");
+        jdbcTemplate.execute("DROP TABLE attendance");
+    }
+
+    @Test
+    void writeBehindPersistsEveryAcceptedCheckInInBatches() throws Exception {
+        AttendanceRecorder recorder = new AttendanceRecorder(new AttendanceJdbcRepository(jdbcTemplate, new AttendanceRules("09:00", 10, 540)), event -> { }, 10_000, 500, 50, 3, 10);
+        recorder.start();
+        for (long employeeId = 1; employeeId <= EMPLOYEES; employeeId++) {
+            assertEquals(AttendanceRecorder.Result.RECORDED, recorder.checkIn(employeeId));
+        }
+        recorder.shutdown();
+
+        assertEquals(EMPLOYEES, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM attendance", Integer.class));
+        assertEquals(EMPLOYEES, recorder.getEventsFlushed());
+        assertTrue(recorder.getBatchesFlushed() < EMPLOYEES / 10);
+    }
+
+    @Test
+    @Tag("benchmark")
+    void writeBehindCheckInsOutpacePerRequestWrites() throws Exception {
+        LocalDate today = LocalDate.now();
+
+        long perRequestStart = System.nanoTime();
+        for (long employeeId = 1; employeeId <= EMPLOYEES; employeeId++) {
+            List<Long> existing = jdbcTemplate.queryForList(
+                    "SELECT id FROM attendance WHERE employee_id = ? AND date = ?",
+                    Long.class, employeeId, Date.valueOf(today));
+            if (existing.isEmpty()) {
+                jdbcTemplate.update("INSERT INTO attendance (employee_id, date, check_in) VALUES (?, ?, ?)",
+                        employeeId, Date.valueOf(today), Timestamp.valueOf(LocalDateTime.now()));
+            }
+        }
+        long perRequestNanos = System.nanoTime() - perRequestStart;
+        jdbcTemplate.update("DELETE FROM attendance");
+
+        AttendanceRecorder recorder = new AttendanceRecorder(new AttendanceJdbcRepository(jdbcTemplate, new AttendanceRules("09:00", 10, 540)), event -> { }, 10_000, 500, 50, 3, 10);
+        recorder.start();
+        long writeBehindStart = System.nanoTime();
+        for (long employeeId = 1; employeeId <= EMPLOYEES; employeeId++) {
+            recorder.checkIn(employeeId);
+        }
+        long acceptNanos = System.nanoTime() - writeBehindStart;
+        recorder.shutdown();
+        long writeBehindNanos = System.nanoTime() - writeBehindStart;
+
+        System.out.printf("per-request: %,.0f check-ins/s%n", EMPLOYEES / (perRequestNanos / 1e9));
+        System.out.printf("write-behind: %,.0f check-ins/s accepted, %,.0f check-ins/s durable (%d batches)%n",
+                EMPLOYEES / (acceptNanos / 1e9), EMPLOYEES / (writeBehindNanos / 1e9), recorder.getBatchesFlushed());
+
+        assertEquals(EMPLOYEES, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM attendance", Integer.class));
+    }
+
+    @Test
+    void duplicateCheckInsAreAnsweredFromTheIndexAndQueueDrainsOnShutdown() throws Exception {
+        AttendanceRecorder recorder = new AttendanceRecorder(new AttendanceJdbcRepository(jdbcTemplate, new AttendanceRules("09:00", 10, 540)), event -> { }, 100, 10, 50, 3, 10);
+        recorder.start();
+
+        assertEquals(AttendanceRecorder.Result.RECORDED, recorder.checkIn(1L));
+        assertEquals(AttendanceRecorder.Result.ALREADY_CHECKED_IN, recorder.checkIn(1L));
+        assertEquals(AttendanceRecorder.Result.NOT_CHECKED_IN, recorder.checkOut(2L));
+        assertEquals(AttendanceRecorder.Result.RECORDED, recorder.checkOut(1L));
+        assertEquals(AttendanceRecorder.Result.ALREADY_CHECKED_OUT, recorder.checkOut(1L));
+        recorder.shutdown();
+
+        assertEquals(1, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM attendance WHERE employee_id = 1 AND check_out IS NOT NULL", Integer.class));
+    }
+
+    @Test
+    void batchThatCannotBeWrittenIsTakenBackOutOfTheIndex() throws Exception {
+        List<Object> published = new CopyOnWriteArrayList<>();
+        AttendanceRecorder recorder = new AttendanceRecorder(new AttendanceJdbcRepository(jdbcTemplate, new AttendanceRules("09:00", 10, 540)), published::add, 100, 10, 20, 3, 10);
+        recorder.start();
+        jdbcTemplate.execute("ALTER TABLE attendance RENAME TO attendance_offline");
+        try {
+            assertEquals(AttendanceRecorder.Result.RECORDED, recorder.checkIn(1L));
+            long deadline = System.currentTimeMillis() + 5_000;
+            while (recorder.getEventsDropped() == 0 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+        } finally {
+            jdbcTemplate.execute("ALTER TABLE attendance_offline RENAME TO attendance");
+        }
+
+        assertEquals(1, recorder.getEventsDropped());
+        assertEquals(3, recorder.getFlushFailures());
+        assertTrue(published.stream().anyMatch(AttendanceEventsDropped.class::isInstance));
+        // the index no longer claims a check-in, so the retry is accepted and written
+        assertEquals(AttendanceRecorder.Result.RECORDED, recorder.checkIn(1L));
+        recorder.shutdown();
+        assertEquals(1, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM attendance WHERE employee_id = 1", Integer.class));
+    }
+
+    @Test
+    void saturatedQueueWritesTheQueuedCheckInAlongWithADirectCheckOut() {
+        // never started, so nothing drains the single queue slot
+        AttendanceRecorder recorder = new AttendanceRecorder(new AttendanceJdbcRepository(jdbcTemplate, new AttendanceRules("09:00", 10, 540)), event -> { }, 1, 10, 2, 3, 10);
+
+        assertEquals(AttendanceRecorder.Result.RECORDED, recorder.checkIn(1L));
+        assertEquals(1, recorder.getQueuedCount());
+        assertEquals(AttendanceRecorder.Result.RECORDED, recorder.checkOut(1L));
+
+        assertEquals(1, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM attendance WHERE employee_id = 1 AND check_in IS NOT NULL AND check_out IS NOT NULL", Integer.class));
+    }
+
+    @Test
+    void failedDirectWriteLeavesNoStaleIndexEntry() {
+        List<Object> published = new CopyOnWriteArrayList<>();
+        AttendanceRecorder recorder = new AttendanceRecorder(new AttendanceJdbcRepository(jdbcTemplate, new AttendanceRules("09:00", 10, 540)), published::add, 1, 10, 2, 3, 10);
+        assertEquals(AttendanceRecorder.Result.RECORDED, recorder.checkIn(1L)); // fills the queue
+
+        jdbcTemplate.execute("ALTER TABLE attendance RENAME TO attendance_offline");
+        try {
+            assertThrows(RuntimeException.class, () -> recorder.checkIn(2L));
+        } finally {
+            jdbcTemplate.execute("ALTER TABLE attendance_offline RENAME TO attendance");
+        }
+
+        assertEquals(1, published.size()); // only the queued check-in was announced
+        assertEquals(AttendanceRecorder.Result.RECORDED, recorder.checkIn(2L));
+        assertEquals(1, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM attendance WHERE employee_id = 2", Integer.class));
+    }
+}
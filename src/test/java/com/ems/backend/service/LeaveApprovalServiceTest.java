@@ -0,0 +1,98 @@
+package com.ems.backend.service;
+
+import com.ems.backend.entity.ApprovalStepStatus;
+import com.ems.backend.entity.LeaveApprovalStep;
+import com.ems.backend.entity.LeaveRequest;
+import com.ems.backend.entity.Role;
+import com.ems.backend.entity.User;
+import com.ems.backend.repository.LeaveApprovalStepRepository;
+import com.ems.backend.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.access.AccessDeniedException;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class LeaveApprovalServiceTest {
+
+    private static final Long LEAVE_ID = 7L;
+    private static final Long EMPLOYEE_ID = 10L;
+
+    private LeaveService leaveService;
+    private LeaveApprovalStepRepository leaveApprovalStepRepository;
+    private UserRepository userRepository;
+    private LeaveApprovalService approvalService;
+
+    @BeforeEach
+    void setUp() {
+        leaveService = mock(LeaveService.class);
+        leaveApprovalStepRepository = mock(LeaveApprovalStepRepository.class);
+        userRepository = mock(UserRepository.class);
+        approvalService = new LeaveApprovalService(leaveService, leaveApprovalStepRepository, userRepository,
+                "MANAGER,DEPT:HR", "");
+        LeaveRequest leave = new LeaveRequest();
+        leave.setId(LEAVE_ID);
+        leave.setEmployeeId(EMPLOYEE_ID);
+        when(leaveService.getLeave(LEAVE_ID)).thenReturn(leave);
+        when(userRepository.findById(EMPLOYEE_ID)).thenReturn(Optional.of(user(EMPLOYEE_ID, Role.EMPLOYEE, "Engineering")));
+    }
+
+    @Test
+    void approvingTheFirstStepHandsTheRequestToTheNextApprover() {
+        pendingStep(1, "MANAGER:Engineering");
+        when(leaveApprovalStepRepository.decide(eq(100L), eq(ApprovalStepStatus.APPROVED), eq(20L), any())).thenReturn(1);
+        when(leaveApprovalStepRepository.activate(LEAVE_ID, 2)).thenReturn(1);
+
+        LeaveApprovalService.StepResult result = approvalService.approve(LEAVE_ID, user(20L, Role.MANAGER, "Engineering"));
+
+        assertFalse(result.completed());
+        verify(leaveService, never()).approveLeave(anyLong());
+    }
+
+    @Test
+    void rejectsAManagerWhoseDepartmentDoesNotOwnTheStep() {
+        pendingStep(2, "MANAGER:HR");
+
+        assertThrows(AccessDeniedException.class,
+                () -> approvalService.approve(LEAVE_ID, user(20L, Role.MANAGER, "Engineering")));
+        verify(leaveApprovalStepRepository, never()).decide(anyLong(), any(), anyLong(), any());
+    }
+
+    @Test
+    void checksTheDepartmentOfARequestWithoutAChain() {
+        when(leaveApprovalStepRepository.findFirstByLeaveIdAndStatus(LEAVE_ID, ApprovalStepStatus.PENDING)).thenReturn(Optional.empty());
+
+        assertThrows(AccessDeniedException.class,
+                () -> approvalService.approve(LEAVE_ID, user(30L, Role.MANAGER, "Finance")));
+        verify(leaveService, never()).approveLeave(anyLong());
+    }
+
+    private void pendingStep(int order, String approverKey) {
+        when(leaveApprovalStepRepository.findFirstByLeaveIdAndStatus(LEAVE_ID, ApprovalStepStatus.PENDING))
+                .thenReturn(Optional.of(LeaveApprovalStep.builder()
+                        .id(100L)
+                        .leaveId(LEAVE_ID)
+                        .stepOrder(order)
+                        .approverKey(approverKey)
+                        .status(ApprovalStepStatus.PENDING)
+                        .build()));
+    }
+
+    private static User user(Long id, Role role, String department) {
+        User user = new User();
+        user.setId(id);
+        user.setRole(role);
+        user.setDepartment(department);
+        return user;
+    }
+}
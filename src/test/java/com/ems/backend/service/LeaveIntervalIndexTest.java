@@ -0,0 +1,105 @@
+package com.ems.backend.service;
+
+import com.ems.backend.entity.LeaveRequest;
+import com.ems.backend.entity.LeaveStatus;
+import com.ems.backend.entity.LeaveType;
+import com.ems.backend.repository.LeaveBalanceRepository;
+import com.ems.backend.repository.LeaveRequestRepository;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class LeaveIntervalIndexTest {
+
+    private static final int ROUNDS = 50;
+
+    @Test
+    void twoSimultaneousConflictingApplicationsAdmitExactlyOne() throws Exception {
+        LeaveRequestRepository leaveRequestRepository = mock(LeaveRequestRepository.class);
+        when(leaveRequestRepository.findByEmployeeIdAndStatusInOrderByStartDate(anyLong(), any()))
+                .thenAnswer(invocation -> {
+                    Thread.sleep(5); // widen the window between the two applications
+                    return List.of();
+                });
+        when(leaveRequestRepository.save(any(LeaveRequest.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        WorkingDayCalendar workingDayCalendar = mock(WorkingDayCalendar.class);
+        when(workingDayCalendar.countWorkingDays(any(), any(), any())).thenReturn(3);
+        LeaveService leaveService = new LeaveService(leaveRequestRepository, mock(LeaveBalanceRepository.class),
+                workingDayCalendar, new LeaveIntervalIndex(leaveRequestRepository, 60000),
+                new TeamLeaveCalendarService(leaveRequestRepository, 60000), mock(PayrollRecalcService.class), 10, 8, 12, 0);
+
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        int admitted = 0;
+        for (long employeeId = 1; employeeId <= ROUNDS; employeeId++) {
+            long id = employeeId;
+            CountDownLatch startGate = new CountDownLatch(1);
+            Callable<Boolean> first = () -> apply(leaveService, id, startGate, LocalDate.of(2025, 3, 3), LocalDate.of(2025, 3, 5));
+            Callable<Boolean> second = () -> apply(leaveService, id, startGate, LocalDate.of(2025, 3, 5), LocalDate.of(2025, 3, 7));
+            List<Future<Boolean>> results = new ArrayList<>(List.of(pool.submit(first), pool.submit(second)));
+            startGate.countDown();
+            int admittedThisRound = 0;
+            for (Future<Boolean> result : results) {
+                admittedThisRound += result.get(30, TimeUnit.SECONDS) ? 1 : 0;
+            }
+            assertEquals(1, admittedThisRound, "employee " + id);
+            admitted += admittedThisRound;
+        }
+        pool.shutdown();
+
+        verify(leaveRequestRepository, times(admitted)).save(any(LeaveRequest.class));
+        verify(leaveRequestRepository, times(ROUNDS)).findByEmployeeIdAndStatusInOrderByStartDate(anyLong(), any());
+    }
+
+    @Test
+    void overlappingLegacyRowsAreMergedAndReleasedRangesFreeUp() {
+        LeaveRequestRepository leaveRequestRepository = mock(LeaveRequestRepository.class);
+        when(leaveRequestRepository.findByEmployeeIdAndStatusInOrderByStartDate(eq(7L), any())).thenReturn(List.of(
+                leave(LocalDate.of(2025, 6, 2), LocalDate.of(2025, 6, 10)),
+                leave(LocalDate.of(2025, 6, 4), LocalDate.of(2025, 6, 5)),
+                leave(LocalDate.of(2025, 6, 20), LocalDate.of(2025, 6, 20))));
+        LeaveIntervalIndex index = new LeaveIntervalIndex(leaveRequestRepository, 60000);
+
+        // inside the merged range, behind the shorter row that starts later
+        assertFalse(index.reserve(7L, LocalDate.of(2025, 6, 8), LocalDate.of(2025, 6, 9)));
+        assertFalse(index.reserve(7L, LocalDate.of(2025, 6, 15), LocalDate.of(2025, 6, 20)));
+        assertTrue(index.reserve(7L, LocalDate.of(2025, 6, 11), LocalDate.of(2025, 6, 19)));
+
+        index.release(7L, LocalDate.of(2025, 6, 11), LocalDate.of(2025, 6, 19));
+        assertTrue(index.reserve(7L, LocalDate.of(2025, 6, 12), LocalDate.of(2025, 6, 12)));
+        verify(leaveRequestRepository, times(1)).findByEmployeeIdAndStatusInOrderByStartDate(eq(7L), any());
+    }
+
+    private static boolean apply(LeaveService leaveService, long employeeId, CountDownLatch startGate,
+                                 LocalDate from, LocalDate to) throws InterruptedException {
+        startGate.await();
+        try {
+            leaveService.applyLeave(employeeId, LeaveRequest.builder().type(LeaveType.UNPAID).startDate(from).endDate(to).build());
+            return true;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    private static LeaveRequest leave(LocalDate from, LocalDate to) {
+        return LeaveRequest.builder().employeeId(7L).startDate(from).endDate(to).status(LeaveStatus.APPROVED).build();
+    }
+}
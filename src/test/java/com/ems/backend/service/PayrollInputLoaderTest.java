@@ -0,0 +1,151 @@
+package com.ems.backend.service;
+
+import com.ems.backend.dto.PayrollInput;
+import com.ems.backend.repository.HolidayRepository;
+import com.ems.backend.repository.PayrollJdbcRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.DayOfWeek;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Checks that loading a payroll month's inputs costs the same handful of statements
+ * whatever the headcount, and that leave and absences land on the right employees.
+ */
+class PayrollInputLoaderTest {
+
+    private static final YearMonth MONTH = YearMonth.of(2026, 9); // starts on a Tuesday
+
+    private JdbcTemplate seed;
+    private PayrollInputLoader loader;
+    private final AtomicInteger statements = new AtomicInteger();
+
+    @BeforeEach
+    void createSchema() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:payroll-inputs;MODE=MySQL;DB_CLOSE_DELAY=-1", "sa", "");
+        seed = new JdbcTemplate(dataSource);
+        seed.execute("CREATE TABLE users (id BIGINT PRIMARY KEY, role VARCHAR(16), active BOOLEAN, approved BOOLEAN, "
+                + "date_of_joining DATE, department VARCHAR(64), designation VARCHAR(64))");
+        seed.execute("CREATE TABLE leave_request (id BIGINT AUTO_INCREMENT PRIMARY KEY, employee_id BIGINT, "
+                + "start_date DATE, end_date DATE, type VARCHAR(16), status VARCHAR(16))");
+        seed.execute("CREATE TABLE attendance (id BIGINT AUTO_INCREMENT PRIMARY KEY, employee_id BIGINT, "
+                + "date DATE, status VARCHAR(16))");
+
+        PayrollJdbcRepository repository = new PayrollJdbcRepository(new JdbcTemplate(countingStatements(dataSource)), 100);
+        WorkingDayCalendar calendar = new WorkingDayCalendar(mock(HolidayRepository.class),
+                List.of(DayOfWeek.SATURDAY, DayOfWeek.SUNDAY));
+        loader = new PayrollInputLoader(repository, calendar);
+    }
+
+    @AfterEach
+    void dropSchema() {
+        seed.execute("DROP TABLE attendance");
+        seed.execute("DROP TABLE leave_request");
+        seed.execute("DROP TABLE users");
+    }
+
+    @Test
+    void statementCountDoesNotGrowWithHeadcount() {
+        seedEmployees(1, 20);
+        int small = countStatements(20);
+        seedEmployees(21, 5_000);
+        int large = countStatements(5_000);
+
+        assertEquals(3, small);
+        assertEquals(small, large);
+    }
+
+    @Test
+    void attachesLeaveAndAbsencesToTheirEmployees() {
+        seedEmployees(1, 30);
+        seed.update("INSERT INTO users VALUES (31, 'EMPLOYEE', FALSE, TRUE, NULL, 'Ops', NULL)");
+        seed.update("INSERT INTO users VALUES (32, 'EMPLOYEE', TRUE, TRUE, '2026-10-01', 'Ops', NULL)");
+        seed.update("INSERT INTO users VALUES (33, 'ADMIN', TRUE, TRUE, NULL, 'Ops', NULL)");
+        // weekend-only unpaid leave costs nothing; other leave types are not unpaid
+        seed.update("INSERT INTO leave_request (employee_id, start_date, end_date, type, status) "
+                + "VALUES (11, '2026-09-05', '2026-09-06', 'UNPAID', 'APPROVED'), "
+                + "(12, '2026-09-07', '2026-09-08', 'UNPAID', 'PENDING'), "
+                + "(13, '2026-09-07', '2026-09-08', 'SICK', 'APPROVED'), "
+                + "(14, '2026-09-28', '2026-10-09', 'UNPAID', 'APPROVED')");
+
+        List<PayrollInput> inputs = loader.load(MONTH, 0);
+
+        assertEquals(30, inputs.size());
+        assertEquals(3, inputs.get(9).getUnpaidLeaveDays());  // 28 Aug - 3 Sep
+        assertEquals(2, inputs.get(6).getAbsentDays());
+        assertEquals(0, inputs.get(10).getUnpaidLeaveDays());
+        assertEquals(0, inputs.get(11).getUnpaidLeaveDays());
+        assertEquals(0, inputs.get(12).getUnpaidLeaveDays());
+        assertEquals(3, inputs.get(13).getUnpaidLeaveDays()); // 28 - 30 Sep
+        assertEquals(0, inputs.get(0).getUnpaidLeaveDays() + inputs.get(0).getAbsentDays());
+
+        List<PayrollInput> resumed = loader.load(MONTH, 10);
+        assertEquals(20, resumed.size());
+        assertEquals(11L, resumed.get(0).getEmployeeId());
+        assertEquals(3, resumed.get(3).getUnpaidLeaveDays());
+    }
+
+    private int countStatements(int expectedEmployees) {
+        statements.set(0);
+        assertEquals(expectedEmployees, loader.load(MONTH, 0).size());
+        return statements.get();
+    }
+
+    // every tenth employee has unpaid leave spanning the month start, every seventh two absences
+    private void seedEmployees(int fromId, int toId) {
+        List<Object[]> users = new ArrayList<>();
+        List<Object[]> leaves = new ArrayList<>();
+        List<Object[]> absences = new ArrayList<>();
+        for (long id = fromId; id <= toId; id++) {
+            users.add(new Object[]{id, "Dept" + (id % 5)});
+            if (id % 10 == 0) {
+                leaves.add(new Object[]{id});
+            }
+            if (id % 7 == 0) {
+                absences.add(new Object[]{id, "2026-09-14"});
+                absences.add(new Object[]{id, "2026-09-15"});
+            }
+        }
+        seed.batchUpdate("INSERT INTO users VALUES (?, 'EMPLOYEE', TRUE, TRUE, NULL, ?, NULL)", users);
+        seed.batchUpdate("INSERT INTO leave_request (employee_id, start_date, end_date, type, status) "
+                + "VALUES (?, '2026-08-28', '2026-09-03', 'UNPAID', 'APPROVED')", leaves);
+        seed.batchUpdate("INSERT INTO attendance (employee_id, date, status) VALUES (?, ?, 'ABSENT')", absences);
+    }
+
+    private DelegatingDataSource countingStatements(DriverManagerDataSource target) {
+        return new DelegatingDataSource(target) {
+            @Override
+            public Connection getConnection() throws SQLException {
+                Connection connection = super.getConnection();
+                return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{Connection.class},
+                        (proxy, method, args) -> {
+                            if (method.getName().equals("prepareStatement") || method.getName().equals("createStatement")
+                                    || method.getName().equals("prepareCall")) {
+                                statements.incrementAndGet();
+                            }
+                            try {
+                                return method.invoke(connection, args);
+                            } catch (InvocationTargetException e) {
+                                throw e.getCause();
+                            }
+                        });
+            }
+        };
+    }
+}
@@ -0,0 +1,161 @@
+package com.ems.backend.service;
+
+import com.ems.backend.dto.PayrollInput;
+import com.ems.backend.dto.PayrollRecalcReport;
+import com.ems.backend.entity.Payroll;
+import com.ems.backend.entity.PayrollAdjustment;
+import com.ems.backend.entity.PayrollComponentType;
+import com.ems.backend.entity.PayrollLineItem;
+import com.ems.backend.repository.PayrollAdjustmentRepository;
+import com.ems.backend.repository.PayrollJdbcRepository;
+import com.ems.backend.repository.PayrollJdbcRepository.QueuedRecalc;
+import com.ems.backend.repository.PayrollRepository;
+import com.ems.backend.service.payroll.PayrollResult;
+import com.ems.backend.service.payroll.PayrollRuleSet;
+import com.ems.backend.service.payroll.PayrollRulesEngine;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.DefaultResourceLoader;
+
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class PayrollRecalcServiceTest {
+
+    private static final LocalDate MONTH = LocalDate.of(2026, 9, 1);
+    private static final int WORKING_DAYS = 22;
+
+    private PayrollJdbcRepository payrollJdbcRepository;
+    private PayrollRepository payrollRepository;
+    private PayrollAdjustmentRepository payrollAdjustmentRepository;
+    private PayrollInputLoader payrollInputLoader;
+    private PayrollRulesEngine payrollRulesEngine;
+    private List<PayrollRuleSet> ruleSets;
+    private PayrollRecalcService recalcService;
+    private final List<PayrollAdjustment> saved = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() throws Exception {
+        payrollJdbcRepository = mock(PayrollJdbcRepository.class);
+        payrollRepository = mock(PayrollRepository.class);
+        payrollAdjustmentRepository = mock(PayrollAdjustmentRepository.class);
+        payrollInputLoader = mock(PayrollInputLoader.class);
+        WorkingDayCalendar workingDayCalendar = mock(WorkingDayCalendar.class);
+        when(workingDayCalendar.countWorkingDays(any(), any(), any())).thenReturn(WORKING_DAYS);
+        when(payrollAdjustmentRepository.saveAll(anyList())).thenAnswer(call -> {
+            saved.addAll(call.getArgument(0));
+            return call.getArgument(0);
+        });
+
+        ObjectMapper objectMapper = new ObjectMapper();
+        payrollRulesEngine = new PayrollRulesEngine(new DefaultResourceLoader(), objectMapper, "classpath:payroll/rules.json");
+        try (InputStream in = getClass().getResourceAsStream("/payroll/rules.json")) {
+            ruleSets = objectMapper.readValue(in, PayrollRuleSet.RulesFile.class).getRuleSets();
+        }
+        payrollRulesEngine.install(ruleSets);
+        recalcService = new PayrollRecalcService(payrollJdbcRepository, payrollRepository, payrollAdjustmentRepository,
+                payrollInputLoader, payrollRulesEngine, workingDayCalendar, 200);
+    }
+
+    @Test
+    void adjustsOnlyTheFactDrivenLinesOfAGeneratedPayroll() {
+        Payroll generated = priced(1L, 10L, 0, 0);
+        queue(generated, new PayrollInput(10L, "Ops", "Engineer", 2, 0));
+
+        PayrollRecalcReport report = recalcService.drainQueue();
+
+        assertEquals(1, report.getRecalculated());
+        assertEquals(1, report.getAdjusted());
+        assertEquals(List.of(), report.getSkippedPayrollIds());
+        List<String> changed = saved.get(0).getLineItems().stream().map(PayrollLineItem::getCode).toList();
+        assertEquals(List.of("LOP", "TDS"), changed);
+    }
+
+    @Test
+    void skipsAndReportsAManualPayrollInsteadOfRepricingIt() {
+        Payroll manual = Payroll.builder()
+                .id(2L)
+                .employeeId(20L)
+                .salaryMonth(MONTH)
+                .basicSalary(42000.0)
+                .allowances(3000.0)
+                .deductions(1500.0)
+                .netSalary(43500.0)
+                .lineItems(List.of(
+                        new PayrollLineItem("BASIC", PayrollComponentType.BASIC, 4_200_000),
+                        new PayrollLineItem("ALLOWANCES", PayrollComponentType.ALLOWANCE, 300_000),
+                        new PayrollLineItem("DEDUCTIONS", PayrollComponentType.DEDUCTION, 150_000)))
+                .build();
+        Payroll legacy = Payroll.builder()
+                .id(3L)
+                .employeeId(30L)
+                .salaryMonth(MONTH)
+                .basicSalary(50000.0)
+                .allowances(0.0)
+                .deductions(0.0)
+                .netSalary(50000.0)
+                .build();
+        queue(List.of(manual, legacy), List.of(
+                new PayrollInput(20L, "Ops", "Engineer", 3, 1),
+                new PayrollInput(30L, "Ops", "Engineer", 1, 0)));
+
+        PayrollRecalcReport report = recalcService.drainQueue();
+
+        assertEquals(0, report.getRecalculated());
+        assertEquals(0, report.getAdjusted());
+        assertEquals(List.of(2L, 3L), report.getSkippedPayrollIds());
+        assertEquals(List.of(), saved);
+    }
+
+    @Test
+    void skipsAPayrollPricedUnderRulesThatHaveSinceChanged() {
+        Payroll generated = priced(4L, 40L, 0, 0);
+        // a raise keeps every line code, so only the fingerprint tells the two plans apart
+        ruleSets.get(0).setBasicSalary(new BigDecimal("60000"));
+        payrollRulesEngine.install(ruleSets);
+        queue(generated, new PayrollInput(40L, "Ops", "Engineer", 2, 0));
+
+        PayrollRecalcReport report = recalcService.drainQueue();
+
+        assertEquals(0, report.getRecalculated());
+        assertEquals(List.of(4L), report.getSkippedPayrollIds());
+        assertEquals(List.of(), saved);
+    }
+
+    // A payroll as the monthly run writes it, priced for the given facts
+    private Payroll priced(Long payrollId, Long employeeId, int unpaidLeaveDays, int absentDays) {
+        PayrollResult result = payrollRulesEngine.newResult();
+        payrollRulesEngine.planFor("Ops", "Engineer").evaluate(WORKING_DAYS, unpaidLeaveDays, absentDays, result);
+        Payroll payroll = result.toPayroll(employeeId, MONTH);
+        payroll.setId(payrollId);
+        return payroll;
+    }
+
+    private void queue(Payroll payroll, PayrollInput input) {
+        queue(List.of(payroll), List.of(input));
+    }
+
+    private void queue(List<Payroll> payrolls, List<PayrollInput> inputs) {
+        List<QueuedRecalc> entries = new ArrayList<>();
+        for (Payroll payroll : payrolls) {
+            entries.add(new QueuedRecalc(payroll.getId(), payroll.getEmployeeId(), MONTH, 1));
+        }
+        when(payrollJdbcRepository.findQueued(anyInt())).thenReturn(entries, List.of());
+        when(payrollRepository.findBySalaryMonthAndEmployeeIdIn(eq(MONTH), anyList())).thenReturn(payrolls);
+        when(payrollAdjustmentRepository.findByPayrollIdInOrderById(anyList())).thenReturn(List.of());
+        when(payrollInputLoader.load(eq(YearMonth.from(MONTH)), anyList())).thenReturn(inputs);
+    }
+}
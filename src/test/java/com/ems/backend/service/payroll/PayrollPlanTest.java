@@ -0,0 +1,148 @@
+package com.ems.backend.service.payroll;
+
+import com.ems.backend.entity.PayrollComponentType;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Exact figures for a compiled plan and an allocation check over 100k employee-months. The
+ * throughput figure is a {@code benchmark}-tagged test, run with {@code mvn test -Pbenchmark}.
+ */
+class PayrollPlanTest {
+
+    private static final int EMPLOYEES = 100_000;
+
+    @Test
+    void evaluatesComponentsInMinorUnits() {
+        PayrollPlan plan = PayrollPlan.compile(managerRules());
+        PayrollResult result = plan.newResult();
+
+        plan.evaluate(22, 0, 0, result);
+        // gross 85,234.56; tax 10% of (85,234.56 - 25,000) = 6,023.4560 -> 6,023.46
+        assertEquals(6_000_000, result.getBasic());
+        assertEquals(2_523_456, result.getAllowances());
+        assertEquals(720_000 + 20_000 + 602_346, result.getDeductions());
+        assertEquals(7_181_110, result.getNet());
+        assertEquals(List.of("BASIC", "HRA", "SPECIAL", "LOP", "ABSENT", "PF", "PROF_TAX", "TDS"), codes(plan));
+
+        plan.evaluate(22, 2, 1, result);
+        // LOP 2/22 and ABSENT 1/22 of gross, and tax on what is left
+        assertEquals(774_860, result.amount(3));
+        assertEquals(387_430, result.amount(4));
+        assertEquals(486_117, result.amount(7));
+        assertEquals(6_135_049, result.getNet());
+
+        long sum = 0;
+        for (int i = 0; i < plan.lineCount(); i++) {
+            sum += plan.type(i) == PayrollComponentType.BASIC || plan.type(i) == PayrollComponentType.ALLOWANCE
+                    ? result.amount(i) : -result.amount(i);
+        }
+        assertEquals(result.getNet(), sum);
+    }
+
+    @Test
+    void rejectsAmbiguousOrInexactRules() {
+        PayrollRuleSet twoBases = managerRules();
+        twoBases.getComponents().get(0).setAmount(new BigDecimal("100"));
+        assertThrows(IllegalArgumentException.class, () -> PayrollPlan.compile(twoBases));
+
+        PayrollRuleSet fractionOfPaisa = managerRules();
+        fractionOfPaisa.setBasicSalary(new BigDecimal("60000.005"));
+        assertThrows(IllegalArgumentException.class, () -> PayrollPlan.compile(fractionOfPaisa));
+
+        PayrollRuleSet closedLastSlab = managerRules();
+        closedLastSlab.getComponents().get(6).getSlabs().get(2).setUpTo(new BigDecimal("500000"));
+        assertThrows(IllegalArgumentException.class, () -> PayrollPlan.compile(closedLastSlab));
+    }
+
+    @Test
+    void prices100kEmployeesWithoutAllocating() {
+        PayrollPlan plan = PayrollPlan.compile(managerRules());
+        PayrollResult result = plan.newResult();
+        // warm up so the measured loop runs compiled code
+        long checksum = priceAll(plan, result);
+
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long allocatedBefore = threads.getCurrentThreadAllocatedBytes();
+        checksum += priceAll(plan, result);
+        long allocated = threads.getCurrentThreadAllocatedBytes() - allocatedBefore;
+
+        assertTrue(checksum > 0);
+        assertTrue(allocated < 64 * 1024, "evaluation allocated " + allocated + " bytes");
+    }
+
+    @Test
+    @Tag("benchmark")
+    void prices100kEmployeesQuickly() {
+        PayrollPlan plan = PayrollPlan.compile(managerRules());
+        PayrollResult result = plan.newResult();
+        long checksum = priceAll(plan, result);
+
+        long start = System.nanoTime();
+        checksum += priceAll(plan, result);
+        long nanos = System.nanoTime() - start;
+
+        assertTrue(checksum > 0);
+        assertTrue(nanos < 3_000_000_000L, "100k employees took " + nanos / 1_000_000 + " ms");
+    }
+
+    private static long priceAll(PayrollPlan plan, PayrollResult result) {
+        long total = 0;
+        for (int i = 0; i < EMPLOYEES; i++) {
+            plan.evaluate(22, i % 3, i % 5 == 0 ? 1 : 0, result);
+            total += result.getNet();
+        }
+        return total;
+    }
+
+    private static List<String> codes(PayrollPlan plan) {
+        List<String> codes = new ArrayList<>();
+        for (int i = 0; i < plan.lineCount(); i++) {
+            codes.add(plan.code(i));
+        }
+        return codes;
+    }
+
+    private static PayrollRuleSet managerRules() {
+        PayrollRuleSet rules = new PayrollRuleSet();
+        rules.setName("manager");
+        rules.setBasicSalary(new BigDecimal("60000"));
+        rules.getComponents().add(component("HRA", PayrollComponentType.ALLOWANCE, null, "40"));
+        rules.getComponents().add(component("SPECIAL", PayrollComponentType.ALLOWANCE, "1234.56", null));
+        rules.getComponents().add(component("PF", PayrollComponentType.DEDUCTION, null, "12"));
+        rules.getComponents().add(component("PROF_TAX", PayrollComponentType.DEDUCTION, "200", null));
+        rules.getComponents().add(component("LOP", PayrollComponentType.UNPAID_LEAVE, null, null));
+        rules.getComponents().add(component("ABSENT", PayrollComponentType.ABSENCE, null, null));
+        PayrollRuleSet.Component tax = component("TDS", PayrollComponentType.TAX, null, null);
+        tax.getSlabs().add(slab("25000", "0"));
+        tax.getSlabs().add(slab("100000", "10"));
+        tax.getSlabs().add(slab(null, "30"));
+        rules.getComponents().add(tax);
+        return rules;
+    }
+
+    private static PayrollRuleSet.Component component(String code, PayrollComponentType type, String amount, String percentOfBasic) {
+        PayrollRuleSet.Component component = new PayrollRuleSet.Component();
+        component.setCode(code);
+        component.setType(type);
+        component.setAmount(amount == null ? null : new BigDecimal(amount));
+        component.setPercentOfBasic(percentOfBasic == null ? null : new BigDecimal(percentOfBasic));
+        return component;
+    }
+
+    private static PayrollRuleSet.Slab slab(String upTo, String percent) {
+        PayrollRuleSet.Slab slab = new PayrollRuleSet.Slab();
+        slab.setUpTo(upTo == null ? null : new BigDecimal(upTo));
+        slab.setPercent(new BigDecimal(percent));
+        return slab;
+    }
+}